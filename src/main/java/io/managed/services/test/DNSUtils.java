@@ -1,40 +1,135 @@
 package io.managed.services.test;
 
-import io.managed.services.test.cli.AsyncProcess;
-import io.managed.services.test.cli.ProcessException;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.dns.DnsClient;
+import io.vertx.core.dns.DnsClientOptions;
+import io.vertx.core.dns.DnsException;
 
-import java.io.IOException;
-import java.time.Duration;
-import java.util.ArrayList;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Resolve hostnames in the JVM with the Vert.x async DNS client, so that multiple hosts and name servers
+ * can be queried concurrently without blocking a thread for each host or forking dig.
+ * <p>
+ * The DNS client queries directly the system name server, or the passed one, and doesn't read /etc/hosts.
+ * The clients are cached per name server and run on a dedicated single event loop because they can't be
+ * closed.
+ */
 public class DNSUtils {
 
-    public static String dig(String hostname) {
-        return dig(hostname, null);
-    }
+    private static final long QUERY_TIMEOUT_MILLIS = 5000;
+    private static final String SYSTEM_NAME_SERVER = "";
+
+    private static final Map<String, DnsClient> CLIENTS = new ConcurrentHashMap<>();
+    private static Vertx vertx;
 
-    public static String dig(String hostname, String server) {
-        var cmd = new ArrayList<String>();
-        cmd.add("dig");
-        if (server != null) {
-            cmd.add(String.format("@%s", server));
+    /**
+     * @return The Vertx instance on which the DNS clients run
+     */
+    public static synchronized Vertx vertx() {
+        if (vertx == null) {
+            vertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(1).setWorkerPoolSize(1));
         }
-        cmd.add(hostname);
+        return vertx;
+    }
+
+    private static DnsClient client(String server) {
+        return CLIENTS.computeIfAbsent(server == null ? SYSTEM_NAME_SERVER : server, s -> {
+            var options = new DnsClientOptions().setQueryTimeout(QUERY_TIMEOUT_MILLIS);
+            if (!s.isEmpty()) {
+                options.setHost(s).setPort(53);
+            }
+            return vertx().createDnsClient(options);
+        });
+    }
 
-        var processBuilder = new ProcessBuilder().command(cmd);
+    /**
+     * Resolve the hostname to its first A or AAAA address using the system name server.
+     */
+    public static Future<String> resolve(String hostname) {
+        return resolve(hostname, null);
+    }
 
-        Process process;
-        try {
-            process = processBuilder.start();
-        } catch (IOException e) {
-            return e.getMessage();
-        }
+    /**
+     * Resolve the hostname to its first A or AAAA address.
+     *
+     * @param hostname Hostname
+     * @param server   Name server or null to use the system one
+     * @return Future that fails with UnknownHostException if the hostname can't be resolved
+     */
+    public static Future<String> resolve(String hostname, String server) {
+        return client(server).lookup(hostname)
+            .transform(r -> {
+                if (r.succeeded() && r.result() != null) {
+                    return Future.succeededFuture(r.result());
+                }
+                var reason = r.failed() ? describe(r.cause()) : "no address";
+                return Future.failedFuture(new UnknownHostException(String.format("%s: %s", hostname, reason)));
+            });
+    }
+
+    /**
+     * Resolve all hostnames concurrently.
+     *
+     * @return Future with the address of each hostname that has been resolved, it never fails
+     */
+    public static Future<Map<String, String>> resolveAll(Collection<String> hostnames) {
+        List<Future> lookups = hostnames.stream()
+            .map(h -> resolve(h).otherwiseEmpty())
+            .collect(Collectors.toList());
+
+        return CompositeFuture.join(lookups).map(__ -> {
+            var addresses = new LinkedHashMap<String, String>();
+            var i = 0;
+            for (var hostname : hostnames) {
+                var address = (String) lookups.get(i++).result();
+                if (address != null) {
+                    addresses.put(hostname, address);
+                }
+            }
+            return addresses;
+        });
+    }
+
+    /**
+     * Query the A, AAAA and CNAME records of the hostname concurrently and describe the answers
+     * like a short dig output, to troubleshoot hosts that can't be resolved.
+     *
+     * @param hostname Hostname
+     * @param server   Name server or null to use the system one
+     * @return Future with the description, it never fails
+     */
+    public static Future<String> dig(String hostname, String server) {
+        var client = client(server);
+        var a = client.resolveA(hostname);
+        var aaaa = client.resolveAAAA(hostname);
+        var cname = client.resolveCNAME(hostname);
+
+        Function<Future<List<String>>, String> answer = f -> f.succeeded() ? f.result().toString() : describe(f.cause());
+
+        return CompositeFuture.join(a, aaaa, cname)
+            .transform(__ -> Future.succeededFuture(String.format("server: %s\nA: %s\nAAAA: %s\nCNAME: %s",
+                server == null ? "system" : server, answer.apply(a), answer.apply(aaaa), answer.apply(cname))));
+    }
+
+    public static Future<String> dig(String hostname) {
+        return dig(hostname, null);
+    }
 
-        var asyncProcess = new AsyncProcess(process);
-        try {
-            return asyncProcess.sync(Duration.ofMinutes(1)).stdoutAsString();
-        } catch (ProcessException e) {
-            return e.getMessage();
+    private static String describe(Throwable t) {
+        if (t instanceof DnsException) {
+            return ((DnsException) t).code().toString();
         }
+        return t.getMessage();
     }
 }
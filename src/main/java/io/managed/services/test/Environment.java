@@ -78,6 +78,15 @@ public class Environment {
     private static final String DEFAULT_KAFKA_REGION_ENV = "DEFAULT_KAFKA_REGION";
     private static final String KAFKA_INSECURE_TLS_ENV = "KAFKA_INSECURE_TLS";
     private static final String KAFKA_INSTANCE_API_TEMPLATE_ENV = "KAFKA_INSTANCE_API_TEMPLATE";
+    private static final String KAFKA_POOL_SIZE_ENV = "KAFKA_POOL_SIZE";
+    private static final String KAFKA_POOL_LOCK_DIR_ENV = "KAFKA_POOL_LOCK_DIR";
+    private static final String MGMT_LOOKUP_CACHE_TTL_ENV = "MGMT_LOOKUP_CACHE_TTL";
+    private static final String API_RATE_LIMIT_ENV = "API_RATE_LIMIT";
+    private static final String API_RATE_BURST_ENV = "API_RATE_BURST";
+    private static final String API_MAX_CONCURRENCY_ENV = "API_MAX_CONCURRENCY";
+    private static final String HTTP_POOL_MAX_TOTAL_ENV = "HTTP_POOL_MAX_TOTAL";
+    private static final String HTTP_POOL_MAX_PER_ROUTE_ENV = "HTTP_POOL_MAX_PER_ROUTE";
+    private static final String HTTP_KEEP_ALIVE_ENV = "HTTP_KEEP_ALIVE";
 
     private static final String PROMETHEUS_PUSH_GATEWAY_ENV = "PROMETHEUS_PUSH_GATEWAY";
 
@@ -169,6 +178,23 @@ public class Environment {
     public static final boolean KAFKA_INSECURE_TLS = getOrDefault(KAFKA_INSECURE_TLS_ENV, Boolean::parseBoolean, false);
     public static final String KAFKA_INSTANCE_API_TEMPLATE = getOrDefault(KAFKA_INSTANCE_API_TEMPLATE_ENV, "https://admin-server-%s");
 
+    // Number of ready Kafka instances kept in the pool shared by the test classes, 0 to disable the pool
+    public static final int KAFKA_POOL_SIZE = getOrDefault(KAFKA_POOL_SIZE_ENV, Integer::parseInt, 0);
+    public static final Path KAFKA_POOL_LOCK_DIR = getOrDefault(KAFKA_POOL_LOCK_DIR_ENV, Paths::get, Paths.get(SUITE_ROOT, "target", "kafka-pool"));
+
+    // Seconds for which the lookups by name on the mgmt APIs are cached, 0 to disable the cache
+    public static final long MGMT_LOOKUP_CACHE_TTL = getOrDefault(MGMT_LOOKUP_CACHE_TTL_ENV, Long::parseLong, 30L);
+
+    // Requests per second (0 to not limit the rate), burst and max concurrent requests allowed to each API host by all the API clients
+    public static final double API_RATE_LIMIT = getOrDefault(API_RATE_LIMIT_ENV, Double::parseDouble, 0.0);
+    public static final int API_RATE_BURST = getOrDefault(API_RATE_BURST_ENV, Integer::parseInt, 20);
+    public static final int API_MAX_CONCURRENCY = getOrDefault(API_MAX_CONCURRENCY_ENV, Integer::parseInt, 32);
+
+    // Max connections and seconds for which the idle connections are kept in the HTTP pool shared by the SDK clients
+    public static final int HTTP_POOL_MAX_TOTAL = getOrDefault(HTTP_POOL_MAX_TOTAL_ENV, Integer::parseInt, 100);
+    public static final int HTTP_POOL_MAX_PER_ROUTE = getOrDefault(HTTP_POOL_MAX_PER_ROUTE_ENV, Integer::parseInt, 32);
+    public static final long HTTP_KEEP_ALIVE = getOrDefault(HTTP_KEEP_ALIVE_ENV, Long::parseLong, 60L);
+
     public static final String PROMETHEUS_PUSH_GATEWAY = getOrDefault(PROMETHEUS_PUSH_GATEWAY_ENV, null);
 
     public static final String STRATOSPHERE_PASSWORD = getOrDefault(STRATOSPHERE_PASSWORD_ENV, null);
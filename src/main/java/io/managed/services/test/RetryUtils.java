@@ -52,7 +52,31 @@ public class RetryUtils {
         Function<Throwable, Boolean> condition,
         int attempts) {
 
-        return retry(x, caller(backtrace), call, condition, attempts, Duration.ofSeconds(1));
+        // the caller must be captured now because the retries run on the Vert.x threads
+        return retry(x, caller(backtrace), call, condition, attempts);
+    }
+
+    public static <T> Future<T> retry(
+        Vertx x,
+        StackWalker.StackFrame caller,
+        Supplier<Future<T>> call,
+        Function<Throwable, Boolean> condition) {
+
+        return retry(x, caller, call, condition, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Same as {@link #retry(Vertx, int, Supplier, Function, int)} but report the errors with the given caller,
+     * for callers that have already captured the frame of the function that should be reported.
+     */
+    public static <T> Future<T> retry(
+        Vertx x,
+        StackWalker.StackFrame caller,
+        Supplier<Future<T>> call,
+        Function<Throwable, Boolean> condition,
+        int attempts) {
+
+        return retry(x, caller, call, condition, attempts, Duration.ofSeconds(1));
     }
 
     private static <T> Future<T> retry(
@@ -159,8 +183,8 @@ public class RetryUtils {
 
         var walker = StackWalker.getInstance();
         return walker.walk(frames -> frames
-                // ignore all the frames within this class
-                .filter(f -> !f.getClassName().equals(RetryUtils.class.getName()))
+                // ignore all the frames within this class, including its lambdas
+                .filter(f -> !f.getClassName().startsWith(RetryUtils.class.getName()))
                 // skip n frames
                 .skip(backtrace)
                 .findFirst())
@@ -0,0 +1,219 @@
+package io.managed.services.test.client;
+
+import io.managed.services.test.Environment;
+import io.prometheus.client.Counter;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import lombok.extern.log4j.Log4j2;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rate limiter shared by all the {@link BaseApi} clients that send requests to the same host, so that
+ * the test classes running in parallel stay together under the control plane limits.
+ * <p>
+ * Each request needs a token from the {@link TokenBucket} of the host and a free concurrency slot; the
+ * token bucket is disabled when the rate is 0, which is the default of the API_RATE_LIMIT env. The
+ * concurrency limit is adapted with AIMD: it is halved on a 429 response and increased by one every
+ * limit successful requests. Like TCP does once per round trip, the limit is halved only by the requests
+ * sent after the last reduction, so that a burst of 429 responses to the requests that were already in
+ * flight reduces it only once instead of dropping it to one. A 429 response also pauses all the requests to the host for the time
+ * requested by its Retry-After header, so that the retries of the other clients don't hit the host before
+ * that time.
+ */
+@Log4j2
+public class ApiRateLimiter {
+
+    private static final Duration DEFAULT_BACKOFF = Duration.ofSeconds(5);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(2);
+
+    private static final Counter THROTTLED = Counter.build()
+        .name("test_api_throttled_requests")
+        .labelNames("launch", "host")
+        .help("Number of API requests rejected with 429 Too Many Requests by host.")
+        .register();
+
+    private static final Map<String, ApiRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    private final String host;
+    private final TokenBucket bucket; // null if the rate is not limited
+    private final int maxConcurrency;
+    private final Deque<Promise<Void>> waiters = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight = 0;
+    private Instant pausedUntil = Instant.EPOCH;
+    private long decreasedAt = System.nanoTime();
+
+    /**
+     * @param ratePerSecond Requests per second allowed to the host, 0 to not limit the rate
+     */
+    public ApiRateLimiter(String host, double ratePerSecond, int burst, int maxConcurrency) {
+        this.host = host;
+        this.bucket = ratePerSecond > 0 ? new TokenBucket(ratePerSecond, burst) : null;
+        this.maxConcurrency = maxConcurrency;
+        this.limit = maxConcurrency;
+    }
+
+    /**
+     * @param baseUrl The base URL of the API or null if not known
+     * @return The limiter shared by all the APIs of the same host
+     */
+    public static ApiRateLimiter forUrl(String baseUrl) {
+        return LIMITERS.computeIfAbsent(host(baseUrl), h -> new ApiRateLimiter(h,
+            Environment.API_RATE_LIMIT, Environment.API_RATE_BURST, Environment.API_MAX_CONCURRENCY));
+    }
+
+    /**
+     * @param baseUrl The base URL of the API or null if not known
+     * @return A limiter that is not shared with the other APIs of the same host and doesn't limit the rate,
+     * for the benchmarks that measure the API itself and must not wait for the requests of the other tests
+     */
+    public static ApiRateLimiter unshared(String baseUrl) {
+        return new ApiRateLimiter(host(baseUrl), 0, 1, Environment.API_MAX_CONCURRENCY);
+    }
+
+    private static String host(String baseUrl) {
+        if (baseUrl == null) {
+            return "unknown";
+        }
+        try {
+            var host = URI.create(baseUrl).getHost();
+            return host == null ? baseUrl : host;
+        } catch (IllegalArgumentException e) {
+            return baseUrl;
+        }
+    }
+
+    /**
+     * Block until the request can be sent, {@link #release(boolean)} must be called once it completes.
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            var pause = pause();
+            if (!pause.isZero()) {
+                Thread.sleep(pause.toMillis());
+            }
+
+            if (bucket != null) {
+                bucket.acquire();
+            }
+            synchronized (this) {
+                // a 429 could have been received while waiting for the token
+                if (!pause().isZero()) {
+                    continue;
+                }
+                while (inFlight >= (int) limit) {
+                    wait();
+                }
+                inFlight++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #acquire()} but without blocking the calling thread.
+     */
+    public Future<Void> acquire(Vertx vertx) {
+        var pause = pause();
+        if (!pause.isZero()) {
+            Promise<Void> promise = Promise.promise();
+            vertx.setTimer(Math.max(1, pause.toMillis()), __ -> promise.complete());
+            return promise.future().compose(__ -> acquire(vertx));
+        }
+
+        var token = bucket == null ? Future.<Void>succeededFuture() : bucket.acquire(vertx);
+        return token.compose(__ -> {
+            synchronized (this) {
+                if (!pause().isZero()) {
+                    return acquire(vertx);
+                }
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    return Future.succeededFuture();
+                }
+                Promise<Void> promise = Promise.promise();
+                waiters.add(promise);
+                return promise.future();
+            }
+        });
+    }
+
+    /**
+     * Free the concurrency slot of a completed request.
+     *
+     * @param success False if the request failed without a response from the server
+     */
+    public void release(boolean success) {
+        List<Promise<Void>> ready;
+        synchronized (this) {
+            inFlight--;
+            if (success) {
+                limit = Math.min(maxConcurrency, limit + 1 / limit);
+            }
+            ready = dispatch();
+            notifyAll();
+        }
+        ready.forEach(Promise::complete);
+    }
+
+    /**
+     * Halve the concurrency limit, unless it has already been halved after the request was sent, and pause
+     * all the requests to the host.
+     *
+     * @param retryAfter The delay requested by the server or null
+     * @param sentAt     The {@link System#nanoTime()} at which the throttled request was sent
+     */
+    public void throttled(Duration retryAfter, long sentAt) {
+        var delay = retryAfter == null ? DEFAULT_BACKOFF : retryAfter;
+        if (delay.compareTo(MAX_BACKOFF) > 0) {
+            delay = MAX_BACKOFF;
+        }
+
+        synchronized (this) {
+            if (sentAt - decreasedAt >= 0) {
+                limit = Math.max(1, limit / 2);
+                decreasedAt = System.nanoTime();
+            }
+            var until = Instant.now().plus(delay);
+            if (until.isAfter(pausedUntil)) {
+                pausedUntil = until;
+            }
+        }
+
+        THROTTLED.labels(Environment.LAUNCH_KEY, host).inc();
+        log.warn("requests to '{}' throttled, pause for {} and reduce the concurrency to {}", host, delay, getLimit());
+    }
+
+    private synchronized Duration pause() {
+        var pause = Duration.between(Instant.now(), pausedUntil);
+        return pause.isNegative() ? Duration.ZERO : pause;
+    }
+
+    private List<Promise<Void>> dispatch() {
+        var ready = new ArrayList<Promise<Void>>();
+        while (!waiters.isEmpty() && inFlight < (int) limit) {
+            inFlight++;
+            ready.add(waiters.poll());
+        }
+        return ready;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -1,23 +1,104 @@
 package io.managed.services.test.client;
 
+import io.managed.services.test.Environment;
 import io.managed.services.test.RetryUtils;
 import io.managed.services.test.ThrowingSupplier;
 import io.managed.services.test.ThrowingVoid;
 import io.managed.services.test.client.exception.ApiGenericException;
+import io.managed.services.test.client.exception.ApiToManyRequestsException;
 import io.managed.services.test.client.exception.ApiUnauthorizedException;
 import io.managed.services.test.client.exception.ApiUnknownException;
 import io.managed.services.test.client.oauth.KeycloakUser;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import lombok.extern.log4j.Log4j2;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Log4j2
 public abstract class BaseApi {
 
+    private static final Histogram LATENCY = Histogram.build()
+        .name("test_api_request_duration_seconds")
+        .labelNames("launch", "api", "method")
+        .buckets(0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60)
+        .help("Duration of each API request attempt by API class and method, excluding the rate limiter wait.")
+        .register();
+
+    private static final Counter TOKEN_RENEWALS = Counter.build()
+        .name("test_api_token_renewals")
+        .labelNames("launch", "api")
+        .help("Number of access tokens renewed after a 401 response by API class.")
+        .register();
+
+    private static final Counter RETRIES = Counter.build()
+        .name("test_api_retries")
+        .labelNames("launch", "api", "method")
+        .help("Number of API request attempts after the first one by API class and method.")
+        .register();
+
+    private static final Counter FAILURES = Counter.build()
+        .name("test_api_failures")
+        .labelNames("launch", "api", "method", "code")
+        .help("Number of API calls failed after all the retries by API class, method and status code.")
+        .register();
+
+    /**
+     * The attempts of a single API call through {@link #retry(ThrowingSupplier)}.
+     */
+    private class Call {
+        private final StackWalker.StackFrame caller;
+        private final String method;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private Call() {
+            // the first frame outside this class is the public method of the API subclass, it is captured on
+            // the calling thread because the async retries run on the Vert.x threads
+            this.caller = StackWalker.getInstance().walk(frames -> frames
+                    .filter(f -> !f.getClassName().startsWith(BaseApi.class.getName()))
+                    .findFirst())
+                .orElse(null);
+            this.method = caller == null ? "unknown" : caller.getMethodName();
+        }
+
+        private void attempt() {
+            if (attempts.getAndIncrement() > 0) {
+                RETRIES.labels(Environment.LAUNCH_KEY, name(), method).inc();
+            }
+        }
+
+        private void failed(Throwable t) {
+            var code = t instanceof ApiGenericException ? String.valueOf(((ApiGenericException) t).getCode()) : "none";
+            FAILURES.labels(Environment.LAUNCH_KEY, name(), method, code).inc();
+        }
+    }
+
     private final KeycloakUser user;
+    private final ApiRateLimiter limiter;
 
     protected BaseApi(KeycloakUser user) {
+        this(user, (String) null);
+    }
+
+    /**
+     * @param user    KeycloakUser
+     * @param baseUrl The base URL of the API used to share the rate limiter with the other APIs of the same host
+     */
+    protected BaseApi(KeycloakUser user, String baseUrl) {
+        this(user, ApiRateLimiter.forUrl(baseUrl));
+    }
+
+    /**
+     * @param user    KeycloakUser
+     * @param limiter The rate limiter of the API
+     */
+    protected BaseApi(KeycloakUser user, ApiRateLimiter limiter) {
         this.user = Objects.requireNonNull(user);
+        this.limiter = Objects.requireNonNull(limiter);
     }
 
     /**
@@ -51,6 +132,7 @@ public abstract class BaseApi {
             return handleException(f);
         } catch (ApiUnauthorizedException e) {
             log.debug("renew access token");
+            TOKEN_RENEWALS.labels(Environment.LAUNCH_KEY, name()).inc();
             // Try to renew the access token
             setAccessToken(user.renewToken().getAccessToken());
             // and retry
@@ -58,19 +140,95 @@ public abstract class BaseApi {
         }
     }
 
+    /**
+     * Send the request within a permit of the rate limiter shared with the other APIs of the same host.
+     */
+    private <A> A limit(Call call, ThrowingSupplier<A, Exception> f) throws ApiGenericException {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return limited(call, f);
+    }
+
+    /**
+     * Handle the request after a permit has been acquired and release it.
+     */
+    private <A> A limited(Call call, ThrowingSupplier<A, Exception> f) throws ApiGenericException {
+        call.attempt();
+        var timer = LATENCY.labels(Environment.LAUNCH_KEY, name(), call.method).startTimer();
+        var sentAt = System.nanoTime();
+        var success = false;
+        try {
+            var r = handle(f);
+            success = true;
+            return r;
+        } catch (ApiToManyRequestsException e) {
+            limiter.throttled(e.getRetryAfter().orElse(null), sentAt);
+            throw e;
+        } catch (ApiGenericException e) {
+            // the server answered, only the 429 responses reduce the concurrency
+            success = true;
+            throw e;
+        } finally {
+            timer.observeDuration();
+            limiter.release(success);
+        }
+    }
+
     protected <A> A retry(ThrowingSupplier<A, Exception> f) throws ApiGenericException {
-        return RetryUtils.retry(1, () -> handle(f), BaseApi::retryCondition);
+        var call = new Call();
+        try {
+            return RetryUtils.retry(1, () -> limit(call, f), BaseApi::retryCondition);
+        } catch (ApiGenericException | RuntimeException e) {
+            call.failed(e);
+            throw e;
+        }
     }
 
     protected void retry(ThrowingVoid<Exception> f) throws ApiGenericException {
-        RetryUtils.retry(1, () -> handle(f.toSupplier()), BaseApi::retryCondition);
+        var call = new Call();
+        try {
+            RetryUtils.retry(1, () -> limit(call, f.toSupplier()), BaseApi::retryCondition);
+        } catch (ApiGenericException | RuntimeException e) {
+            call.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Execute the blocking call on a Vert.x worker thread, once the rate limiter grants a permit, and retry
+     * it with the same condition of {@link #retry(ThrowingSupplier)}, but schedule the retries on the Vert.x
+     * timers instead of sleeping so that no thread is parked between the attempts.
+     */
+    protected <A> Future<A> retry(Vertx vertx, ThrowingSupplier<A, Exception> f) {
+        var call = new Call();
+        Supplier<Future<A>> attempt = () -> limiter.acquire(vertx).compose(__ -> vertx.<A>executeBlocking(p -> {
+            try {
+                p.complete(limited(call, f));
+            } catch (ApiGenericException e) {
+                p.fail(e);
+            }
+        }, false));
+
+        var retried = call.caller == null
+            ? RetryUtils.retry(vertx, 1, attempt, BaseApi::retryCondition)
+            : RetryUtils.retry(vertx, call.caller, attempt, BaseApi::retryCondition);
+        return retried.onFailure(call::failed);
+    }
+
+    private String name() {
+        return getClass().getSimpleName();
     }
 
     private static boolean retryCondition(Throwable t) {
         if (t instanceof ApiGenericException) {
             var code = ((ApiGenericException) t).getCode();
             return code >= 500 && code < 600 // Server Errors
-                || code == 408;  // Request Timeout
+                || code == 408  // Request Timeout
+                || code == 429; // Too Many Requests, the rate limiter waits for the Retry-After before the retry
         }
         if (t instanceof RuntimeException) {
             // retry generic runtime exception
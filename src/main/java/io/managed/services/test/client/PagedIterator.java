@@ -0,0 +1,185 @@
+package io.managed.services.test.client;
+
+import io.managed.services.test.client.exception.ApiGenericException;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily iterate over all the items of a paginated list endpoint of the management APIs.
+ * <p>
+ * The pages are fetched on demand and only one page is kept in memory, plus the next page which is
+ * fetched in background as soon as the current one starts to be consumed, so that the network latency
+ * overlaps with the processing of the items.
+ *
+ * <pre>{@code
+ * try (var kafkas = KafkaMgmtApiUtils.streamKafkas(api, null, 100)) {
+ *     kafkas.filter(k -> k.getName().startsWith("mk-e2e-")).forEach(...);
+ * }
+ * }</pre>
+ *
+ * @param <T> Item type
+ */
+@Log4j2
+public class PagedIterator<T> implements Iterator<T>, AutoCloseable {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        var t = new Thread(r, "mgmt-api-page-prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * A single page returned by the list endpoint.
+     */
+    public static class Page<T> {
+        private final List<T> items;
+        private final Integer total;
+
+        /**
+         * @param items The items of the page
+         * @param total The total number of items in all pages or null if not known
+         */
+        public Page(List<T> items, Integer total) {
+            this.items = items == null ? List.of() : items;
+            this.total = total;
+        }
+    }
+
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+
+        /**
+         * @param page The page number starting from 1
+         * @param size The page size
+         */
+        Page<T> fetch(int page, int size) throws ApiGenericException;
+    }
+
+    /**
+     * Thrown by the iterator, which can't throw checked exceptions, when a page fails to be fetched.
+     */
+    public static class PageFetchException extends RuntimeException {
+        public PageFetchException(int page, ApiGenericException cause) {
+            super(String.format("failed to fetch page %d: %s", page, cause.getMessage()), cause);
+        }
+
+        @Override
+        public synchronized ApiGenericException getCause() {
+            return (ApiGenericException) super.getCause();
+        }
+    }
+
+    private final PageFetcher<T> fetcher;
+    private final int pageSize;
+
+    private Iterator<T> current = null;
+    private int currentPage = 0;
+    private int fetched = 0;
+    private boolean last = false;
+    private CompletableFuture<Page<T>> next = null;
+
+    public PagedIterator(PageFetcher<T> fetcher, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1");
+        }
+        this.fetcher = Objects.requireNonNull(fetcher);
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Deleting the items while consuming the stream skips some of them: the pages are fetched by offset, so
+     * each delete shifts the following items to the pages already fetched. Collect all the items before
+     * deleting them.
+     *
+     * @return A sequential Stream that must be closed to stop the prefetching if it is not fully consumed
+     */
+    public static <T> Stream<T> stream(PageFetcher<T> fetcher, int pageSize) {
+        var iterator = new PagedIterator<>(fetcher, pageSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+            .onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (current == null || !current.hasNext()) {
+            if (last) {
+                return false;
+            }
+            advance();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    private void advance() {
+        var pageNumber = currentPage + 1;
+
+        Page<T> page;
+        if (next != null) {
+            try {
+                page = next.join();
+            } catch (CompletionException e) {
+                next = null;
+                throw e.getCause() instanceof PageFetchException ? (PageFetchException) e.getCause() : e;
+            }
+            next = null;
+        } else {
+            page = fetch(pageNumber);
+        }
+
+        currentPage = pageNumber;
+        fetched += page.items.size();
+        current = page.items.iterator();
+
+        last = page.items.isEmpty()
+            || (page.total != null ? fetched >= page.total : page.items.size() < pageSize);
+
+        if (!last) {
+            var nextNumber = pageNumber + 1;
+            next = CompletableFuture.supplyAsync(() -> fetch(nextNumber), PREFETCH_EXECUTOR);
+        }
+    }
+
+    private Page<T> fetch(int page) {
+        log.debug("fetch page {} of size {}", page, pageSize);
+        try {
+            return fetcher.fetch(page, pageSize);
+        } catch (ApiGenericException e) {
+            throw new PageFetchException(page, e);
+        }
+    }
+
+    /**
+     * Stop prefetching the next page.
+     */
+    @Override
+    public void close() {
+        last = true;
+        current = null;
+        if (next != null) {
+            next.cancel(true);
+            next = null;
+        }
+    }
+}
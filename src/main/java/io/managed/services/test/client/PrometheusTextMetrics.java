@@ -0,0 +1,226 @@
+package io.managed.services.test.client;
+
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+
+/**
+ * Index of the samples in the Prometheus text exposition format, like the one returned by the Kafka
+ * federate metrics endpoint, keyed by metric name and labels.
+ * <p>
+ * The text is parsed in a single pass line by line from a {@link Reader}, so that a large payload can be
+ * streamed from the response without being materialized as a single String, and then each metric can be
+ * looked up in constant time.
+ *
+ * <pre>{@code
+ * var metrics = kafkaMgmtApi.getFederatedMetrics(kafka.getId());
+ * var partitions = metrics.value("kafka_instance_partition_limit");
+ * var size = metrics.value("kafka_topic:kafka_log_log_size:sum", Map.of("topic", "test"));
+ * }</pre>
+ */
+public class PrometheusTextMetrics {
+
+    @Getter
+    public static class Sample {
+        private final String name;
+        private final Map<String, String> labels;
+        private final double value;
+
+        Sample(String name, Map<String, String> labels, double value) {
+            this.name = name;
+            this.labels = labels;
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return name + labels + " " + value;
+        }
+    }
+
+    private final Map<String, String> types = new HashMap<>();
+    private final Map<String, Map<Map<String, String>, Sample>> samples = new HashMap<>();
+
+    private PrometheusTextMetrics() {
+    }
+
+    public static PrometheusTextMetrics parse(Reader reader) throws IOException {
+        var metrics = new PrometheusTextMetrics();
+        var buffered = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+
+        String line;
+        var n = 0;
+        while ((line = buffered.readLine()) != null) {
+            n++;
+            try {
+                metrics.parseLine(line);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(String.format("invalid metric at line %d: %s", n, line), e);
+            }
+        }
+        return metrics;
+    }
+
+    public static PrometheusTextMetrics parse(String text) {
+        try {
+            return parse(new StringReader(text));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void parseLine(String line) {
+        var l = line.strip();
+        if (l.isEmpty()) {
+            return;
+        }
+
+        if (l.charAt(0) == '#') {
+            // only the TYPE comments are indexed, HELP and other comments are ignored
+            var tokens = l.substring(1).strip().split("\\s+", 3);
+            if (tokens.length == 3 && tokens[0].equals("TYPE")) {
+                types.put(tokens[1], tokens[2]);
+            }
+            return;
+        }
+
+        var i = 0;
+        while (i < l.length() && l.charAt(i) != '{' && !Character.isWhitespace(l.charAt(i))) {
+            i++;
+        }
+        var name = l.substring(0, i);
+
+        // the labels can be separated from the name by whitespaces
+        while (i < l.length() && Character.isWhitespace(l.charAt(i))) {
+            i++;
+        }
+
+        Map<String, String> labels = Map.of();
+        if (i < l.length() && l.charAt(i) == '{') {
+            var parsed = new HashMap<String, String>();
+            i = parseLabels(l, i + 1, parsed);
+            labels = Collections.unmodifiableMap(parsed);
+        }
+
+        // the value is followed by an optional timestamp which is ignored
+        var rest = l.substring(i).strip();
+        var end = 0;
+        while (end < rest.length() && !Character.isWhitespace(rest.charAt(end))) {
+            end++;
+        }
+        var value = parseValue(rest.substring(0, end));
+
+        samples.computeIfAbsent(name, __ -> new HashMap<>()).put(labels, new Sample(name, labels, value));
+    }
+
+    /**
+     * @return The index of the first char after the closing brace
+     */
+    private static int parseLabels(String l, int i, Map<String, String> labels) {
+        while (true) {
+            while (l.charAt(i) == ',' || Character.isWhitespace(l.charAt(i))) {
+                i++;
+            }
+            if (l.charAt(i) == '}') {
+                return i + 1;
+            }
+
+            var eq = l.indexOf('=', i);
+            var key = l.substring(i, eq).strip();
+            i = l.indexOf('"', eq) + 1;
+
+            var value = new StringBuilder();
+            for (var c = l.charAt(i); c != '"'; c = l.charAt(++i)) {
+                if (c == '\\') {
+                    c = l.charAt(++i);
+                    value.append(c == 'n' ? '\n' : c);
+                } else {
+                    value.append(c);
+                }
+            }
+            labels.put(key, value.toString());
+            i++;
+        }
+    }
+
+    private static double parseValue(String v) {
+        switch (v) {
+            case "+Inf":
+                return Double.POSITIVE_INFINITY;
+            case "-Inf":
+                return Double.NEGATIVE_INFINITY;
+            case "NaN":
+                return Double.NaN;
+            default:
+                return Double.parseDouble(v);
+        }
+    }
+
+    /**
+     * @return The names of all metrics with at least one sample
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(samples.keySet());
+    }
+
+    /**
+     * @return The type declared by the TYPE comment of the metric (e.g. gauge, counter)
+     */
+    public Optional<String> type(String name) {
+        return Optional.ofNullable(types.get(name));
+    }
+
+    public List<Sample> samples(String name) {
+        return new ArrayList<>(samples.getOrDefault(name, Map.of()).values());
+    }
+
+    /**
+     * @return The value of the sample with exactly the passed labels
+     */
+    public OptionalDouble value(String name, Map<String, String> labels) {
+        var sample = samples.getOrDefault(name, Map.of()).get(labels);
+        return sample == null ? OptionalDouble.empty() : OptionalDouble.of(sample.value);
+    }
+
+    /**
+     * @return The value of any sample of the metric, to use for metrics that have a single sample
+     */
+    public OptionalDouble value(String name) {
+        var series = samples.get(name);
+        if (series == null || series.isEmpty()) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(series.values().iterator().next().value);
+    }
+
+    /**
+     * @return The sum of all samples of the metric
+     */
+    public double sum(String name) {
+        return samples.getOrDefault(name, Map.of()).values().stream().mapToDouble(s -> s.value).sum();
+    }
+
+    /**
+     * @return The number of samples
+     */
+    public int size() {
+        return samples.values().stream().mapToInt(Map::size).sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d samples of %d metrics", size(), samples.size());
+    }
+}
@@ -0,0 +1,310 @@
+package io.managed.services.test.client;
+
+import io.managed.services.test.Environment;
+import io.managed.services.test.client.exception.ApiNotFoundException;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApiUtils;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtAsyncApi;
+import io.managed.services.test.client.registrymgmt.RegistryMgmtApiUtils;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtAPIUtils;
+import io.prometheus.client.Counter;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Find the Kafka instances, service accounts and registries leaked by aborted runs and delete them
+ * concurrently, under a token bucket rate limit to not overload the control plane.
+ * <p>
+ * The Kafka instances are deleted through the {@link KafkaMgmtAsyncApi} and waited for with its shared
+ * status poller, so that waiting for hundreds of deletions doesn't cost one request per instance. A resource
+ * that is already gone when its delete request is sent counts as deleted.
+ *
+ * <pre>{@code
+ * var sweeper = new ResourceSweeper(vertx, apps, kafkaMgmtAsyncApi, new TokenBucket(2, 5), 10);
+ * var report = bwait(sweeper.sweep(ResourceSweeper.namePrefix("mk-e2e-")
+ *     .and(ResourceSweeper.olderThan(Duration.ofDays(1)))));
+ * }</pre>
+ */
+@Log4j2
+public class ResourceSweeper {
+
+    private static final Counter SWEPT = Counter.build()
+        .name("test_sweeper_resources")
+        .labelNames("launch", "type", "result")
+        .help("Number of leaked resources deleted by the sweeper by type and result.")
+        .register();
+
+    public enum ResourceType {
+        KAFKA,
+        SERVICE_ACCOUNT,
+        REGISTRY
+    }
+
+    @Getter
+    public static class Resource {
+        private final ResourceType type;
+        private final String id;
+        private final String name;
+        private final String owner;
+        private final OffsetDateTime createdAt;
+
+        Resource(ResourceType type, String id, String name, String owner, OffsetDateTime createdAt) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+            this.owner = owner;
+            this.createdAt = createdAt;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s '%s' (%s) owned by '%s' created at %s", type, name, id, owner, createdAt);
+        }
+    }
+
+    public static class Report {
+        private final Map<ResourceType, Integer> deleted = new EnumMap<>(ResourceType.class);
+        private final Map<ResourceType, Integer> failed = new EnumMap<>(ResourceType.class);
+        private final Instant start = Instant.now();
+        @Getter
+        private Duration duration = Duration.ZERO;
+
+        private synchronized void record(Resource resource, boolean success) {
+            (success ? deleted : failed).merge(resource.type, 1, Integer::sum);
+            SWEPT.labels(Environment.LAUNCH_KEY, resource.type.name(), success ? "deleted" : "failed").inc();
+        }
+
+        private synchronized Report finish() {
+            duration = Duration.between(start, Instant.now());
+            return this;
+        }
+
+        public synchronized int getDeleted() {
+            return deleted.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        public synchronized int getFailed() {
+            return failed.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        public synchronized int getDeleted(ResourceType type) {
+            return deleted.getOrDefault(type, 0);
+        }
+
+        public synchronized int getFailed(ResourceType type) {
+            return failed.getOrDefault(type, 0);
+        }
+
+        /**
+         * @return The number of resources deleted per second
+         */
+        public synchronized double getThroughput() {
+            var seconds = duration.toMillis() / 1000.0;
+            return seconds > 0 ? getDeleted() / seconds : 0;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("deleted=%s failed=%s duration=%s throughput=%.2f/s", deleted, failed, duration, getThroughput());
+        }
+    }
+
+    private final Vertx vertx;
+    private final ApplicationServicesApi apps;
+    private final KafkaMgmtAsyncApi kafkaMgmtAsyncApi;
+    private final TokenBucket bucket;
+    private final int concurrency;
+
+    /**
+     * @param vertx             Vertx
+     * @param apps              Used to list the resources and delete the service accounts and registries
+     * @param kafkaMgmtAsyncApi Used to delete and wait for the Kafka instances
+     * @param bucket            Rate limit of the delete requests
+     * @param concurrency       Max number of delete requests in flight
+     */
+    public ResourceSweeper(Vertx vertx, ApplicationServicesApi apps, KafkaMgmtAsyncApi kafkaMgmtAsyncApi,
+                           TokenBucket bucket, int concurrency) {
+
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.vertx = Objects.requireNonNull(vertx);
+        this.apps = Objects.requireNonNull(apps);
+        this.kafkaMgmtAsyncApi = Objects.requireNonNull(kafkaMgmtAsyncApi);
+        this.bucket = Objects.requireNonNull(bucket);
+        this.concurrency = concurrency;
+    }
+
+    public static Predicate<Resource> namePrefix(String prefix) {
+        return r -> r.name != null && r.name.startsWith(prefix);
+    }
+
+    public static Predicate<Resource> olderThan(Duration age) {
+        return r -> r.createdAt != null && r.createdAt.toInstant().isBefore(Instant.now().minus(age));
+    }
+
+    public static Predicate<Resource> ownedBy(String owner) {
+        return r -> Objects.equals(r.owner, owner);
+    }
+
+    /**
+     * List the resources matching the selector using the paginated APIs.
+     */
+    public Future<List<Resource>> list(Predicate<Resource> selector) {
+        return vertx.executeBlocking(p -> {
+            var resources = new ArrayList<Resource>();
+            try (var kafkas = KafkaMgmtApiUtils.streamKafkas(apps.kafkaMgmt(), null, PagedIterator.DEFAULT_PAGE_SIZE);
+                 var accounts = SecurityMgmtAPIUtils.streamServiceAccounts(apps.securityMgmt());
+                 var registries = RegistryMgmtApiUtils.streamRegistries(apps.registryMgmt(), null, PagedIterator.DEFAULT_PAGE_SIZE)) {
+
+                Stream.of(
+                    kafkas.map(k -> new Resource(ResourceType.KAFKA, k.getId(), k.getName(), k.getOwner(), k.getCreatedAt())),
+                    accounts.map(a -> new Resource(ResourceType.SERVICE_ACCOUNT, a.getId(), a.getName(), a.getOwner(), a.getCreatedAt())),
+                    registries.map(r -> new Resource(ResourceType.REGISTRY, r.getId(), r.getName(), r.getOwner(), r.getCreatedAt())))
+                    .flatMap(s -> s)
+                    .filter(selector)
+                    .forEach(resources::add);
+
+                p.complete(resources);
+            } catch (PagedIterator.PageFetchException e) {
+                p.fail(e.getCause());
+            } catch (RuntimeException e) {
+                p.fail(e);
+            }
+        }, false);
+    }
+
+    /**
+     * Delete all resources matching the selector and wait for the Kafka instances to be gone.
+     *
+     * @return Future with the report of the deleted and failed resources
+     */
+    public Future<Report> sweep(Predicate<Resource> selector) {
+        var report = new Report();
+        return list(selector)
+            .compose(resources -> {
+                log.info("sweep {} resources", resources.size());
+                return delete(resources, report);
+            })
+            .map(__ -> {
+                report.finish();
+                log.info("sweep completed: {}", report);
+                return report;
+            });
+    }
+
+    private Future<Void> delete(List<Resource> resources, Report report) {
+        Deque<Resource> pending = new ArrayDeque<>(resources);
+        List<Future> completions = new ArrayList<>();
+        Promise<Void> dispatched = Promise.promise();
+
+        // each resource acquires a permit from the bucket and at most concurrency requests are in flight,
+        // the wait for the kafka instances to be deleted doesn't occupy a slot
+        var slots = new Object() {
+            int running = 0;
+
+            synchronized void next() {
+                while (running < concurrency && !pending.isEmpty()) {
+                    var resource = pending.poll();
+                    running++;
+
+                    var deleted = bucket.acquire(vertx).compose(__ -> deleteOne(resource));
+                    deleted.onComplete(__ -> release());
+                    completions.add(deleted.compose(__ -> waitUntilDeleted(resource))
+                        .onComplete(r -> {
+                            if (r.failed()) {
+                                log.warn("failed to delete {}: {}", resource, r.cause().getMessage());
+                            } else {
+                                log.info("deleted {}", resource);
+                            }
+                            report.record(resource, r.succeeded());
+                        }));
+                }
+                if (running == 0 && pending.isEmpty()) {
+                    dispatched.tryComplete();
+                }
+            }
+
+            synchronized void release() {
+                running--;
+                next();
+            }
+        };
+        slots.next();
+
+        return dispatched.future()
+            .compose(__ -> {
+                synchronized (slots) {
+                    return CompositeFuture.join(new ArrayList<>(completions));
+                }
+            })
+            .otherwiseEmpty()
+            .mapEmpty();
+    }
+
+    private Future<Void> deleteOne(Resource resource) {
+        switch (resource.type) {
+            case KAFKA:
+                return kafkaMgmtAsyncApi.deleteKafkaById(resource.id, true)
+                    // already deleted
+                    .recover(t -> t instanceof ApiNotFoundException ? Future.succeededFuture() : Future.failedFuture(t));
+            case SERVICE_ACCOUNT:
+                return blocking(() -> apps.securityMgmt().deleteServiceAccountById(resource.id));
+            case REGISTRY:
+                return blocking(() -> apps.registryMgmt().deleteRegistry(resource.id));
+            default:
+                return Future.failedFuture(new IllegalArgumentException("unknown resource type: " + resource.type));
+        }
+    }
+
+    private Future<Void> waitUntilDeleted(Resource resource) {
+        if (resource.type == ResourceType.KAFKA) {
+            return KafkaMgmtApiUtils.waitUntilKafkaIsDeleted(kafkaMgmtAsyncApi, resource.id);
+        }
+        return Future.succeededFuture();
+    }
+
+    @FunctionalInterface
+    private interface Delete {
+        void run() throws Exception;
+    }
+
+    private Future<Void> blocking(Delete delete) {
+        return vertx.executeBlocking(p -> {
+            try {
+                delete.run();
+                p.complete();
+            } catch (ApiNotFoundException e) {
+                // already deleted
+                p.complete();
+            } catch (Exception e) {
+                p.fail(e);
+            }
+        }, false);
+    }
+
+    /**
+     * @return The resources grouped by type, useful to log what is going to be swept
+     */
+    public static Map<ResourceType, List<String>> summary(List<Resource> resources) {
+        return resources.stream().collect(Collectors.groupingBy(Resource::getType,
+            () -> new EnumMap<>(ResourceType.class), Collectors.mapping(Resource::getName, Collectors.toList())));
+    }
+}
@@ -0,0 +1,146 @@
+package io.managed.services.test.client;
+
+import io.managed.services.test.Environment;
+import io.managed.services.test.TestUtils;
+import io.prometheus.client.Collector;
+import io.prometheus.client.GaugeMetricFamily;
+import lombok.extern.log4j.Log4j2;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientConfiguration;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP transport shared by the JAX-RS clients of all the generated SDK ApiClients, so that the requests
+ * to the same host reuse the pooled keep-alive connections and the TLS sessions instead of paying a new
+ * TCP and TLS handshake for each ApiClient.
+ * <p>
+ * Each SDK has its own JSON provider, therefore each ApiClient still gets its own JAX-RS client, but all of
+ * them send the requests through the same Apache HttpClient and its connection pool. The pool usage is
+ * published to Prometheus as the test_http_pool_connections gauge.
+ *
+ * <pre>{@code
+ * var client = new ApiClient();
+ * client.setHttpClient(SdkHttpTransport.httpClient(client.getJSON()));
+ * }</pre>
+ */
+@Log4j2
+public class SdkHttpTransport {
+
+    private static final String DEFAULT_POOL = "default";
+    private static final String INSECURE_POOL = "insecure";
+
+    private static final int TLS_SESSION_CACHE_SIZE = 1000;
+
+    private static final Map<String, PoolingHttpClientConnectionManager> MANAGERS = new ConcurrentHashMap<>();
+    private static final Map<String, CloseableHttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    static {
+        new PoolCollector().register();
+    }
+
+    private static class PoolCollector extends Collector {
+        @Override
+        public List<MetricFamilySamples> collect() {
+            var gauge = new GaugeMetricFamily("test_http_pool_connections",
+                "Connections of the HTTP pools shared by the SDK clients by state (leased, available, pending, max).",
+                List.of("launch", "pool", "state"));
+
+            MANAGERS.forEach((pool, manager) -> {
+                var stats = manager.getTotalStats();
+                gauge.addMetric(List.of(Environment.LAUNCH_KEY, pool, "leased"), stats.getLeased());
+                gauge.addMetric(List.of(Environment.LAUNCH_KEY, pool, "available"), stats.getAvailable());
+                gauge.addMetric(List.of(Environment.LAUNCH_KEY, pool, "pending"), stats.getPending());
+                gauge.addMetric(List.of(Environment.LAUNCH_KEY, pool, "max"), stats.getMax());
+            });
+
+            var samples = new ArrayList<MetricFamilySamples>();
+            samples.add(gauge);
+            return samples;
+        }
+    }
+
+    /**
+     * @param json The JSON provider of the SDK (ApiClient.getJSON())
+     * @return A new JAX-RS client that sends the requests through the shared connection pool
+     */
+    public static Client httpClient(Object json) {
+        return httpClient(json, DEFAULT_POOL);
+    }
+
+    /**
+     * Same as {@link #httpClient(Object)} but trusting all the certificates, for the self-signed Kafka instances.
+     */
+    public static Client insecureHttpClient(Object json) {
+        return httpClient(json, INSECURE_POOL);
+    }
+
+    private static Client httpClient(Object json, String pool) {
+        var http = CLIENTS.computeIfAbsent(pool, SdkHttpTransport::createHttpClient);
+
+        var config = new ClientConfiguration(ResteasyProviderFactory.getInstance());
+        config.register(json);
+
+        // the engine must not close the shared client when the JAX-RS client is closed
+        return ((ResteasyClientBuilder) ClientBuilder.newBuilder())
+            .httpEngine(new ApacheHttpClient43Engine(http, false))
+            .withConfig(config)
+            .build();
+    }
+
+    private static CloseableHttpClient createHttpClient(String pool) {
+        SSLContext sslContext = INSECURE_POOL.equals(pool)
+            ? TestUtils.getInsecureSSLContext("TLS")
+            : SSLContexts.createSystemDefault();
+
+        // the sessions are cached in the SSLContext and resumed by the new connections to the same host
+        var sessions = sslContext.getClientSessionContext();
+        sessions.setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+        sessions.setSessionTimeout((int) TimeUnit.HOURS.toSeconds(1));
+
+        var registry = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", new SSLConnectionSocketFactory(sslContext))
+            .build();
+
+        var keepAlive = Environment.HTTP_KEEP_ALIVE;
+        var manager = new PoolingHttpClientConnectionManager(registry, null, null, null, keepAlive, TimeUnit.SECONDS);
+        manager.setMaxTotal(Environment.HTTP_POOL_MAX_TOTAL);
+        manager.setDefaultMaxPerRoute(Environment.HTTP_POOL_MAX_PER_ROUTE);
+        manager.setValidateAfterInactivity(2000);
+        MANAGERS.put(pool, manager);
+
+        log.info("create '{}' HTTP connection pool with max {} connections and {} per route",
+            pool, Environment.HTTP_POOL_MAX_TOTAL, Environment.HTTP_POOL_MAX_PER_ROUTE);
+
+        return HttpClients.custom()
+            .setConnectionManager(manager)
+            // keep the connections alive for the time requested by the server but at most for the configured time
+            .setKeepAliveStrategy((response, context) -> {
+                var duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                var max = TimeUnit.SECONDS.toMillis(keepAlive);
+                return duration > 0 ? Math.min(duration, max) : max;
+            })
+            .evictExpiredConnections()
+            .evictIdleConnections(keepAlive, TimeUnit.SECONDS)
+            .build();
+    }
+}
@@ -0,0 +1,98 @@
+package io.managed.services.test.client;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter that allows bursts up to its capacity and then a steady rate of permits.
+ * <p>
+ * Each acquire reserves a permit immediately and waits until the permit is due, so that concurrent
+ * callers are served in order without polling the bucket.
+ */
+public class TokenBucket {
+
+    private final int capacity;
+    private double ratePerSecond;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param ratePerSecond Number of permits added to the bucket every second
+     * @param capacity      Max number of permits that can be acquired in a burst
+     */
+    public TokenBucket(double ratePerSecond, int capacity) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be positive");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefill) / 1e9 * ratePerSecond);
+        lastRefill = now;
+    }
+
+    /**
+     * Reserve a permit.
+     *
+     * @return The nanoseconds to wait before the reserved permit can be used
+     */
+    public synchronized long reserve() {
+        var now = System.nanoTime();
+        refill(now);
+
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) (-tokens / ratePerSecond * 1e9);
+    }
+
+    /**
+     * Block until a permit is available.
+     */
+    public void acquire() throws InterruptedException {
+        var wait = reserve();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * @return Future that completes when a permit is available without blocking the calling thread
+     */
+    public Future<Void> acquire(Vertx vertx) {
+        var wait = TimeUnit.NANOSECONDS.toMillis(reserve());
+        if (wait <= 0) {
+            return Future.succeededFuture();
+        }
+
+        Promise<Void> promise = Promise.promise();
+        vertx.setTimer(wait, __ -> promise.complete());
+        return promise.future();
+    }
+
+    public synchronized double getRate() {
+        return ratePerSecond;
+    }
+
+    /**
+     * Change the rate at which the permits are added from now on.
+     */
+    public synchronized void setRate(double ratePerSecond) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be positive");
+        }
+        refill(System.nanoTime());
+        this.ratePerSecond = ratePerSecond;
+    }
+}
@@ -0,0 +1,111 @@
+package io.managed.services.test.client;
+
+import io.managed.services.test.Environment;
+import io.managed.services.test.ThrowingSupplier;
+import io.prometheus.client.Counter;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Read-through cache with a time-to-live for the lookups on the management APIs, like searching an
+ * instance by name, which are repeated several times by the same test for the same object.
+ * <p>
+ * Entries must be invalidated explicitly by the APIs that create, update or delete the cached objects,
+ * the TTL only bounds the staleness caused by changes made outside the test suite.
+ * <p>
+ * Failed lookups are never cached and the callers shouldn't cache the lookups that found nothing either,
+ * because the object could be created soon after by another test. The expired entries are removed on the
+ * next miss so that the cache doesn't grow with the keys that are not looked up anymore.
+ *
+ * @param <K> Key
+ * @param <V> Value
+ */
+@Log4j2
+public class TtlCache<K, V> {
+
+    private static final Counter REQUESTS = Counter.build()
+        .name("test_mgmt_lookup_cache_requests")
+        .labelNames("launch", "cache", "result")
+        .help("Number of lookups served by the management API caches by result (hit or miss).")
+        .register();
+
+    private static class Entry<V> {
+        private final V value;
+        private final Instant expiresAt;
+
+        Entry(V value, Instant expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+
+    private final String name;
+    private final Duration ttl;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    public TtlCache(String name, Duration ttl) {
+        this.name = Objects.requireNonNull(name);
+        this.ttl = Objects.requireNonNull(ttl);
+    }
+
+    /**
+     * Return the cached value or load and cache it.
+     *
+     * @param key       Key
+     * @param loader    Load the value if it is not cached or expired
+     * @param cacheable Decide whether the loaded value is stable enough to be cached, a value that is not
+     *                  found should not be cached
+     * @return The cached or loaded value
+     */
+    public <T extends Throwable> V get(K key, ThrowingSupplier<V, T> loader, Predicate<V> cacheable) throws T {
+        var now = Instant.now();
+        var entry = entries.get(key);
+        if (entry != null && !entry.isExpired(now)) {
+            REQUESTS.labels(Environment.LAUNCH_KEY, name, "hit").inc();
+            log.debug("{} cache hit: {}", name, key);
+            return entry.value;
+        }
+
+        REQUESTS.labels(Environment.LAUNCH_KEY, name, "miss").inc();
+        entries.values().removeIf(e -> e.isExpired(now));
+
+        // if the loader fails nothing is cached
+        var value = loader.get();
+        if (ttl.isZero() || !cacheable.test(value)) {
+            entries.remove(key);
+        } else {
+            entries.put(key, new Entry<>(value, Instant.now().plus(ttl)));
+        }
+        return value;
+    }
+
+    public <T extends Throwable> V get(K key, ThrowingSupplier<V, T> loader) throws T {
+        return get(key, loader, __ -> true);
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Remove all entries matching the predicate.
+     */
+    public void invalidateIf(BiPredicate<K, V> predicate) {
+        entries.entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue().value));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+}
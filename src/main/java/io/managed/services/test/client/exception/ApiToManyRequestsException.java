@@ -1,7 +1,46 @@
 package io.managed.services.test.client.exception;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
 public class ApiToManyRequestsException extends ApiGenericException {
     public ApiToManyRequestsException(ApiUnknownException e) {
         super(e);
     }
+
+    /**
+     * @return The delay requested by the Retry-After header, either in seconds or as an HTTP date
+     */
+    public Optional<Duration> getRetryAfter() {
+        var headers = ((ApiUnknownException) getCause()).getResponseHeaders();
+        if (headers == null) {
+            return Optional.empty();
+        }
+
+        var value = headers.entrySet().stream()
+            .filter(e -> "Retry-After".equalsIgnoreCase(e.getKey()))
+            .flatMap(e -> e.getValue().stream())
+            .findFirst();
+        if (value.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var v = value.get().strip();
+        try {
+            return Optional.of(Duration.ofSeconds(Long.parseLong(v)));
+        } catch (NumberFormatException e) {
+            // not in seconds
+        }
+        try {
+            var date = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            var delay = Duration.between(Instant.now(), date);
+            return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
 }
@@ -0,0 +1,266 @@
+package io.managed.services.test.client.kafka;
+
+import com.openshift.cloud.api.kas.auth.models.AclBinding;
+import com.openshift.cloud.api.kas.auth.models.AclOperation;
+import com.openshift.cloud.api.kas.auth.models.AclPatternType;
+import com.openshift.cloud.api.kas.auth.models.AclPermissionType;
+import com.openshift.cloud.api.kas.auth.models.AclResourceType;
+import io.managed.services.test.Environment;
+import io.managed.services.test.client.exception.ApiGenericException;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiAccessUtils;
+import io.prometheus.client.Histogram;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.GroupAuthorizationException;
+import org.apache.kafka.common.errors.TopicAuthorizationException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Measure how long the Kafka brokers take to enforce an ACL after it has been created or deleted through
+ * the Kafka instance API.
+ * <p>
+ * For each operation the probe creates an ALLOW ACL for the service account and tight-polls the operation
+ * with a Kafka client authenticated as the same service account until it is authorized, then deletes the
+ * ACL and polls again until the operation is denied. The latency is measured from the moment the instance
+ * API acknowledged the change.
+ * <p>
+ * The service account must not be already authorized to perform the operation on the resource.
+ * <p>
+ * The READ_GROUP operation is probed with an OffsetCommit request, because the OffsetFetch and
+ * FindCoordinator requests need only the group DESCRIBE. The broker authorizes the group READ before the
+ * topics of the request, so a denied topic means that the group READ has been granted, and the offset is
+ * committed for a topic that doesn't exist so that the probe doesn't need any topic ACL.
+ *
+ * <pre>{@code
+ * try (var probe = new KafkaAclPropagationProbe(api, bootstrapHost, clientID, clientSecret, Duration.ofMillis(200), Duration.ofMinutes(2))) {
+ *     var result = probe.measure(Operation.PRODUCE, topicName);
+ * }
+ * }</pre>
+ */
+@Log4j2
+public class KafkaAclPropagationProbe implements AutoCloseable {
+
+    private static final Histogram PROPAGATION_LATENCY = Histogram.build()
+        .name("test_kafka_acl_propagation_seconds")
+        .labelNames("launch", "operation", "change")
+        .buckets(0.1, 0.25, 0.5, 1, 2, 5, 10, 30, 60, 120)
+        .help("Time for the Kafka brokers to enforce an ACL created (grant) or deleted (revoke) through the instance API.")
+        .register();
+
+    private static final String PROBE_TOPIC_PREFIX = "acl-probe-";
+
+    public enum Operation {
+        PRODUCE(AclResourceType.TOPIC, AclOperation.WRITE),
+        DESCRIBE_TOPIC(AclResourceType.TOPIC, AclOperation.DESCRIBE),
+        READ_GROUP(AclResourceType.GROUP, AclOperation.READ);
+
+        private final AclResourceType resourceType;
+        private final AclOperation operation;
+
+        Operation(AclResourceType resourceType, AclOperation operation) {
+            this.resourceType = resourceType;
+            this.operation = operation;
+        }
+    }
+
+    @Getter
+    public static class Result {
+        private final Operation operation;
+        private final String resourceName;
+        private final Duration grantLatency;
+        private final Duration revokeLatency;
+
+        Result(Operation operation, String resourceName, Duration grantLatency, Duration revokeLatency) {
+            this.operation = operation;
+            this.resourceName = resourceName;
+            this.grantLatency = grantLatency;
+            this.revokeLatency = revokeLatency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s on '%s': grant=%dms revoke=%dms",
+                operation, resourceName, grantLatency.toMillis(), revokeLatency.toMillis());
+        }
+    }
+
+    private final KafkaInstanceApi api;
+    private final String principal;
+    private final Duration pollInterval;
+    private final Duration timeout;
+
+    private final Admin admin;
+    private final KafkaProducer<String, String> producer;
+
+    /**
+     * @param api           Kafka instance API of a user allowed to create and delete ACLs
+     * @param bootstrapHost Kafka bootstrap host
+     * @param clientID      Client ID of the probed service account
+     * @param clientSecret  Client secret of the probed service account
+     * @param pollInterval  Interval between each attempt of the operation
+     * @param timeout       Max time for each ACL change to be enforced
+     */
+    public KafkaAclPropagationProbe(
+        KafkaInstanceApi api,
+        String bootstrapHost,
+        String clientID,
+        String clientSecret,
+        Duration pollInterval,
+        Duration timeout) {
+
+        this.api = api;
+        this.principal = KafkaInstanceApiAccessUtils.toPrincipal(clientID);
+        this.pollInterval = pollInterval;
+        this.timeout = timeout;
+
+        Map<String, Object> adminConfig = new TreeMap<>(KafkaAuthMethod.oAuthConfigs(bootstrapHost, clientID, clientSecret));
+        adminConfig.put(CommonClientConfigs.CLIENT_ID_CONFIG, "acl-probe-admin");
+        adminConfig.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, (int) timeout.toMillis());
+        this.admin = Admin.create(adminConfig);
+
+        Map<String, Object> producerConfig = new TreeMap<>(KafkaAuthMethod.oAuthConfigs(bootstrapHost, clientID, clientSecret));
+        producerConfig.put(CommonClientConfigs.CLIENT_ID_CONFIG, "acl-probe-producer");
+        producerConfig.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        producerConfig.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        // the idempotent producer would also need the cluster IdempotentWrite ACL
+        producerConfig.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
+        producerConfig.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, timeout.toMillis());
+        this.producer = new KafkaProducer<>(producerConfig);
+    }
+
+    /**
+     * Grant and then revoke the operation on the resource to the service account and wait for each change
+     * to be enforced by the brokers.
+     *
+     * @param operation    The operation to probe
+     * @param resourceName The topic or group name
+     * @return The grant and revoke latencies
+     */
+    public Result measure(Operation operation, String resourceName)
+        throws ApiGenericException, InterruptedException, TimeoutException {
+
+        if (Boolean.TRUE.equals(authorized(operation, resourceName))) {
+            throw new IllegalStateException(String.format("the principal '%s' is already authorized to %s '%s'",
+                principal, operation, resourceName));
+        }
+
+        var acl = new AclBinding()
+            .principal(principal)
+            .resourceType(operation.resourceType)
+            .patternType(AclPatternType.LITERAL)
+            .resourceName(resourceName)
+            .permission(AclPermissionType.ALLOW)
+            .operation(operation.operation);
+
+        log.info("grant {} on '{}' to '{}'", operation, resourceName, principal);
+        api.createAcl(acl);
+        Duration grant;
+        try {
+            grant = waitForDecision(operation, resourceName, true, Instant.now());
+        } catch (InterruptedException | TimeoutException e) {
+            KafkaInstanceApiAccessUtils.deleteACL(api, acl);
+            throw e;
+        }
+
+        log.info("revoke {} on '{}' from '{}'", operation, resourceName, principal);
+        KafkaInstanceApiAccessUtils.deleteACL(api, acl);
+        var revoke = waitForDecision(operation, resourceName, false, Instant.now());
+
+        var result = new Result(operation, resourceName, grant, revoke);
+        log.info("ACL propagation: {}", result);
+        return result;
+    }
+
+    private Duration waitForDecision(Operation operation, String resourceName, boolean allowed, Instant changed)
+        throws InterruptedException, TimeoutException {
+
+        var change = allowed ? "grant" : "revoke";
+        var deadline = changed.plus(timeout);
+        var attempts = 0;
+        while (true) {
+            attempts++;
+            if (Boolean.valueOf(allowed).equals(authorized(operation, resourceName))) {
+                var latency = Duration.between(changed, Instant.now());
+                PROPAGATION_LATENCY.labels(Environment.LAUNCH_KEY, operation.name(), change)
+                    .observe(latency.toMillis() / 1000.0);
+                log.debug("{} of {} on '{}' enforced after {} attempts", change, operation, resourceName, attempts);
+                return latency;
+            }
+
+            if (Instant.now().isAfter(deadline)) {
+                throw new TimeoutException(String.format("%s of %s on '%s' not enforced after %s",
+                    change, operation, resourceName, timeout));
+            }
+            Thread.sleep(pollInterval.toMillis());
+        }
+    }
+
+    /**
+     * @return True if the operation succeeded, false if it was denied and null if it failed for any other reason
+     */
+    private Boolean authorized(Operation operation, String resourceName) throws InterruptedException {
+        try {
+            switch (operation) {
+                case PRODUCE:
+                    producer.send(new ProducerRecord<>(resourceName, "acl-probe")).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                    break;
+                case DESCRIBE_TOPIC:
+                    admin.describeTopics(List.of(resourceName)).all().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                    break;
+                case READ_GROUP:
+                    var offsets = Map.of(new TopicPartition(PROBE_TOPIC_PREFIX + resourceName, 0), new OffsetAndMetadata(0));
+                    admin.alterConsumerGroupOffsets(resourceName, offsets).all()
+                        .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                    break;
+                default:
+                    throw new EnumConstantNotPresentException(Operation.class, operation.name());
+            }
+            return true;
+        } catch (AuthorizationException e) {
+            return false;
+        } catch (ExecutionException e) {
+            if (operation == Operation.READ_GROUP) {
+                if (e.getCause() instanceof GroupAuthorizationException) {
+                    return false;
+                }
+                if (e.getCause() instanceof TopicAuthorizationException || e.getCause() instanceof UnknownTopicOrPartitionException) {
+                    // the group has been authorized before the topic
+                    return true;
+                }
+            } else if (e.getCause() instanceof AuthorizationException) {
+                return false;
+            }
+            log.debug("{} on '{}' failed: {}", operation, resourceName, e.getCause().getMessage());
+            return null;
+        } catch (TimeoutException | org.apache.kafka.common.KafkaException e) {
+            log.debug("{} on '{}' failed: {}", operation, resourceName, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        producer.close(Duration.ofSeconds(5));
+        admin.close(Duration.ofSeconds(5));
+    }
+}
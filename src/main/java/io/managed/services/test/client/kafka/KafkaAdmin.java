@@ -81,8 +81,17 @@ public class KafkaAdmin implements AutoCloseable {
     }
 
     public void createTopic(String name, Integer partitions, Short replicas) {
-        NewTopic topic = new NewTopic(name, Optional.ofNullable(partitions), Optional.ofNullable(replicas));
-        get(admin.createTopics(Collections.singleton(topic)).all());
+        createTopics(Collections.singleton(name), partitions, replicas);
+    }
+
+    /**
+     * Create all topics with a single CreateTopics request.
+     */
+    public void createTopics(Collection<String> names, Integer partitions, Short replicas) {
+        var topics = names.stream()
+            .map(name -> new NewTopic(name, Optional.ofNullable(partitions), Optional.ofNullable(replicas)))
+            .collect(Collectors.toList());
+        get(admin.createTopics(topics).all());
     }
 
     public Set<String> listTopics() {
@@ -90,7 +99,14 @@ public class KafkaAdmin implements AutoCloseable {
     }
 
     public void deleteTopic(String name) {
-        get(admin.deleteTopics(Collections.singleton(name)).all());
+        deleteTopics(Collections.singleton(name));
+    }
+
+    /**
+     * Delete all topics with a single DeleteTopics request.
+     */
+    public void deleteTopics(Collection<String> names) {
+        get(admin.deleteTopics(names).all());
     }
 
     public void addAclResource(ResourceType resourceType) {
@@ -0,0 +1,213 @@
+package io.managed.services.test.client.kafka;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.ConfigResource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking facade over the Kafka {@link Admin} client that returns Vert.x Futures instead of waiting for
+ * each {@link KafkaFuture} like {@link KafkaAdmin} does, so that many admin operations can be sent at the
+ * same time and completed in the time of the slowest one.
+ * <p>
+ * The Futures are completed on the Vert.x context of the caller and not on the admin network thread, so
+ * that the composed callbacks can't stall the admin client.
+ *
+ * <pre>{@code
+ * var admin = new KafkaAsyncAdmin(vertx, kafkaAdmin);
+ * var offsets = bwait(admin.listTopics()
+ *     .compose(topics -> admin.describeTopics(topics))
+ *     .compose(__ -> admin.listConsumerGroupOffsets(groups)));
+ * }</pre>
+ */
+public class KafkaAsyncAdmin {
+
+    private final Vertx vertx;
+    private final Admin admin;
+
+    public KafkaAsyncAdmin(Vertx vertx, KafkaAdmin admin) {
+        this(vertx, admin.getAdmin());
+    }
+
+    public KafkaAsyncAdmin(Vertx vertx, Admin admin) {
+        this.vertx = vertx;
+        this.admin = admin;
+    }
+
+    public Admin getAdmin() {
+        return admin;
+    }
+
+    /**
+     * Map the KafkaFuture to a Vert.x Future completed on the given context.
+     */
+    public static <T> Future<T> toFuture(Context context, KafkaFuture<T> future) {
+        Promise<T> promise = Promise.promise();
+        future.whenComplete((r, t) -> context.runOnContext(__ -> {
+            if (t != null) {
+                promise.fail(t);
+            } else {
+                promise.complete(r);
+            }
+        }));
+        return promise.future();
+    }
+
+    /**
+     * Map the KafkaFuture to a CompletableFuture completed on the admin network thread.
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(KafkaFuture<T> future) {
+        var completable = new CompletableFuture<T>();
+        future.whenComplete((r, t) -> {
+            if (t != null) {
+                completable.completeExceptionally(t);
+            } else {
+                completable.complete(r);
+            }
+        });
+        return completable;
+    }
+
+    public <T> Future<T> toFuture(KafkaFuture<T> future) {
+        return toFuture(vertx.getOrCreateContext(), future);
+    }
+
+    /**
+     * Map each KafkaFuture of a per-key result (e.g. DescribeTopicsResult.values()) to a Vert.x Future.
+     */
+    public <K, V> Map<K, Future<V>> toFutures(Map<K, KafkaFuture<V>> futures) {
+        var context = vertx.getOrCreateContext();
+        var result = new LinkedHashMap<K, Future<V>>();
+        futures.forEach((k, f) -> result.put(k, toFuture(context, f)));
+        return result;
+    }
+
+    /**
+     * Wait for all the Futures and collect their results by key, fails with the first failure.
+     */
+    public static <K, V> Future<Map<K, V>> all(Map<K, Future<V>> futures) {
+        var keys = new ArrayList<>(futures.keySet());
+        List<Future> list = keys.stream().map(futures::get).collect(Collectors.toList());
+        return CompositeFuture.all(list).map(c -> {
+            var result = new LinkedHashMap<K, V>();
+            for (var i = 0; i < keys.size(); i++) {
+                result.put(keys.get(i), c.resultAt(i));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Wait for all the Futures and collect the results of the succeeded ones by key, the failed ones are
+     * mapped to an empty Optional.
+     */
+    public static <K, V> Future<Map<K, Optional<V>>> join(Map<K, Future<V>> futures) {
+        var keys = new ArrayList<>(futures.keySet());
+        List<Future> list = keys.stream().map(futures::get).collect(Collectors.toList());
+        return CompositeFuture.join(list).otherwise(c -> null).map(__ -> {
+            var result = new LinkedHashMap<K, Optional<V>>();
+            for (var i = 0; i < keys.size(); i++) {
+                var f = futures.get(keys.get(i));
+                result.put(keys.get(i), f.succeeded() ? Optional.ofNullable(f.result()) : Optional.empty());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Start the same async operation for each key at the same time and collect the results by key.
+     */
+    public static <K, V> Future<Map<K, V>> batch(Collection<K> keys, Function<K, Future<V>> operation) {
+        var futures = new LinkedHashMap<K, Future<V>>();
+        keys.forEach(k -> futures.put(k, operation.apply(k)));
+        return all(futures);
+    }
+
+    public Future<Set<String>> listTopics() {
+        return toFuture(admin.listTopics().names());
+    }
+
+    public Future<Map<String, TopicDescription>> describeTopics(Collection<String> names) {
+        return toFuture(admin.describeTopics(names).all());
+    }
+
+    public Future<Void> createTopics(Collection<String> names, Integer partitions, Short replicas) {
+        var topics = names.stream()
+            .map(name -> new NewTopic(name, Optional.ofNullable(partitions), Optional.ofNullable(replicas)))
+            .collect(Collectors.toList());
+        return toFuture(admin.createTopics(topics).all());
+    }
+
+    public Future<Void> deleteTopics(Collection<String> names) {
+        return toFuture(admin.deleteTopics(names).all());
+    }
+
+    public Future<Map<ConfigResource, Config>> describeConfigs(Collection<ConfigResource> resources) {
+        return toFuture(admin.describeConfigs(resources).all());
+    }
+
+    public Future<Map<String, Config>> describeTopicConfigs(Collection<String> names) {
+        var resources = names.stream()
+            .map(n -> new ConfigResource(ConfigResource.Type.TOPIC, n))
+            .collect(Collectors.toList());
+        return describeConfigs(resources).map(configs -> {
+            var result = new HashMap<String, Config>();
+            configs.forEach((r, c) -> result.put(r.name(), c));
+            return result;
+        });
+    }
+
+    public Future<Collection<ConsumerGroupListing>> listConsumerGroups() {
+        return toFuture(admin.listConsumerGroups().all());
+    }
+
+    public Future<Map<String, ConsumerGroupDescription>> describeConsumerGroups(Collection<String> groupIDs) {
+        return toFuture(admin.describeConsumerGroups(groupIDs).all());
+    }
+
+    public Future<Void> deleteConsumerGroups(Collection<String> groupIDs) {
+        return toFuture(admin.deleteConsumerGroups(groupIDs).all());
+    }
+
+    /**
+     * Commit the offsets for the group, the group is created if it doesn't exist and has no members.
+     */
+    public Future<Void> alterConsumerGroupOffsets(String groupID, Map<TopicPartition, OffsetAndMetadata> offsets) {
+        return toFuture(admin.alterConsumerGroupOffsets(groupID, offsets).all());
+    }
+
+    public Future<Map<TopicPartition, OffsetAndMetadata>> listConsumerGroupOffsets(String groupID) {
+        return toFuture(admin.listConsumerGroupOffsets(groupID).partitionsToOffsetAndMetadata());
+    }
+
+    /**
+     * The admin protocol accepts a single group per OffsetFetch request, therefore a request for each
+     * group is sent at the same time.
+     */
+    public Future<Map<String, Map<TopicPartition, OffsetAndMetadata>>> listConsumerGroupOffsets(Collection<String> groupIDs) {
+        return batch(groupIDs, this::listConsumerGroupOffsets);
+    }
+}
@@ -2,9 +2,11 @@ package io.managed.services.test.client.kafka;
 
 import io.managed.services.test.Environment;
 import io.managed.services.test.TestUtils;
+import io.strimzi.kafka.oauth.client.JaasClientOauthLoginCallbackHandler;
 import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.common.config.SaslConfigs;
 import org.apache.kafka.common.config.SslConfigs;
+import org.apache.kafka.common.security.auth.AuthenticateCallbackHandler;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -35,12 +37,16 @@ public enum KafkaAuthMethod {
     }
 
     static public Map<String, String> oAuthConfigs(String bootstrapHost, String jaasConfig) {
+        return oAuthConfigs(bootstrapHost, jaasConfig, JaasClientOauthLoginCallbackHandler.class);
+    }
+
+    static public Map<String, String> oAuthConfigs(String bootstrapHost, String jaasConfig, Class<? extends AuthenticateCallbackHandler> loginCallbackHandler) {
         Map<String, String> config = new HashMap<>();
         config.put(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, bootstrapHost);
         config.put(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG, "SASL_SSL");
         config.put(SaslConfigs.SASL_MECHANISM, "OAUTHBEARER");
         config.put(SaslConfigs.SASL_JAAS_CONFIG, jaasConfig);
-        config.put(SaslConfigs.SASL_LOGIN_CALLBACK_HANDLER_CLASS, "io.strimzi.kafka.oauth.client.JaasClientOauthLoginCallbackHandler");
+        config.put(SaslConfigs.SASL_LOGIN_CALLBACK_HANDLER_CLASS, loginCallbackHandler.getName());
         setTrustConfigs(bootstrapHost, config);
         return config;
     }
@@ -56,7 +62,8 @@ public enum KafkaAuthMethod {
     static public Map<String, String> oAuthConfigs(String bootstrapHost, String clientID, String clientSecret) {
         String jaas = String.format("org.apache.kafka.common.security.oauthbearer.OAuthBearerLoginModule required oauth.client.id=\"%s\" oauth.client.secret=\"%s\" " +
             "oauth.token.endpoint.uri=\"%s/auth/realms/%s/protocol/openid-connect/token\";", clientID, clientSecret, Environment.OPENSHIFT_IDENTITY_URI, Environment.OPENSHIFT_IDENTITY_REALM);
-        return oAuthConfigs(bootstrapHost, jaas);
+        // all clients of the same service account share the same token instead of requesting their own
+        return oAuthConfigs(bootstrapHost, jaas, SharedOAuthLoginCallbackHandler.class);
     }
 
     static public Map<String, String> oAuthTokenConfigs(String bootstrapHost, String token) {
@@ -0,0 +1,49 @@
+package io.managed.services.test.client.kafka;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import java.util.Map;
+
+/**
+ * Read the client level metrics (the ones that are not specific to a single node or topic) exposed by
+ * the Kafka producers, consumers and admins.
+ */
+public class KafkaClientMetrics {
+
+    public static final String PRODUCER_GROUP = "producer-metrics";
+    public static final String CONSUMER_GROUP = "consumer-metrics";
+    public static final String CONSUMER_FETCH_GROUP = "consumer-fetch-manager-metrics";
+
+    public static final String SUCCESSFUL_REAUTHENTICATION_TOTAL = "successful-reauthentication-total";
+    public static final String FAILED_REAUTHENTICATION_TOTAL = "failed-reauthentication-total";
+    public static final String REAUTHENTICATION_LATENCY_MAX = "reauthentication-latency-max";
+
+    /**
+     * Return the value of the client level metric or NaN if the metric doesn't exist or is not a number.
+     *
+     * @param metrics The metrics returned by the Kafka client
+     * @param group   The metric group like producer-metrics
+     * @param name    The metric name
+     * @return double
+     */
+    public static double value(Map<MetricName, ? extends Metric> metrics, String group, String name) {
+        return metrics.entrySet().stream()
+            .filter(e -> group.equals(e.getKey().group()) && name.equals(e.getKey().name()))
+            .filter(e -> !e.getKey().tags().containsKey("node-id") && !e.getKey().tags().containsKey("topic"))
+            .map(e -> e.getValue().metricValue())
+            .filter(v -> v instanceof Number)
+            .mapToDouble(v -> ((Number) v).doubleValue())
+            .findFirst()
+            .orElse(Double.NaN);
+    }
+
+    /**
+     * Same as {@link #value(Map, String, String)} but return 0 instead of NaN, useful for the cumulative
+     * metrics that are not registered until the first event.
+     */
+    public static double valueOrZero(Map<MetricName, ? extends Metric> metrics, String group, String name) {
+        var v = value(metrics, group, name);
+        return Double.isNaN(v) ? 0 : v;
+    }
+}
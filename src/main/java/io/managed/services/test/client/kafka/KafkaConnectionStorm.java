@@ -0,0 +1,273 @@
+package io.managed.services.test.client.kafka;
+
+import io.managed.services.test.Environment;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.errors.AuthenticationException;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.DisconnectException;
+import org.apache.kafka.common.errors.NetworkException;
+import org.apache.kafka.common.errors.ThrottlingQuotaExceededException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Open N authenticated Kafka clients at the same time against the same instance and measure how long each
+ * one takes to complete its first request, which includes the TCP connection, the TLS handshake, the SASL
+ * authentication and the first metadata round trip.
+ * <p>
+ * It simulates what happens when a customer application with many clients is redeployed.
+ * <p>
+ * The brokers enforce the connection creation rate limit by delaying the new connections or by closing them,
+ * but a client can also time out or get disconnected for other reasons, therefore the timeouts and the
+ * disconnections are counted as separate failure reasons and only the ThrottlingQuotaExceededException
+ * is counted as throttled.
+ */
+@Log4j2
+public class KafkaConnectionStorm {
+
+    private static final Histogram SETUP_TIME = Histogram.build()
+        .name("test_kafka_connection_setup_seconds")
+        .labelNames("launch", "client", "auth", "connections")
+        .buckets(0.1, 0.25, 0.5, 1, 2, 4, 8, 16, 32, 64)
+        .help("Time for a new Kafka client to connect, authenticate and complete its first request during a connection storm.")
+        .register();
+
+    private static final Counter FAILURES = Counter.build()
+        .name("test_kafka_connection_failures")
+        .labelNames("launch", "client", "auth", "connections", "reason")
+        .help("Kafka clients that failed to connect or authenticate during a connection storm.")
+        .register();
+
+    public enum ClientType {
+        ADMIN,
+        PRODUCER
+    }
+
+    private final String bootstrapHost;
+    private final String clientID;
+    private final String clientSecret;
+    private final KafkaAuthMethod authMethod;
+    private final ClientType clientType;
+    private final String topicName;
+    private final Duration timeout;
+
+    /**
+     * @param bootstrapHost Kafka bootstrap host
+     * @param clientID      Service account client ID
+     * @param clientSecret  Service account client secret
+     * @param authMethod    OAUTH or PLAIN
+     * @param clientType    The type of clients to open
+     * @param topicName     The topic used by the producers to request the metadata, ignored by the admins
+     * @param timeout       Max time for each client to complete its first request
+     */
+    public KafkaConnectionStorm(
+        String bootstrapHost,
+        String clientID,
+        String clientSecret,
+        KafkaAuthMethod authMethod,
+        ClientType clientType,
+        String topicName,
+        Duration timeout) {
+
+        this.bootstrapHost = bootstrapHost;
+        this.clientID = clientID;
+        this.clientSecret = clientSecret;
+        this.authMethod = authMethod;
+        this.clientType = clientType;
+        this.topicName = topicName;
+        this.timeout = timeout;
+    }
+
+    @Getter
+    public static class Result {
+        private final ClientType clientType;
+        private final KafkaAuthMethod authMethod;
+        private final int connections;
+        private final Duration elapsed;
+        private final List<Duration> setupTimes;
+        private final Map<String, Integer> failures;
+
+        Result(ClientType clientType, KafkaAuthMethod authMethod, int connections, Duration elapsed, List<Duration> setupTimes, Map<String, Integer> failures) {
+            this.clientType = clientType;
+            this.authMethod = authMethod;
+            this.connections = connections;
+            this.elapsed = elapsed;
+            this.setupTimes = setupTimes.stream().sorted().collect(Collectors.toUnmodifiableList());
+            this.failures = Collections.unmodifiableMap(failures);
+        }
+
+        public int getSucceeded() {
+            return setupTimes.size();
+        }
+
+        public int getFailed() {
+            return connections - setupTimes.size();
+        }
+
+        public double getSuccessRatio() {
+            return connections == 0 ? 1 : (double) getSucceeded() / connections;
+        }
+
+        /**
+         * @param percentile A value between 0 and 100
+         * @return The setup time of the successful clients at the given percentile
+         */
+        public Duration percentile(double percentile) {
+            if (setupTimes.isEmpty()) {
+                return Duration.ZERO;
+            }
+            var index = (int) Math.ceil(percentile / 100 * setupTimes.size()) - 1;
+            return setupTimes.get(Math.max(0, Math.min(index, setupTimes.size() - 1)));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s connections=%d succeeded=%d p50=%dms p90=%dms p99=%dms max=%dms elapsed=%dms failures=%s",
+                clientType, authMethod, connections, getSucceeded(),
+                percentile(50).toMillis(), percentile(90).toMillis(), percentile(99).toMillis(), percentile(100).toMillis(),
+                elapsed.toMillis(), failures);
+        }
+    }
+
+    /**
+     * Open all clients at the same time, wait for each one to complete its first request or fail,
+     * and close them.
+     *
+     * @param connections Number of clients to open concurrently
+     * @return Result
+     */
+    public Result run(int connections) throws InterruptedException {
+        log.info("start connection storm with {} {} clients using {}", connections, clientType, authMethod);
+
+        var executor = Executors.newFixedThreadPool(connections);
+        var ready = new CountDownLatch(connections);
+        var start = new CountDownLatch(1);
+        var clients = Collections.synchronizedList(new ArrayList<AutoCloseable>());
+        var setupTimes = Collections.synchronizedList(new ArrayList<Duration>());
+        var failures = Collections.synchronizedMap(new TreeMap<String, Integer>());
+
+        var tasks = new ArrayList<CompletableFuture<Void>>();
+        for (var i = 0; i < connections; i++) {
+            var id = String.format("storm-%d-%d", connections, i);
+            tasks.add(CompletableFuture.runAsync(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                var begin = System.nanoTime();
+                try {
+                    connect(id, clients);
+                    var d = Duration.ofNanos(System.nanoTime() - begin);
+                    setupTimes.add(d);
+                    SETUP_TIME.labels(Environment.LAUNCH_KEY, clientType.name(), authMethod.name(), String.valueOf(connections))
+                        .observe(d.toMillis() / 1000.0);
+                } catch (Exception e) {
+                    var reason = classify(e);
+                    log.debug("client {} failed with reason '{}': {}", id, reason, e.getMessage());
+                    failures.merge(reason, 1, Integer::sum);
+                    FAILURES.labels(Environment.LAUNCH_KEY, clientType.name(), authMethod.name(), String.valueOf(connections), reason).inc();
+                }
+            }, executor));
+        }
+
+        // release all clients at once when all threads are ready
+        ready.await();
+        var begin = System.nanoTime();
+        start.countDown();
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+        var elapsed = Duration.ofNanos(System.nanoTime() - begin);
+
+        var result = new Result(clientType, authMethod, connections, elapsed, setupTimes, failures);
+        log.info("connection storm completed: {}", result);
+
+        close(clients, executor);
+        return result;
+    }
+
+    private void connect(String id, List<AutoCloseable> clients) throws Exception {
+        Map<String, Object> config = new TreeMap<>(authMethod.configs(bootstrapHost, clientID, clientSecret));
+        config.put(CommonClientConfigs.CLIENT_ID_CONFIG, id);
+
+        switch (clientType) {
+            case ADMIN:
+                config.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, (int) timeout.toMillis());
+                config.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, (int) timeout.toMillis());
+                var admin = Admin.create(config);
+                clients.add(admin);
+                admin.describeCluster().nodes().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                break;
+            case PRODUCER:
+                config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+                config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+                config.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, timeout.toMillis());
+                var producer = new KafkaProducer<byte[], byte[]>(config);
+                clients.add(producer);
+                producer.partitionsFor(topicName);
+                break;
+            default:
+                throw new EnumConstantNotPresentException(ClientType.class, clientType.name());
+        }
+    }
+
+    private static String classify(Throwable t) {
+        var cause = t instanceof ExecutionException && t.getCause() != null ? t.getCause() : t;
+        for (var c = cause; c != null; c = c.getCause() == c ? null : c.getCause()) {
+            if (c instanceof AuthenticationException) {
+                return "authentication";
+            }
+            if (c instanceof AuthorizationException) {
+                return "authorization";
+            }
+            if (c instanceof ThrottlingQuotaExceededException) {
+                return "throttled";
+            }
+            if (c instanceof TimeoutException || c instanceof org.apache.kafka.common.errors.TimeoutException) {
+                return "timeout";
+            }
+            if (c instanceof DisconnectException || c instanceof NetworkException) {
+                return "disconnect";
+            }
+        }
+        return cause.getClass().getSimpleName();
+    }
+
+    private static void close(List<AutoCloseable> clients, ExecutorService executor) {
+        var closing = clients.stream()
+            .map(c -> CompletableFuture.runAsync(() -> {
+                try {
+                    c.close();
+                } catch (Exception e) {
+                    log.debug("failed to close client: {}", e.getMessage());
+                }
+            }, executor))
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(closing).join();
+        executor.shutdown();
+    }
+}
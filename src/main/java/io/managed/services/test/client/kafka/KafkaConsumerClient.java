@@ -7,6 +7,8 @@ import io.vertx.core.Vertx;
 import io.vertx.kafka.client.common.TopicPartition;
 import io.vertx.kafka.client.consumer.KafkaConsumer;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -221,6 +223,10 @@ public class KafkaConsumerClient<K, V> extends KafkaAsyncConsumer<K, V> {
         return consumer.assignment();
     }
 
+    public Map<MetricName, ? extends Metric> metrics() {
+        return consumer.unwrap().metrics();
+    }
+
     @Override
     public Future<Void> asyncClose() {
         return consumer.close()
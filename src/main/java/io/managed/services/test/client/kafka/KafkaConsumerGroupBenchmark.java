@@ -0,0 +1,250 @@
+package io.managed.services.test.client.kafka;
+
+import com.openshift.cloud.api.kas.auth.models.ConsumerGroupOrderKey;
+import com.openshift.cloud.api.kas.auth.models.SortDirection;
+import io.managed.services.test.Environment;
+import io.managed.services.test.client.exception.ApiGenericException;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import io.prometheus.client.Histogram;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Create thousands of consumer groups on a Kafka instance and compare how long it takes to list them page
+ * by page with the Kafka instance REST API and with the Kafka admin protocol, and to delete them in bulk.
+ * <p>
+ * The groups are created by committing an offset for each group, like a short-lived consumer that commits
+ * once and leaves, which is much faster than starting a real consumer for each group. The commits are sent
+ * concurrently through {@link KafkaAsyncAdmin} in chunks of at most concurrency groups. The latencies are
+ * labelled with the number of groups created by the run, and the REST API should be created with
+ * {@link io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils#unsharedKafkaInstanceApi} so that
+ * the pages don't wait for the rate limiter shared with the other tests.
+ *
+ * <pre>{@code
+ * var benchmark = new KafkaConsumerGroupBenchmark(vertx, kafkaInstanceApi, bootstrapHost, clientID, clientSecret);
+ * bwait(benchmark.createGroups("cg-benchmark", 1000, topicName, 100));
+ * var rest = bwait(benchmark.listRest("cg-benchmark", 1000, 100, SortDirection.ASC, ConsumerGroupOrderKey.NAME));
+ * var admin = bwait(benchmark.listAdmin("cg-benchmark", 1000));
+ * }</pre>
+ */
+@Log4j2
+public class KafkaConsumerGroupBenchmark implements AutoCloseable {
+
+    private static final Histogram LATENCY = Histogram.build()
+        .name("test_kafka_consumer_groups_seconds")
+        .labelNames("launch", "operation", "groups", "page_size")
+        .buckets(0.05, 0.1, 0.25, 0.5, 1, 2, 5, 10, 30, 60, 120)
+        .help("Latency of the consumer groups operations (create, rest_page, rest_list, admin_list, admin_describe, delete) by number of groups and REST page size.")
+        .register();
+
+    // the admin protocol operations are not paged
+    private static final String NO_PAGES = "";
+
+    @Getter
+    public static class Listing {
+        private final String method;
+        private final int groups;
+        private final Duration total;
+        private final List<Duration> pages;
+
+        Listing(String method, int groups, Duration total, List<Duration> pages) {
+            this.method = method;
+            this.groups = groups;
+            this.total = total;
+            this.pages = Collections.unmodifiableList(pages);
+        }
+
+        public Duration getMaxPage() {
+            return pages.stream().max(Duration::compareTo).orElse(Duration.ZERO);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s groups=%d total=%dms pages=%d maxPage=%dms",
+                method, groups, total.toMillis(), pages.size(), getMaxPage().toMillis());
+        }
+    }
+
+    private final Vertx vertx;
+    private final KafkaInstanceApi api;
+    private final KafkaAdmin kafkaAdmin;
+    private final KafkaAsyncAdmin admin;
+
+    /**
+     * @param vertx         Vertx
+     * @param api           Kafka instance API of a user allowed to list the consumer groups
+     * @param bootstrapHost Kafka bootstrap host
+     * @param clientID      Client ID of a service account allowed to read the topic and to read, describe
+     *                      and delete the groups
+     * @param clientSecret  Client secret of the service account
+     */
+    public KafkaConsumerGroupBenchmark(Vertx vertx, KafkaInstanceApi api, String bootstrapHost, String clientID, String clientSecret) {
+        this.vertx = vertx;
+        this.api = api;
+        this.kafkaAdmin = new KafkaAdmin(bootstrapHost, clientID, clientSecret);
+        this.admin = new KafkaAsyncAdmin(vertx, kafkaAdmin);
+    }
+
+    public static List<String> groupIDs(String prefix, int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> String.format("%s-%05d", prefix, i))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Create the groups by committing the offset 0 of the first partition of the topic for each one.
+     *
+     * @param prefix      Prefix of the group IDs
+     * @param count       Number of groups to create
+     * @param topicName   An existing topic
+     * @param concurrency Max number of commits in flight
+     * @return Future with the time to create all groups
+     */
+    public Future<Duration> createGroups(String prefix, int count, String topicName, int concurrency) {
+        var offsets = Map.of(new TopicPartition(topicName, 0), new OffsetAndMetadata(0));
+        var ids = groupIDs(prefix, count);
+
+        log.info("create {} consumer groups with prefix '{}'", count, prefix);
+        var start = System.nanoTime();
+        return inChunks(ids, concurrency, chunk -> KafkaAsyncAdmin.batch(chunk, id -> admin.alterConsumerGroupOffsets(id, offsets)))
+            .map(__ -> observe("create", count, 0, start));
+    }
+
+    /**
+     * List all the pages of groups with the REST API.
+     *
+     * @param prefix   Filter the groups by ID
+     * @param count    Number of groups created with the prefix
+     * @param pageSize Groups per page
+     * @param order    Sort direction or null
+     * @param orderKey Sort key or null
+     * @return Future with the latency of each page
+     */
+    public Future<Listing> listRest(String prefix, int count, int pageSize, SortDirection order, ConsumerGroupOrderKey orderKey) {
+        return vertx.executeBlocking(p -> {
+            try {
+                p.complete(listRestBlocking(prefix, count, pageSize, order, orderKey));
+            } catch (ApiGenericException e) {
+                p.fail(e);
+            }
+        }, false);
+    }
+
+    private Listing listRestBlocking(String prefix, int count, int pageSize, SortDirection order, ConsumerGroupOrderKey orderKey)
+        throws ApiGenericException {
+
+        var pages = new ArrayList<Duration>();
+        var groups = 0;
+        var start = System.nanoTime();
+        for (var page = 1; ; page++) {
+            var begin = System.nanoTime();
+            var list = api.getConsumerGroups(pageSize, page, null, prefix, order, orderKey);
+            pages.add(Duration.ofNanos(System.nanoTime() - begin));
+
+            var items = list.getItems() == null ? 0 : list.getItems().size();
+            groups += items;
+            if (items == 0 || items < pageSize || list.getTotal() != null && groups >= list.getTotal()) {
+                break;
+            }
+        }
+
+        var total = observe("rest_list", count, pageSize, start);
+        pages.forEach(d -> LATENCY.labels(Environment.LAUNCH_KEY, "rest_page", String.valueOf(count), String.valueOf(pageSize))
+            .observe(d.toMillis() / 1000.0));
+
+        var listing = new Listing("REST", groups, total, pages);
+        log.info("consumer groups listing: {}", listing);
+        return listing;
+    }
+
+    /**
+     * List all the groups with a single ListGroups request to each broker and describe the ones with the
+     * prefix with a single DescribeGroups request to each coordinator.
+     *
+     * @param prefix Prefix of the group IDs to describe
+     * @param count  Number of groups created with the prefix
+     * @return Future with the list and the describe latencies as the two pages of the listing
+     */
+    public Future<Listing> listAdmin(String prefix, int count) {
+        var start = System.nanoTime();
+        return admin.listConsumerGroups().compose(listings -> {
+            var listed = Duration.ofNanos(System.nanoTime() - start);
+            var ids = listings.stream()
+                .map(ConsumerGroupListing::groupId)
+                .filter(id -> id.startsWith(prefix))
+                .collect(Collectors.toList());
+            LATENCY.labels(Environment.LAUNCH_KEY, "admin_list", String.valueOf(count), NO_PAGES).observe(listed.toMillis() / 1000.0);
+
+            var begin = System.nanoTime();
+            return admin.describeConsumerGroups(ids).map(descriptions -> {
+                var described = Duration.ofNanos(System.nanoTime() - begin);
+                LATENCY.labels(Environment.LAUNCH_KEY, "admin_describe", String.valueOf(count), NO_PAGES).observe(described.toMillis() / 1000.0);
+
+                var listing = new Listing("ADMIN", descriptions.size(), Duration.ofNanos(System.nanoTime() - start), List.of(listed, described));
+                log.info("consumer groups listing: {}", listing);
+                return listing;
+            });
+        });
+    }
+
+    /**
+     * Delete the groups created by {@link #createGroups(String, int, String, int)} with a single
+     * DeleteGroups request to each coordinator.
+     *
+     * @return Future with the time to delete all groups
+     */
+    public Future<Duration> deleteGroups(String prefix, int count) {
+        // a failed run could have created only part of the groups
+        return admin.listConsumerGroups().compose(listings -> {
+            var existing = listings.stream().map(ConsumerGroupListing::groupId).collect(Collectors.toSet());
+            var ids = groupIDs(prefix, count).stream().filter(existing::contains).collect(Collectors.toList());
+            if (ids.isEmpty()) {
+                return Future.succeededFuture(Duration.ZERO);
+            }
+
+            log.info("delete {} consumer groups with prefix '{}'", ids.size(), prefix);
+            var start = System.nanoTime();
+            return admin.deleteConsumerGroups(ids)
+                .map(__ -> observe("delete", count, 0, start));
+        });
+    }
+
+    private static Future<Void> inChunks(List<String> ids, int size, Function<List<String>, Future<?>> operation) {
+        Future<Void> chain = Future.succeededFuture();
+        for (var i = 0; i < ids.size(); i += size) {
+            var chunk = ids.subList(i, Math.min(i + size, ids.size()));
+            chain = chain.compose(__ -> operation.apply(chunk).mapEmpty());
+        }
+        return chain;
+    }
+
+    /**
+     * @param count    The number of groups created by the run
+     * @param pageSize The groups per page of the REST API or 0 if the operation isn't paged
+     */
+    private static Duration observe(String operation, int count, int pageSize, long start) {
+        var d = Duration.ofNanos(System.nanoTime() - start);
+        var page = pageSize == 0 ? NO_PAGES : String.valueOf(pageSize);
+        LATENCY.labels(Environment.LAUNCH_KEY, operation, String.valueOf(count), page).observe(d.toMillis() / 1000.0);
+        return d;
+    }
+
+    @Override
+    public void close() {
+        kafkaAdmin.close();
+    }
+}
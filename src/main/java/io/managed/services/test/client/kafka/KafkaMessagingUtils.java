@@ -104,8 +104,11 @@ public class KafkaMessagingUtils {
             clientID,
             clientSecret,
             authMethod,
+            "test-group",
+            "latest",
             StringDeserializer.class,
-            StringDeserializer.class);
+            StringDeserializer.class,
+            KafkaThrottleSampler.metricsConfig());
 
         var producer = new KafkaProducerClient<>(
             vertx,
@@ -114,11 +117,20 @@ public class KafkaMessagingUtils {
             clientSecret,
             authMethod,
             StringSerializer.class,
-            StringSerializer.class);
+            StringSerializer.class,
+            KafkaThrottleSampler.metricsConfig());
+
+        // report whether the run has been slowed down by the quotas
+        var throttling = new KafkaThrottleSampler(vertx)
+            .add("producer", producer)
+            .add("consumer", consumer)
+            .start();
 
         return produceAndConsumeMessages(vertx, producer, consumer, topicName, timeout, messages)
 
             .eventually(__ -> {
+                throttling.stop();
+
                 // close the producer and consumer in any case
                 LOGGER.info("close the consumer and the producer for topic {}", topicName);
                 return CompositeFuture.join(producer.asyncClose(), consumer.asyncClose());
@@ -154,7 +166,8 @@ public class KafkaMessagingUtils {
                     "g-".concat(Integer.toString(i)),
                     "latest",
                     StringDeserializer.class,
-                    StringDeserializer.class);
+                    StringDeserializer.class,
+                    KafkaThrottleSampler.metricsConfig());
             consumersList.add(consumer);
         }
 
@@ -165,12 +178,22 @@ public class KafkaMessagingUtils {
                 clientSecret,
                 authMethod,
                 StringSerializer.class,
-                StringSerializer.class);
+                StringSerializer.class,
+                KafkaThrottleSampler.metricsConfig());
+
+        // report whether the run has been slowed down by the quotas
+        var throttling = new KafkaThrottleSampler(vertx).add("producer", producer);
+        for (int i = 0; i < consumersList.size(); i++) {
+            throttling.add("consumer-" + i, consumersList.get(i));
+        }
+        throttling.start();
 
         //return produceAndConsumeMessagesWithNConsumers(vertx, producer, consumersList, topicName, timeout, messages)
         return produceAndConsumeMessagesWithNConsumers(vertx, producer, consumersList, topicName, timeout, messages)
 
                 .eventually(__ -> {
+                    throttling.stop();
+
                     // close the producer and consumer in any case
                     LOGGER.info("close the consumer and the producer for topic {}", topicName);
                     List<Future> x = consumersList.stream().map(KafkaAsyncConsumer::asyncClose).collect(Collectors.toList());
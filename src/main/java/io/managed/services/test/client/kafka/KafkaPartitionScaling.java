@@ -0,0 +1,189 @@
+package io.managed.services.test.client.kafka;
+
+import io.managed.services.test.Environment;
+import io.managed.services.test.client.exception.ApiGenericException;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils;
+import io.prometheus.client.Histogram;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Grow the number of partitions of a Kafka instance in batches of topics and measure, after each batch,
+ * how the latency of the operations that depend on the size of the cluster metadata changes:
+ * <ul>
+ *     <li> METADATA_FETCH: list and describe all the topics with the admin client
+ *     <li> PRODUCER_FIRST_SEND: create a new producer and send its first message
+ *     <li> REST_GET_TOPICS: list all the pages of topics with the Kafka instance REST API
+ * </ul>
+ * All the topics created by the scenario are deleted by {@link #clean()}.
+ */
+@Log4j2
+public class KafkaPartitionScaling implements AutoCloseable {
+
+    private static final Histogram LATENCY = Histogram.build()
+        .name("test_kafka_partition_scaling_seconds")
+        .labelNames("launch", "operation", "partitions")
+        .buckets(0.05, 0.1, 0.25, 0.5, 1, 2, 5, 10, 30, 60)
+        .help("Latency of the operations that depend on the cluster metadata size by total number of partitions.")
+        .register();
+
+    public enum Operation {
+        METADATA_FETCH,
+        PRODUCER_FIRST_SEND,
+        REST_GET_TOPICS
+    }
+
+    @Getter
+    public static class Step {
+        private final int partitions;
+        private final int topics;
+        private final Map<Operation, Duration> latencies;
+
+        Step(int partitions, int topics, Map<Operation, Duration> latencies) {
+            this.partitions = partitions;
+            this.topics = topics;
+            this.latencies = latencies;
+        }
+
+        public Duration getLatency(Operation operation) {
+            return latencies.get(operation);
+        }
+
+        @Override
+        public String toString() {
+            var s = new StringBuilder(String.format("partitions=%d topics=%d", partitions, topics));
+            latencies.forEach((o, d) -> s.append(String.format(" %s=%dms", o, d.toMillis())));
+            return s.toString();
+        }
+    }
+
+    private final KafkaInstanceApi api;
+    private final Map<String, String> config;
+    private final String topicPrefix;
+    private final Duration timeout;
+    private final KafkaAdmin admin;
+    private final List<String> topics = new ArrayList<>();
+
+    /**
+     * @param api           Kafka instance API of a user allowed to list the topics
+     * @param bootstrapHost Kafka bootstrap host
+     * @param clientID      Client ID of a service account allowed to create, describe, write and delete topics
+     * @param clientSecret  Client secret of the service account
+     * @param topicPrefix   Prefix of the topics created by the scenario
+     * @param timeout       Max time for each operation
+     */
+    public KafkaPartitionScaling(
+        KafkaInstanceApi api,
+        String bootstrapHost,
+        String clientID,
+        String clientSecret,
+        String topicPrefix,
+        Duration timeout) {
+
+        this.api = api;
+        this.config = KafkaAuthMethod.oAuthConfigs(bootstrapHost, clientID, clientSecret);
+        this.topicPrefix = topicPrefix;
+        this.timeout = timeout;
+        this.admin = new KafkaAdmin(bootstrapHost, config);
+    }
+
+    /**
+     * Create a batch of topics with a single CreateTopics request.
+     *
+     * @param count      Number of topics to create
+     * @param partitions Partitions of each topic
+     */
+    public void addTopics(int count, int partitions) {
+        var batch = new ArrayList<String>();
+        for (var i = 0; i < count; i++) {
+            batch.add(String.format("%s-%05d", topicPrefix, topics.size() + i));
+        }
+
+        log.info("create {} topics with {} partitions", count, partitions);
+        admin.createTopics(batch, partitions, null);
+        topics.addAll(batch);
+    }
+
+    /**
+     * Measure the latency of all the operations at the current number of partitions.
+     *
+     * @return The latencies together with the total number of partitions returned by the REST API
+     */
+    public Step measure() throws ApiGenericException, InterruptedException, ExecutionException, TimeoutException {
+        if (topics.isEmpty()) {
+            throw new IllegalStateException("at least one topic must be created before measuring");
+        }
+
+        var latencies = new TreeMap<Operation, Duration>();
+
+        var start = System.nanoTime();
+        var partitions = KafkaInstanceApiUtils.getPartitionCountTotal(api);
+        latencies.put(Operation.REST_GET_TOPICS, Duration.ofNanos(System.nanoTime() - start));
+
+        start = System.nanoTime();
+        var names = admin.listTopics();
+        admin.getAdmin().describeTopics(names).all().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        latencies.put(Operation.METADATA_FETCH, Duration.ofNanos(System.nanoTime() - start));
+
+        latencies.put(Operation.PRODUCER_FIRST_SEND, firstSend(topics.get(topics.size() - 1)));
+
+        var step = new Step(partitions, names.size(), latencies);
+        latencies.forEach((o, d) -> LATENCY.labels(Environment.LAUNCH_KEY, o.name(), String.valueOf(partitions))
+            .observe(d.toMillis() / 1000.0));
+        log.info("partition scaling: {}", step);
+        return step;
+    }
+
+    /**
+     * @return The time from the creation of a new producer to the acknowledge of its first message
+     */
+    private Duration firstSend(String topic) throws InterruptedException, ExecutionException, TimeoutException {
+        Map<String, Object> c = new TreeMap<>(config);
+        c.put(CommonClientConfigs.CLIENT_ID_CONFIG, "partition-scaling-producer");
+        c.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        c.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        c.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, timeout.toMillis());
+
+        var start = System.nanoTime();
+        try (var producer = new KafkaProducer<String, String>(c)) {
+            producer.send(new ProducerRecord<>(topic, "partition-scaling")).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return Duration.ofNanos(System.nanoTime() - start);
+        }
+    }
+
+    public List<String> getTopics() {
+        return List.copyOf(topics);
+    }
+
+    /**
+     * Delete all the topics created by the scenario with a single DeleteTopics request.
+     */
+    public void clean() {
+        if (topics.isEmpty()) {
+            return;
+        }
+        log.info("delete {} topics with prefix '{}'", topics.size(), topicPrefix);
+        admin.deleteTopics(topics);
+        topics.clear();
+    }
+
+    @Override
+    public void close() {
+        admin.close();
+    }
+}
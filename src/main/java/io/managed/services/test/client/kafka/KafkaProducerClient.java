@@ -7,6 +7,8 @@ import io.vertx.kafka.client.producer.KafkaProducer;
 import io.vertx.kafka.client.producer.KafkaProducerRecord;
 import io.vertx.kafka.client.producer.RecordMetadata;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.serialization.Serializer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -99,6 +101,10 @@ public class KafkaProducerClient<K, V> implements AutoCloseable {
         return producer.send(record);
     }
 
+    public Map<MetricName, ? extends Metric> metrics() {
+        return producer.unwrap().metrics();
+    }
+
     public Future<Void> asyncClose() {
         return producer.close()
             .onSuccess(v -> LOGGER.info("KafkaProducerClient closed"))
@@ -0,0 +1,254 @@
+package io.managed.services.test.client.kafka;
+
+import io.managed.services.test.Environment;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.kafka.client.producer.KafkaProducerRecord;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static io.managed.services.test.client.kafka.KafkaClientMetrics.CONSUMER_GROUP;
+import static io.managed.services.test.client.kafka.KafkaClientMetrics.FAILED_REAUTHENTICATION_TOTAL;
+import static io.managed.services.test.client.kafka.KafkaClientMetrics.PRODUCER_GROUP;
+import static io.managed.services.test.client.kafka.KafkaClientMetrics.REAUTHENTICATION_LATENCY_MAX;
+import static io.managed.services.test.client.kafka.KafkaClientMetrics.SUCCESSFUL_REAUTHENTICATION_TOTAL;
+import static io.managed.services.test.client.kafka.KafkaClientMetrics.valueOrZero;
+
+/**
+ * Keep a producer and a consumer exchanging messages at a constant rate over a long session and record
+ * each re-authentication performed by the clients together with the throughput of the window in which it
+ * happened compared to the throughput of the windows without re-authentications.
+ * <p>
+ * The session should span several session lifetimes (see {@link KafkaAdminUtils#getPositiveSessionLifetimeMs(KafkaAdmin)})
+ * to observe more than one re-authentication for each client.
+ */
+@Log4j2
+public class KafkaReauthProbe {
+
+    private static final Histogram REAUTH_LATENCY = Histogram.build()
+        .name("test_kafka_reauthentication_latency_seconds")
+        .labelNames("launch", "client")
+        .buckets(0.05, 0.1, 0.25, 0.5, 1, 2, 5, 10)
+        .help("Max re-authentication latency reported by the Kafka client in the window of each re-authentication.")
+        .register();
+
+    private static final Histogram REAUTH_THROUGHPUT_RATIO = Histogram.build()
+        .name("test_kafka_reauthentication_throughput_ratio")
+        .labelNames("launch", "client")
+        .buckets(0.1, 0.25, 0.5, 0.75, 0.9, 1, 1.1, 1.5)
+        .help("Throughput of the window with a re-authentication divided by the median throughput of the windows without.")
+        .register();
+
+    private static final Counter FAILED_REAUTHS = Counter.build()
+        .name("test_kafka_failed_reauthentications")
+        .labelNames("launch", "client")
+        .help("Failed re-authentications reported by the Kafka clients during a long session.")
+        .register();
+
+    private final Vertx vertx;
+    private final KafkaProducerClient<String, String> producer;
+    private final KafkaConsumerClient<String, String> consumer;
+    private final String topicName;
+    private final Duration sendInterval;
+    private final Duration sampleInterval;
+
+    @Getter
+    public static class Event {
+        private final String client;
+        private final Instant time;
+        private final long reauthentications;
+        private final Duration latency;
+        private final double throughputRatio;
+
+        Event(String client, Instant time, long reauthentications, Duration latency, double throughputRatio) {
+            this.client = client;
+            this.time = time;
+            this.reauthentications = reauthentications;
+            this.latency = latency;
+            this.throughputRatio = throughputRatio;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s at %s: reauthentications=%d latency=%dms throughputRatio=%.2f",
+                client, time, reauthentications, latency.toMillis(), throughputRatio);
+        }
+    }
+
+    @Getter
+    public static class Result {
+        private final List<Event> events;
+        private final long produced;
+        private final long consumed;
+        private final long failedReauthentications;
+
+        Result(List<Event> events, long produced, long consumed, long failedReauthentications) {
+            this.events = Collections.unmodifiableList(events);
+            this.produced = produced;
+            this.consumed = consumed;
+            this.failedReauthentications = failedReauthentications;
+        }
+
+        public long getReauthentications(String client) {
+            return events.stream().filter(e -> client.equals(e.getClient())).mapToLong(Event::getReauthentications).sum();
+        }
+
+        public double getMinThroughputRatio() {
+            return events.stream().mapToDouble(Event::getThroughputRatio).filter(r -> !Double.isNaN(r)).min().orElse(1);
+        }
+
+        public Duration getMaxLatency() {
+            return events.stream().map(Event::getLatency).max(Duration::compareTo).orElse(Duration.ZERO);
+        }
+    }
+
+    /**
+     * Sample the re-authentication metrics of a client and the number of messages it processed.
+     */
+    private static class Sampler {
+        private final String client;
+        private final String group;
+        private final Supplier<Map<MetricName, ? extends Metric>> metrics;
+        private final AtomicLong processed;
+        private final List<Long> baseline = new ArrayList<>();
+
+        private long lastReauths = 0;
+        private long lastFailed = 0;
+        private long lastProcessed = 0;
+
+        Sampler(String client, String group, Supplier<Map<MetricName, ? extends Metric>> metrics, AtomicLong processed) {
+            this.client = client;
+            this.group = group;
+            this.metrics = metrics;
+            this.processed = processed;
+        }
+
+        void sample(List<Event> events, AtomicLong failed) {
+            var m = metrics.get();
+            var reauths = (long) valueOrZero(m, group, SUCCESSFUL_REAUTHENTICATION_TOTAL);
+            var failures = (long) valueOrZero(m, group, FAILED_REAUTHENTICATION_TOTAL);
+            var p = processed.get();
+
+            var window = p - lastProcessed;
+            lastProcessed = p;
+
+            if (failures > lastFailed) {
+                log.warn("client '{}' failed {} re-authentications", client, failures - lastFailed);
+                FAILED_REAUTHS.labels(Environment.LAUNCH_KEY, client).inc(failures - lastFailed);
+                failed.addAndGet(failures - lastFailed);
+                lastFailed = failures;
+            }
+
+            if (reauths > lastReauths) {
+                var latency = Duration.ofMillis((long) valueOrZero(m, group, REAUTHENTICATION_LATENCY_MAX));
+                var ratio = window / median(baseline);
+
+                var event = new Event(client, Instant.now(), reauths - lastReauths, latency, ratio);
+                log.info("re-authentication: {}", event);
+                events.add(event);
+
+                REAUTH_LATENCY.labels(Environment.LAUNCH_KEY, client).observe(latency.toMillis() / 1000.0);
+                if (!Double.isNaN(ratio)) {
+                    REAUTH_THROUGHPUT_RATIO.labels(Environment.LAUNCH_KEY, client).observe(ratio);
+                }
+                lastReauths = reauths;
+            } else {
+                baseline.add(window);
+            }
+        }
+
+        private static double median(List<Long> values) {
+            if (values.isEmpty()) {
+                return Double.NaN;
+            }
+            var sorted = new ArrayList<>(values);
+            Collections.sort(sorted);
+            return sorted.get(sorted.size() / 2);
+        }
+    }
+
+    /**
+     * @param vertx          Vertx
+     * @param producer       A producer with write access to the topic
+     * @param consumer       A consumer with read access to the topic, it will be subscribed by the probe
+     * @param topicName      The topic used to exchange the messages
+     * @param sendInterval   Interval between each message sent by the producer
+     * @param sampleInterval Interval between each metrics sample, it is also the window used to measure the throughput
+     */
+    public KafkaReauthProbe(
+        Vertx vertx,
+        KafkaProducerClient<String, String> producer,
+        KafkaConsumerClient<String, String> consumer,
+        String topicName,
+        Duration sendInterval,
+        Duration sampleInterval) {
+
+        this.vertx = vertx;
+        this.producer = producer;
+        this.consumer = consumer;
+        this.topicName = topicName;
+        this.sendInterval = sendInterval;
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Exchange messages and sample the clients metrics for the given duration.
+     *
+     * @param duration How long to keep the session open
+     * @return Future with all the re-authentications observed
+     */
+    public Future<Result> run(Duration duration) {
+        var produced = new AtomicLong();
+        var consumed = new AtomicLong();
+        var failed = new AtomicLong();
+        var events = Collections.synchronizedList(new ArrayList<Event>());
+
+        var samplers = List.of(
+            new Sampler("producer", PRODUCER_GROUP, producer::metrics, produced),
+            new Sampler("consumer", CONSUMER_GROUP, consumer::metrics, consumed));
+
+        consumer.handler(r -> consumed.incrementAndGet());
+
+        return consumer.subscribe(topicName).compose(__ -> {
+            log.info("start long session on topic '{}' for {}", topicName, duration);
+
+            var sender = vertx.setPeriodic(sendInterval.toMillis(), __t -> producer
+                .send(KafkaProducerRecord.create(topicName, "reauth-probe"))
+                .onSuccess(___ -> produced.incrementAndGet())
+                .onFailure(e -> log.debug("failed to send message: {}", e.getMessage())));
+
+            var sampler = vertx.setPeriodic(sampleInterval.toMillis(), __t ->
+                samplers.forEach(s -> s.sample(events, failed)));
+
+            Promise<Result> promise = Promise.promise();
+            vertx.setTimer(duration.toMillis(), __t -> {
+                vertx.cancelTimer(sender);
+                vertx.cancelTimer(sampler);
+
+                // take the last sample to include the re-authentications of the last window
+                samplers.forEach(s -> s.sample(events, failed));
+
+                var result = new Result(new ArrayList<>(events), produced.get(), consumed.get(), failed.get());
+                log.info("long session completed: produced={} consumed={} reauthentications={} failedReauthentications={}",
+                    result.getProduced(), result.getConsumed(), result.getEvents().size(), result.getFailedReauthentications());
+
+                consumer.unsubscribe().onComplete(___ -> promise.complete(result));
+            });
+            return promise.future();
+        });
+    }
+}
@@ -0,0 +1,286 @@
+package io.managed.services.test.client.kafka;
+
+import io.managed.services.test.Environment;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import io.vertx.core.Vertx;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static io.managed.services.test.client.kafka.KafkaClientMetrics.CONSUMER_FETCH_GROUP;
+import static io.managed.services.test.client.kafka.KafkaClientMetrics.PRODUCER_GROUP;
+import static io.managed.services.test.client.kafka.KafkaClientMetrics.value;
+import static io.managed.services.test.client.kafka.KafkaClientMetrics.valueOrZero;
+
+/**
+ * Periodically sample the throttle time that the brokers impose on the Kafka clients when they exceed
+ * their quota together with the throughput achieved by the clients, so that at the end of a run it is
+ * possible to tell whether the run was limited by the quotas rather than by the clients or the network.
+ * <p>
+ * The producers report produce-throttle-time and outgoing-byte-total, the consumers fetch-throttle-time
+ * and bytes-consumed-total. The throughput of each sample is the delta of the total since the previous
+ * sample, while the throttle time is a windowed statistic: with the default client configs it covers the
+ * last 30 to 60 seconds and a single throttled response would be counted by all the samples of that time.
+ * Therefore the clients must be created with the {@link #metricsConfig()} so that each throttle time sample
+ * covers only the last sampling interval.
+ */
+@Log4j2
+public class KafkaThrottleSampler {
+
+    private static final Histogram THROTTLE_TIME = Histogram.build()
+        .name("test_kafka_client_throttle_time_seconds")
+        .labelNames("launch", "client")
+        .buckets(0.01, 0.05, 0.1, 0.25, 0.5, 1, 2, 5, 10)
+        .help("Max throttle time imposed by the brokers to the Kafka clients in each sample window, only throttled windows are observed.")
+        .register();
+
+    private static final Counter QUOTA_BOUND_RUNS = Counter.build()
+        .name("test_kafka_quota_bound_runs")
+        .labelNames("launch", "client")
+        .help("Number of runs in which the client was throttled by the brokers for most of the time.")
+        .register();
+
+    static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * Keep a single metrics sample of the sampling interval in the Kafka clients so that the throttle time
+     * max and avg are not carried over to the next interval.
+     */
+    private static final int METRICS_NUM_SAMPLES = 1;
+
+    /**
+     * A client is considered quota-bound when it was throttled for most of the time, that is when more than
+     * this ratio of samples reports a throttle time.
+     */
+    static final double QUOTA_BOUND_RATIO = 0.5;
+
+    public enum ClientType {
+        PRODUCER(PRODUCER_GROUP, "produce-throttle-time-avg", "produce-throttle-time-max", "outgoing-byte-total"),
+        CONSUMER(CONSUMER_FETCH_GROUP, "fetch-throttle-time-avg", "fetch-throttle-time-max", "bytes-consumed-total");
+
+        private final String group;
+        private final String throttleAvg;
+        private final String throttleMax;
+        private final String byteTotal;
+
+        ClientType(String group, String throttleAvg, String throttleMax, String byteTotal) {
+            this.group = group;
+            this.throttleAvg = throttleAvg;
+            this.throttleMax = throttleMax;
+            this.byteTotal = byteTotal;
+        }
+    }
+
+    @Getter
+    public static class Sample {
+        private final double throttleTimeAvgMs;
+        private final double throttleTimeMaxMs;
+        private final double byteRate;
+
+        Sample(double throttleTimeAvgMs, double throttleTimeMaxMs, double byteRate) {
+            this.throttleTimeAvgMs = throttleTimeAvgMs;
+            this.throttleTimeMaxMs = throttleTimeMaxMs;
+            this.byteRate = byteRate;
+        }
+
+        public boolean isThrottled() {
+            return throttleTimeMaxMs > 0;
+        }
+    }
+
+    @Getter
+    public static class Report {
+        private final String client;
+        private final ClientType type;
+        private final List<Sample> samples;
+
+        Report(String client, ClientType type, List<Sample> samples) {
+            this.client = client;
+            this.type = type;
+            this.samples = Collections.unmodifiableList(samples);
+        }
+
+        public double getThrottledRatio() {
+            if (samples.isEmpty()) {
+                return 0;
+            }
+            return (double) samples.stream().filter(Sample::isThrottled).count() / samples.size();
+        }
+
+        public boolean isQuotaBound() {
+            return getThrottledRatio() > QUOTA_BOUND_RATIO;
+        }
+
+        public double getMaxThrottleTimeMs() {
+            return samples.stream().mapToDouble(Sample::getThrottleTimeMaxMs).max().orElse(0);
+        }
+
+        public double getPeakByteRate() {
+            return samples.stream().mapToDouble(Sample::getByteRate).max().orElse(0);
+        }
+
+        /**
+         * @return The average throughput while the client was throttled, which approximates the enforced quota
+         */
+        public double getThrottledByteRate() {
+            return samples.stream().filter(Sample::isThrottled).mapToDouble(Sample::getByteRate).average().orElse(0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s: samples=%d throttled=%.0f%% maxThrottleTime=%.0fms peakByteRate=%.0fB/s throttledByteRate=%.0fB/s quotaBound=%s",
+                type, client, samples.size(), getThrottledRatio() * 100, getMaxThrottleTimeMs(), getPeakByteRate(),
+                getThrottledByteRate(), isQuotaBound());
+        }
+    }
+
+    private static class Target {
+        private final String client;
+        private final ClientType type;
+        private final Supplier<Map<MetricName, ? extends Metric>> metrics;
+        private final List<Sample> samples = new ArrayList<>();
+        private double lastTotal = Double.NaN;
+        private long lastTime;
+
+        Target(String client, ClientType type, Supplier<Map<MetricName, ? extends Metric>> metrics) {
+            this.client = client;
+            this.type = type;
+            this.metrics = metrics;
+        }
+
+        void sample() {
+            Map<MetricName, ? extends Metric> m;
+            try {
+                m = metrics.get();
+            } catch (RuntimeException e) {
+                // the client may have been closed already
+                log.debug("failed to sample client '{}': {}", client, e.getMessage());
+                return;
+            }
+
+            // with a single metrics sample the throttle time is NaN for the intervals without responses
+            var avg = valueOrZero(m, type.group, type.throttleAvg);
+            var max = valueOrZero(m, type.group, type.throttleMax);
+            var total = value(m, type.group, type.byteTotal);
+            var now = System.nanoTime();
+            if (Double.isNaN(total)) {
+                // the client is not connected yet
+                return;
+            }
+
+            var previous = lastTotal;
+            var elapsed = (now - lastTime) / 1e9;
+            lastTotal = total;
+            lastTime = now;
+            if (Double.isNaN(previous) || elapsed <= 0) {
+                // the first sample is only the baseline of the total
+                return;
+            }
+            var rate = (total - previous) / elapsed;
+
+            var sample = new Sample(Double.isNaN(avg) ? 0 : avg, max, rate);
+            samples.add(sample);
+            if (sample.isThrottled()) {
+                THROTTLE_TIME.labels(Environment.LAUNCH_KEY, client).observe(max / 1000);
+            }
+        }
+    }
+
+    private final Vertx vertx;
+    private final Duration interval;
+    private final List<Target> targets = new ArrayList<>();
+    private Long timer;
+
+    public KafkaThrottleSampler(Vertx vertx) {
+        this(vertx, DEFAULT_INTERVAL);
+    }
+
+    public KafkaThrottleSampler(Vertx vertx, Duration interval) {
+        this.vertx = vertx;
+        this.interval = interval;
+    }
+
+    /**
+     * @return The configs to create the Kafka clients sampled with the default interval with
+     */
+    public static Map<String, String> metricsConfig() {
+        return metricsConfig(DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param interval The sampling interval
+     * @return The configs to create the Kafka clients sampled with the given interval with
+     */
+    public static Map<String, String> metricsConfig(Duration interval) {
+        return Map.of(
+            CommonClientConfigs.METRICS_SAMPLE_WINDOW_MS_CONFIG, String.valueOf(interval.toMillis()),
+            CommonClientConfigs.METRICS_NUM_SAMPLES_CONFIG, String.valueOf(METRICS_NUM_SAMPLES));
+    }
+
+    public KafkaThrottleSampler add(String client, KafkaProducerClient<?, ?> producer) {
+        return add(client, ClientType.PRODUCER, producer::metrics);
+    }
+
+    public KafkaThrottleSampler add(String client, KafkaConsumerClient<?, ?> consumer) {
+        return add(client, ClientType.CONSUMER, consumer::metrics);
+    }
+
+    public KafkaThrottleSampler add(String client, ClientType type, Supplier<Map<MetricName, ? extends Metric>> metrics) {
+        synchronized (targets) {
+            targets.add(new Target(client, type, metrics));
+        }
+        return this;
+    }
+
+    public KafkaThrottleSampler start() {
+        if (timer == null) {
+            timer = vertx.setPeriodic(interval.toMillis(), __ -> sample());
+        }
+        return this;
+    }
+
+    /**
+     * Stop sampling, log the report of each client and flag the ones that were quota-bound.
+     *
+     * @return The report of each client
+     */
+    public List<Report> stop() {
+        if (timer != null) {
+            vertx.cancelTimer(timer);
+            timer = null;
+        }
+
+        synchronized (targets) {
+            var reports = targets.stream()
+                .map(t -> new Report(t.client, t.type, new ArrayList<>(t.samples)))
+                .collect(Collectors.toList());
+
+            reports.forEach(r -> {
+                if (r.isQuotaBound()) {
+                    log.warn("client was quota-bound: {}", r);
+                    QUOTA_BOUND_RUNS.labels(Environment.LAUNCH_KEY, r.getClient()).inc();
+                } else {
+                    log.info("client throttling: {}", r);
+                }
+            });
+            return reports;
+        }
+    }
+
+    private void sample() {
+        synchronized (targets) {
+            targets.forEach(Target::sample);
+        }
+    }
+}
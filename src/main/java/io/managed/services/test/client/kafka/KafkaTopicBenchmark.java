@@ -0,0 +1,186 @@
+package io.managed.services.test.client.kafka;
+
+import com.openshift.cloud.api.kas.auth.models.NewTopicInput;
+import com.openshift.cloud.api.kas.auth.models.TopicSettings;
+import io.managed.services.test.Environment;
+import io.managed.services.test.client.exception.ApiGenericException;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import io.prometheus.client.Histogram;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Create a batch of topics either with a single CreateTopics request of the Kafka admin protocol or with one
+ * createTopic request of the Kafka instance REST API per topic, and measure how long it takes until all the
+ * topics are created and until they are visible in the cluster metadata.
+ * <p>
+ * The metadata is polled with the listTopics request of the admin client, which sends each request to the
+ * least loaded broker, therefore the visible time is when any broker first returns all the topics and not
+ * when all the brokers have them. The REST requests are sent one after the other, therefore the API should be
+ * created with {@link io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils#unsharedKafkaInstanceApi}
+ * so that the created time doesn't include the waits of the rate limiter shared with the other tests.
+ */
+@Log4j2
+public class KafkaTopicBenchmark implements AutoCloseable {
+
+    private static final Histogram BATCH_TIME = Histogram.build()
+        .name("test_kafka_topic_batch_seconds")
+        .labelNames("launch", "method", "topics", "phase")
+        .buckets(0.5, 1, 2, 5, 10, 30, 60, 120, 300, 600)
+        .help("Time to create a batch of topics (created) and until they are listed in the cluster metadata (visible).")
+        .register();
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(250);
+
+    public enum Method {
+        ADMIN,
+        REST
+    }
+
+    @Getter
+    public static class Result {
+        private final Method method;
+        private final int topics;
+        private final Duration created;
+        private final Duration visible;
+
+        Result(Method method, int topics, Duration created, Duration visible) {
+            this.method = method;
+            this.topics = topics;
+            this.created = created;
+            this.visible = visible;
+        }
+
+        /**
+         * @return Topics created per second
+         */
+        public double getThroughput() {
+            return created.isZero() ? 0 : topics / (created.toMillis() / 1000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s topics=%d created=%dms visible=%dms throughput=%.1f topics/s",
+                method, topics, created.toMillis(), visible.toMillis(), getThroughput());
+        }
+    }
+
+    private final KafkaInstanceApi api;
+    private final Map<String, String> config;
+    private final Duration timeout;
+    private final KafkaAdmin admin;
+
+    /**
+     * @param api           Kafka instance API of a user allowed to create topics
+     * @param bootstrapHost Kafka bootstrap host
+     * @param clientID      Client ID of a service account allowed to create, describe and delete topics
+     * @param clientSecret  Client secret of the service account
+     * @param timeout       Max time for each batch to be created and visible in the metadata
+     */
+    public KafkaTopicBenchmark(KafkaInstanceApi api, String bootstrapHost, String clientID, String clientSecret, Duration timeout) {
+        this.api = api;
+        this.config = KafkaAuthMethod.oAuthConfigs(bootstrapHost, clientID, clientSecret);
+        this.timeout = timeout;
+        this.admin = new KafkaAdmin(bootstrapHost, config);
+    }
+
+    /**
+     * Create the topics and wait for them to be listed in the metadata, the topics are not deleted.
+     *
+     * @param method The API used to create the topics
+     * @param prefix The prefix of the topic names
+     * @param topics Number of topics to create
+     * @return The time to create the topics and to see them in the metadata
+     */
+    public Result run(Method method, String prefix, int topics)
+        throws ApiGenericException, InterruptedException, ExecutionException, TimeoutException {
+
+        var names = names(prefix, topics);
+
+        log.info("create {} topics with {}", topics, method);
+        var start = System.nanoTime();
+        switch (method) {
+            case ADMIN:
+                admin.createTopics(names, 1, null);
+                break;
+            case REST:
+                for (var name : names) {
+                    api.createTopic(new NewTopicInput().name(name).settings(new TopicSettings().numPartitions(1)));
+                }
+                break;
+            default:
+                throw new EnumConstantNotPresentException(Method.class, method.name());
+        }
+        var created = Duration.ofNanos(System.nanoTime() - start);
+
+        waitUntil(names, true, start);
+        var visible = Duration.ofNanos(System.nanoTime() - start);
+
+        var result = new Result(method, topics, created, visible);
+        BATCH_TIME.labels(Environment.LAUNCH_KEY, method.name(), String.valueOf(topics), "created")
+            .observe(created.toMillis() / 1000.0);
+        BATCH_TIME.labels(Environment.LAUNCH_KEY, method.name(), String.valueOf(topics), "visible")
+            .observe(visible.toMillis() / 1000.0);
+        log.info("topic batch: {}", result);
+        return result;
+    }
+
+    /**
+     * Delete the topics created by {@link #run(Method, String, int)} with a single DeleteTopics request
+     * and wait until they disappear from the metadata, so that their partitions don't count toward the limit.
+     */
+    public void delete(String prefix, int topics) throws InterruptedException, ExecutionException, TimeoutException {
+        // a failed run could have created only part of the topics
+        var existing = admin.listTopics();
+        var names = names(prefix, topics).stream().filter(existing::contains).collect(Collectors.toList());
+        if (names.isEmpty()) {
+            return;
+        }
+
+        log.info("delete {} topics with prefix '{}'", names.size(), prefix);
+        admin.deleteTopics(names);
+
+        var start = System.nanoTime();
+        waitUntil(names, false, start);
+    }
+
+    private static List<String> names(String prefix, int topics) {
+        return IntStream.range(0, topics)
+            .mapToObj(i -> String.format("%s-%04d", prefix, i))
+            .collect(Collectors.toList());
+    }
+
+    private void waitUntil(Collection<String> names, boolean visible, long start)
+        throws InterruptedException, ExecutionException, TimeoutException {
+
+        var deadline = start + timeout.toNanos();
+        while (true) {
+            var listed = admin.getAdmin().listTopics().names().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            var done = visible ? listed.containsAll(names) : names.stream().noneMatch(listed::contains);
+            if (done) {
+                return;
+            }
+
+            if (System.nanoTime() > deadline) {
+                throw new TimeoutException(String.format("topics not %s in the metadata after %s",
+                    visible ? "visible" : "deleted", timeout));
+            }
+            Thread.sleep(POLL_INTERVAL.toMillis());
+        }
+    }
+
+    @Override
+    public void close() {
+        admin.close();
+    }
+}
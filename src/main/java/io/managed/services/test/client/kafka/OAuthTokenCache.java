@@ -0,0 +1,243 @@
+package io.managed.services.test.client.kafka;
+
+import io.managed.services.test.Environment;
+import io.prometheus.client.Counter;
+import io.strimzi.kafka.oauth.common.OAuthAuthenticator;
+import io.strimzi.kafka.oauth.common.PrincipalExtractor;
+import io.strimzi.kafka.oauth.common.TokenInfo;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * In-JVM cache of the OAuth access tokens used by the Kafka clients, keyed by the service account client ID,
+ * so that all the producers, consumers and admins of the same service account share a single token instead
+ * of each one requesting its own to the token endpoint.
+ * <p>
+ * Concurrent logins for the same client ID while a token is being requested wait for the same request
+ * (single-flight). Once a token passes {@link #REFRESH_AHEAD_FACTOR} of its lifetime it is not returned
+ * anymore, the next login waits for a new token instead, so that a Kafka client refreshing its login never
+ * gets back the token that it is about to replace. If the new token can't be requested the old one is
+ * returned until it expires.
+ * <p>
+ * The refresh ahead factor must stay below the window factor at which the Kafka clients refresh their
+ * login (sasl.login.refresh.window.factor, 0.8 plus up to 0.05 of jitter by default), otherwise the clients
+ * would get back the same cached token that is about to expire.
+ */
+@Log4j2
+public class OAuthTokenCache {
+
+    private static final Counter TOKEN_REQUESTS = Counter.build()
+        .name("test_kafka_oauth_token_requests")
+        .labelNames("launch", "result")
+        .help("Number of access tokens requested to the token endpoint by the Kafka clients.")
+        .register();
+
+    private static final Counter TOKEN_CACHE_HITS = Counter.build()
+        .name("test_kafka_oauth_token_cache_hits")
+        .labelNames("launch")
+        .help("Number of Kafka client logins served by an already requested access token.")
+        .register();
+
+    /**
+     * Refresh the token at half of its lifetime, before the Kafka clients refresh their login at 0.8.
+     */
+    public static final double REFRESH_AHEAD_FACTOR = 0.5;
+
+    private static final OAuthTokenCache SHARED = new OAuthTokenCache();
+
+    /**
+     * Request a new access token to the token endpoint.
+     */
+    @FunctionalInterface
+    public interface TokenRequester {
+        TokenInfo request(URI endpoint, String clientID, String clientSecret) throws IOException;
+    }
+
+    private final double refreshAheadFactor;
+    private final TokenRequester requester;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        var t = new Thread(r, "oauth-token-cache");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static class Entry {
+        private final URI endpoint;
+        private final String clientSecret;
+        private final CompletableFuture<TokenInfo> token;
+        private final TokenInfo previous;
+
+        /**
+         * @param previous The token being replaced, returned if the new one can't be requested, or null
+         */
+        Entry(URI endpoint, String clientSecret, CompletableFuture<TokenInfo> token, TokenInfo previous) {
+            this.endpoint = endpoint;
+            this.clientSecret = clientSecret;
+            this.token = token;
+            this.previous = previous;
+        }
+
+        boolean matches(URI endpoint, String clientSecret) {
+            return this.endpoint.equals(endpoint) && this.clientSecret.equals(clientSecret);
+        }
+
+        /**
+         * @return The token if it has been received and it is not expired, or null
+         */
+        TokenInfo valid(long now) {
+            var t = token.isDone() && !token.isCompletedExceptionally() ? token.join() : previous;
+            return t != null && t.expiresAtMs() > now ? t : null;
+        }
+
+        /**
+         * A token still in flight is usable because the caller will wait for it, a failed token or one past
+         * the refresh point is not.
+         */
+        boolean isUsable(long now, double refreshAheadFactor) {
+            if (!token.isDone()) {
+                return true;
+            }
+            if (token.isCompletedExceptionally()) {
+                return false;
+            }
+            var t = token.join();
+            var lifetime = t.expiresAtMs() - t.issuedAtMs();
+            return now < t.issuedAtMs() + (long) (lifetime * refreshAheadFactor);
+        }
+    }
+
+    public OAuthTokenCache() {
+        this(REFRESH_AHEAD_FACTOR, OAuthTokenCache::login, System::currentTimeMillis);
+    }
+
+    /**
+     * @param refreshAheadFactor Fraction of the token lifetime after which a new token is requested
+     * @param requester          Request a new access token
+     * @param clock              Current time in milliseconds, comparable with the token issue and expiry times
+     */
+    public OAuthTokenCache(double refreshAheadFactor, TokenRequester requester, LongSupplier clock) {
+        if (refreshAheadFactor <= 0 || refreshAheadFactor >= 1) {
+            throw new IllegalArgumentException("the refresh ahead factor must be between 0 and 1: " + refreshAheadFactor);
+        }
+        this.refreshAheadFactor = refreshAheadFactor;
+        this.requester = Objects.requireNonNull(requester);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * @return The cache shared by all the Kafka clients in the JVM
+     */
+    public static OAuthTokenCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Return a valid access token for the client ID, requesting a new one only if there isn't already
+     * one cached, before its refresh point, or being requested.
+     *
+     * @param endpoint     Token endpoint
+     * @param clientID     Service account client ID
+     * @param clientSecret Service account client secret
+     * @return TokenInfo
+     * @throws IOException if the token request fails and there isn't a valid token to fall back to
+     */
+    public TokenInfo getToken(URI endpoint, String clientID, String clientSecret) throws IOException {
+        Objects.requireNonNull(endpoint);
+        Objects.requireNonNull(clientID);
+        Objects.requireNonNull(clientSecret);
+
+        var now = clock.getAsLong();
+        var created = new AtomicBoolean(false);
+        var entry = entries.compute(clientID, (k, e) -> {
+            var matches = e != null && e.matches(endpoint, clientSecret);
+            if (matches && e.isUsable(now, refreshAheadFactor)) {
+                return e;
+            }
+            created.set(true);
+            if (matches) {
+                log.debug("refresh access token for client '{}' ahead of its expiration", clientID);
+            }
+            var previous = matches ? e.valid(now) : null;
+            return new Entry(endpoint, clientSecret, request(endpoint, clientID, clientSecret), previous);
+        });
+
+        if (!created.get()) {
+            TOKEN_CACHE_HITS.labels(Environment.LAUNCH_KEY).inc();
+        }
+
+        try {
+            return join(entry.token);
+        } catch (IOException e) {
+            var previous = entry.valid(clock.getAsLong());
+            if (previous == null) {
+                throw e;
+            }
+            log.warn("failed to refresh access token for client '{}', use the previous one: {}", clientID, e.getMessage());
+            return previous;
+        }
+    }
+
+    /**
+     * Forget the token cached for the client ID, for example after its credentials have been reset.
+     *
+     * @param clientID Service account client ID
+     */
+    public void invalidate(String clientID) {
+        entries.remove(clientID);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private CompletableFuture<TokenInfo> request(URI endpoint, String clientID, String clientSecret) {
+        return CompletableFuture.supplyAsync(() -> {
+            log.debug("request access token for client '{}' to {}", clientID, endpoint);
+            try {
+                var token = requester.request(endpoint, clientID, clientSecret);
+                TOKEN_REQUESTS.labels(Environment.LAUNCH_KEY, "success").inc();
+                return token;
+            } catch (IOException e) {
+                TOKEN_REQUESTS.labels(Environment.LAUNCH_KEY, "failure").inc();
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                TOKEN_REQUESTS.labels(Environment.LAUNCH_KEY, "failure").inc();
+                throw e;
+            }
+        }, executor);
+    }
+
+    private static TokenInfo login(URI endpoint, String clientID, String clientSecret) throws IOException {
+        return OAuthAuthenticator.loginWithClientSecret(endpoint, null, null,
+            clientID, clientSecret, true, new PrincipalExtractor(), null);
+    }
+
+    private static TokenInfo join(CompletableFuture<TokenInfo> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.managed.services.test.client.kafka;
+
+import io.strimzi.kafka.oauth.common.TokenInfo;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.common.security.auth.AuthenticateCallbackHandler;
+import org.apache.kafka.common.security.oauthbearer.OAuthBearerLoginModule;
+import org.apache.kafka.common.security.oauthbearer.OAuthBearerToken;
+import org.apache.kafka.common.security.oauthbearer.OAuthBearerTokenCallback;
+
+import javax.security.auth.callback.Callback;
+import javax.security.auth.callback.UnsupportedCallbackException;
+import javax.security.auth.login.AppConfigurationEntry;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Kafka client login callback handler that accepts the same JAAS options of the strimzi
+ * {@code JaasClientOauthLoginCallbackHandler} for the client credentials flow (oauth.client.id,
+ * oauth.client.secret and oauth.token.endpoint.uri) but gets the token from the {@link OAuthTokenCache}
+ * shared by all the Kafka clients in the JVM.
+ */
+@Log4j2
+public class SharedOAuthLoginCallbackHandler implements AuthenticateCallbackHandler {
+
+    static final String CLIENT_ID = "oauth.client.id";
+    static final String CLIENT_SECRET = "oauth.client.secret";
+    static final String TOKEN_ENDPOINT_URI = "oauth.token.endpoint.uri";
+
+    private String clientID;
+    private String clientSecret;
+    private URI tokenEndpoint;
+
+    @Override
+    public void configure(Map<String, ?> configs, String saslMechanism, List<AppConfigurationEntry> jaasConfigEntries) {
+        if (!OAuthBearerLoginModule.OAUTHBEARER_MECHANISM.equals(saslMechanism)) {
+            throw new IllegalArgumentException("unexpected SASL mechanism: " + saslMechanism);
+        }
+        if (jaasConfigEntries.size() != 1) {
+            throw new IllegalArgumentException("expected exactly one JAAS config entry but found " + jaasConfigEntries.size());
+        }
+
+        var options = jaasConfigEntries.get(0).getOptions();
+        clientID = requireOption(options, CLIENT_ID);
+        clientSecret = requireOption(options, CLIENT_SECRET);
+        tokenEndpoint = URI.create(requireOption(options, TOKEN_ENDPOINT_URI));
+    }
+
+    private static String requireOption(Map<String, ?> options, String key) {
+        var value = options.get(key);
+        if (value == null || value.toString().isBlank()) {
+            throw new IllegalArgumentException("missing required JAAS option: " + key);
+        }
+        return value.toString();
+    }
+
+    @Override
+    public void handle(Callback[] callbacks) throws IOException, UnsupportedCallbackException {
+        for (var callback : callbacks) {
+            if (callback instanceof OAuthBearerTokenCallback) {
+                var token = OAuthTokenCache.shared().getToken(tokenEndpoint, clientID, clientSecret);
+                ((OAuthBearerTokenCallback) callback).token(new BearerToken(token));
+            } else {
+                throw new UnsupportedCallbackException(callback);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static class BearerToken implements OAuthBearerToken {
+        private final TokenInfo token;
+
+        BearerToken(TokenInfo token) {
+            this.token = token;
+        }
+
+        @Override
+        public String value() {
+            return token.token();
+        }
+
+        @Override
+        public Set<String> scope() {
+            return token.scope();
+        }
+
+        @Override
+        public long lifetimeMs() {
+            return token.expiresAtMs();
+        }
+
+        @Override
+        public String principalName() {
+            return token.principal();
+        }
+
+        @Override
+        public Long startTimeMs() {
+            return token.issuedAtMs();
+        }
+    }
+}
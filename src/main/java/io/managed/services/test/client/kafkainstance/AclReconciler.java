@@ -0,0 +1,195 @@
+package io.managed.services.test.client.kafkainstance;
+
+import com.openshift.cloud.api.kas.auth.models.AclBinding;
+import com.openshift.cloud.api.kas.auth.models.AclOperationFilter;
+import com.openshift.cloud.api.kas.auth.models.AclPatternTypeFilter;
+import com.openshift.cloud.api.kas.auth.models.AclPermissionTypeFilter;
+import com.openshift.cloud.api.kas.auth.models.AclResourceTypeFilter;
+import io.managed.services.test.client.exception.ApiGenericException;
+import io.managed.services.test.client.exception.ApiNotFoundException;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Reconcile the ACLs of a Kafka instance to a desired list of ACLs.
+ * <p>
+ * The current and desired ACLs are compared by their key fields with hash sets, then the extra ACLs are
+ * deleted and the missing ACLs are created concurrently with at most concurrency requests in flight. When
+ * none of the current ACLs of a principal is desired, all of them are deleted with a single request
+ * filtered by principal instead of one request per ACL.
+ *
+ * <pre>{@code
+ * var result = new AclReconciler(kafkaInstanceApi, 10).reconcile(defaultACLs);
+ * }</pre>
+ */
+@Log4j2
+public class AclReconciler {
+
+    public static final int DEFAULT_CONCURRENCY = 10;
+
+    @Getter
+    public static class Result {
+        private int created = 0;
+        private int deleted = 0;
+        private int bulkDeletes = 0;
+        private Duration duration = Duration.ZERO;
+
+        @Override
+        public String toString() {
+            return String.format("created %d and deleted %d ACLs (%d principals in bulk) in %s",
+                created, deleted, bulkDeletes, duration);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        void run() throws ApiGenericException;
+    }
+
+    private final KafkaInstanceApi api;
+    private final int concurrency;
+
+    public AclReconciler(KafkaInstanceApi api, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.api = Objects.requireNonNull(api);
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * @param desiredACLs The ACLs that will be created if they don't exist, any other ACL will be deleted
+     * @return The number of created and deleted ACLs
+     */
+    public Result reconcile(List<AclBinding> desiredACLs) throws ApiGenericException {
+        var start = Instant.now();
+        var result = new Result();
+
+        var desired = new LinkedHashMap<List<String>, AclBinding>();
+        desiredACLs.forEach(a -> desired.put(key(a), a));
+
+        var current = new HashMap<List<String>, AclBinding>();
+        KafkaInstanceApiAccessUtils.getAllACLs(api).forEach(a -> current.put(key(a), a));
+
+        // the principals that keep at least one of their current ACLs can't be deleted in bulk
+        var keptPrincipals = current.entrySet().stream()
+            .filter(e -> desired.containsKey(e.getKey()))
+            .map(e -> e.getValue().getPrincipal())
+            .collect(Collectors.toCollection(HashSet::new));
+
+        var extraByPrincipal = current.entrySet().stream()
+            .filter(e -> !desired.containsKey(e.getKey()))
+            .map(Map.Entry::getValue)
+            .collect(Collectors.groupingBy(AclBinding::getPrincipal));
+
+        var deletes = new ArrayList<Request>();
+        extraByPrincipal.forEach((principal, extra) -> {
+            if (keptPrincipals.contains(principal) || extra.size() == 1) {
+                extra.forEach(a -> deletes.add(() -> KafkaInstanceApiAccessUtils.deleteACL(api, a)));
+            } else {
+                result.bulkDeletes++;
+                deletes.add(() -> deletePrincipalACLs(principal));
+            }
+            result.deleted += extra.size();
+        });
+
+        // the creates run after the deletes so that they are not removed by a bulk delete of the same principal
+        var creates = desired.entrySet().stream()
+            .filter(e -> !current.containsKey(e.getKey()))
+            .map(e -> (Request) () -> api.createAcl(e.getValue()))
+            .collect(Collectors.toList());
+        result.created = creates.size();
+
+        log.info("reconcile ACLs: delete {} in {} requests and create {}", result.deleted, deletes.size(), creates.size());
+        runAll(deletes);
+        runAll(creates);
+
+        result.duration = Duration.between(start, Instant.now());
+        log.info("reconciled ACLs: {}", result);
+        return result;
+    }
+
+    private void deletePrincipalACLs(String principal) throws ApiGenericException {
+        log.debug("delete all ACLs of principal '{}'", principal);
+        api.deleteAcls(AclResourceTypeFilter.ANY, null, AclPatternTypeFilter.ANY, principal,
+            AclOperationFilter.ANY, AclPermissionTypeFilter.ANY);
+    }
+
+    /**
+     * Run the requests with at most concurrency of them in parallel and wait for all of them to complete.
+     *
+     * @throws ApiGenericException The first failure, with the other failures suppressed
+     */
+    private void runAll(List<Request> requests) throws ApiGenericException {
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        var executor = Executors.newFixedThreadPool(Math.min(concurrency, requests.size()), r -> {
+            var t = new Thread(r, "acl-reconciler");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            var futures = requests.stream()
+                .map(r -> CompletableFuture.runAsync(() -> {
+                    try {
+                        r.run();
+                    } catch (ApiNotFoundException e) {
+                        log.debug("ACL already deleted: {}", e.getMessage());
+                    } catch (ApiGenericException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor))
+                .collect(Collectors.toList());
+
+            ApiGenericException failure = null;
+            for (var f : futures) {
+                try {
+                    f.join();
+                } catch (CompletionException e) {
+                    if (!(e.getCause() instanceof ApiGenericException)) {
+                        throw e;
+                    }
+                    if (failure == null) {
+                        failure = (ApiGenericException) e.getCause();
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compare the ACLs only by the fields that identify them in Kafka.
+     */
+    private static List<String> key(AclBinding a) {
+        return List.of(
+            String.valueOf(a.getResourceType()),
+            String.valueOf(a.getResourceName()),
+            String.valueOf(a.getPatternType()),
+            String.valueOf(a.getPrincipal()),
+            String.valueOf(a.getOperation()),
+            String.valueOf(a.getPermission()));
+    }
+}
@@ -22,6 +22,7 @@ import com.openshift.cloud.api.kas.auth.models.Topic;
 import com.openshift.cloud.api.kas.auth.models.TopicOrderKey;
 import com.openshift.cloud.api.kas.auth.models.TopicSettings;
 import com.openshift.cloud.api.kas.auth.models.TopicsList;
+import io.managed.services.test.client.ApiRateLimiter;
 import io.managed.services.test.client.BaseApi;
 import io.managed.services.test.client.exception.ApiGenericException;
 import io.managed.services.test.client.exception.ApiUnknownException;
@@ -35,7 +36,11 @@ public class KafkaInstanceApi extends BaseApi {
     private final TopicsApi topicsApi;
 
     public KafkaInstanceApi(ApiClient apiClient, KeycloakUser user) {
-        super(user);
+        this(apiClient, user, ApiRateLimiter.forUrl(apiClient.getBasePath()));
+    }
+
+    public KafkaInstanceApi(ApiClient apiClient, KeycloakUser user, ApiRateLimiter limiter) {
+        super(user, limiter);
         this.apiClient = apiClient;
         this.aclsApi = new AclsApi(apiClient);
         this.groupsApi = new GroupsApi(apiClient);
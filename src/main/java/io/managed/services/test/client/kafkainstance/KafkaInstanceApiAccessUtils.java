@@ -10,10 +10,13 @@ import com.openshift.cloud.api.kas.auth.models.AclPermissionTypeFilter;
 import com.openshift.cloud.api.kas.auth.models.AclResourceType;
 import com.openshift.cloud.api.kas.auth.models.AclResourceTypeFilter;
 import com.openshift.cloud.api.kas.models.ServiceAccount;
+import io.managed.services.test.client.PagedIterator;
 import io.managed.services.test.client.exception.ApiGenericException;
 import lombok.extern.log4j.Log4j2;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Log4j2
 public class KafkaInstanceApiAccessUtils {
@@ -24,28 +27,10 @@ public class KafkaInstanceApiAccessUtils {
      * @param api           KafkaInstanceApi
      * @param desiredACLs   The list of desired ACLs that will be created if they don't exist, and any other
      *                      ACLs will be deleted
+     * @see AclReconciler
      */
     public static void resetACLsTo(KafkaInstanceApi api, List<AclBinding> desiredACLs) throws ApiGenericException {
-        // get difference of ACLs that are default from ACLs that are currently present
-        var currentACLs = getAllACLs(api);
-
-        // create the missing ACLs
-        for (var desireACL : desiredACLs) {
-
-            // Remove the desired ACL from the list of current ACLs,
-            // if it was removed successfully move on to the next desired ACLs
-            // because it means that the desired ACL already exist on the
-            // Kafka instance, and that we want to keep it because after
-            // checking all desired ACLs the remaining current ACLs will be deleted.
-            if (!currentACLs.remove(desireACL)) {
-                api.createAcl(desireACL);
-            }
-        }
-
-        // remove extra ACLs one by one
-        for (var currentACL  : currentACLs) {
-            deleteACL(api, currentACL);
-        }
+        new AclReconciler(api, AclReconciler.DEFAULT_CONCURRENCY).reconcile(desiredACLs);
     }
 
     public static void deleteACL(KafkaInstanceApi api, AclBinding aclBinding) throws ApiGenericException {
@@ -66,7 +51,25 @@ public class KafkaInstanceApiAccessUtils {
      * @return list of current ACLs for the Kafka instance
      */
     public static List<AclBinding> getAllACLs(KafkaInstanceApi api) throws ApiGenericException {
-        return api.getAcls(null, null, null, null, null, null, null, null, null, null).getItems();
+        try (var acls = streamACLs(api, null)) {
+            return acls.collect(Collectors.toList());
+        } catch (PagedIterator.PageFetchException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Lazily stream all pages of ACLs for the Kafka instance.
+     *
+     * @param api       KafkaInstanceApi
+     * @param principal The principal to filter the ACLs or null for all principals
+     * @return Stream of AclBinding that should be closed if not fully consumed
+     */
+    public static Stream<AclBinding> streamACLs(KafkaInstanceApi api, String principal) {
+        return PagedIterator.stream((page, size) -> {
+            var list = api.getAcls(null, null, null, principal, null, null, page, size, null, null);
+            return new PagedIterator.Page<>(list.getItems(), list.getTotal());
+        }, PagedIterator.DEFAULT_PAGE_SIZE);
     }
 
     /**
@@ -8,9 +8,11 @@ import com.openshift.cloud.api.kas.auth.models.TopicSettings;
 import com.openshift.cloud.api.kas.models.KafkaRequest;
 import io.managed.services.test.Environment;
 import io.managed.services.test.IsReady;
-import io.managed.services.test.TestUtils;
 import io.managed.services.test.ThrowingFunction;
 import io.managed.services.test.ThrowingSupplier;
+import io.managed.services.test.client.ApiRateLimiter;
+import io.managed.services.test.client.PagedIterator;
+import io.managed.services.test.client.SdkHttpTransport;
 import io.managed.services.test.client.exception.ApiGenericException;
 import io.managed.services.test.client.exception.ApiNotFoundException;
 import io.managed.services.test.client.kafka.KafkaAuthMethod;
@@ -23,15 +25,12 @@ import io.vertx.core.Vertx;
 import lombok.extern.log4j.Log4j2;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.javatuples.Pair;
-import org.jboss.resteasy.client.jaxrs.internal.ClientConfiguration;
-import org.jboss.resteasy.spi.ResteasyProviderFactory;
-
-import javax.ws.rs.client.ClientBuilder;
 
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 import static io.managed.services.test.TestUtils.waitFor;
 import static java.time.Duration.ofMinutes;
@@ -65,19 +64,30 @@ public class KafkaInstanceApiUtils {
     }
 
     public static KafkaInstanceApi kafkaInstanceApi(String uri, KeycloakUser user) {
+        return new KafkaInstanceApi(apiClient(uri), user);
+    }
+
+    /**
+     * Same as {@link #kafkaInstanceApi(KeycloakLoginSession, KafkaRequest)} but with a rate limiter that is not
+     * shared with the other APIs and doesn't limit the rate, so that the benchmarks measure only the requests.
+     */
+    public static Future<KafkaInstanceApi> unsharedKafkaInstanceApi(KeycloakLoginSession auth, KafkaRequest kafka) {
+        log.info("authenticate user '{}' against MAS SSO", auth.getUsername());
+        var uri = kafkaInstanceApiUri(kafka);
+        return auth.loginToOpenshiftIdentity()
+            .map(u -> new KafkaInstanceApi(apiClient(uri), u, ApiRateLimiter.unshared(uri)));
+    }
+
+    private static ApiClient apiClient(String uri) {
         ApiClient client = new ApiClient();
 
         if (Environment.KAFKA_INSECURE_TLS) {
-            ClientConfiguration clientConfig = new ClientConfiguration(ResteasyProviderFactory.getInstance());
-            clientConfig.register(client.getJSON());
-
-            client.setHttpClient(ClientBuilder.newBuilder()
-                    .sslContext(TestUtils.getInsecureSSLContext("TLS"))
-                    .withConfig(clientConfig)
-                    .build());
+            client.setHttpClient(SdkHttpTransport.insecureHttpClient(client.getJSON()));
+        } else {
+            client.setHttpClient(SdkHttpTransport.httpClient(client.getJSON()));
         }
 
-        return new KafkaInstanceApi(client.setBasePath(uri), user);
+        return client.setBasePath(uri);
     }
 
     public static Future<KafkaConsumerClient<String, String>> startConsumerGroup(
@@ -206,6 +216,38 @@ public class KafkaInstanceApiUtils {
 
     // only partitions from public topic are visible (internal and redhat topic are not included, e.g. __consumer_offsets, __redhat_* )
     public static int getPartitionCountTotal(KafkaInstanceApi api) throws ApiGenericException {
-        return api.getTopics().getItems().stream().mapToInt(t -> Objects.requireNonNull(t.getPartitions()).size()).reduce(0, Integer::sum);
+        try (var topics = streamTopics(api, PagedIterator.DEFAULT_PAGE_SIZE)) {
+            return topics.mapToInt(t -> Objects.requireNonNull(t.getPartitions()).size()).reduce(0, Integer::sum);
+        } catch (PagedIterator.PageFetchException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Lazily stream all pages of topics of the Kafka instance.
+     *
+     * @param api      KafkaInstanceApi
+     * @param pageSize The number of topics fetched per request
+     * @return Stream of Topic that should be closed if not fully consumed
+     */
+    public static Stream<Topic> streamTopics(KafkaInstanceApi api, int pageSize) {
+        return PagedIterator.stream((page, size) -> {
+            var list = api.getTopics(size, page, null, null, null);
+            return new PagedIterator.Page<>(list.getItems(), list.getTotal());
+        }, pageSize);
+    }
+
+    /**
+     * Lazily stream all pages of consumer groups of the Kafka instance.
+     *
+     * @param api      KafkaInstanceApi
+     * @param pageSize The number of consumer groups fetched per request
+     * @return Stream of ConsumerGroup that should be closed if not fully consumed
+     */
+    public static Stream<ConsumerGroup> streamConsumerGroups(KafkaInstanceApi api, int pageSize) {
+        return PagedIterator.stream((page, size) -> {
+            var list = api.getConsumerGroups(size, page, null, null, null, null);
+            return new PagedIterator.Page<>(list.getItems(), list.getTotal());
+        }, pageSize);
     }
 }
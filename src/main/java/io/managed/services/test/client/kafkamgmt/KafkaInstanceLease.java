@@ -0,0 +1,67 @@
+package io.managed.services.test.client.kafkamgmt;
+
+import com.openshift.cloud.api.kas.auth.models.AclBinding;
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.channels.FileLock;
+import java.util.List;
+
+/**
+ * A Kafka instance leased from the {@link KafkaInstancePool} or, if the pool couldn't provide one, a
+ * Kafka instance owned by the test class.
+ */
+public class KafkaInstanceLease {
+
+    private final KafkaInstancePool pool;
+
+    @Getter
+    private final KafkaRequest kafka;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final FileLock lock;
+    @Getter(AccessLevel.PACKAGE)
+    private final KafkaInstanceApi kafkaInstanceApi;
+    @Getter(AccessLevel.PACKAGE)
+    private final List<AclBinding> defaultACLs;
+
+    private boolean released = false;
+
+    KafkaInstanceLease(
+        KafkaInstancePool pool,
+        KafkaRequest kafka,
+        FileLock lock,
+        KafkaInstanceApi kafkaInstanceApi,
+        List<AclBinding> defaultACLs) {
+
+        this.pool = pool;
+        this.kafka = kafka;
+        this.lock = lock;
+        this.kafkaInstanceApi = kafkaInstanceApi;
+        this.defaultACLs = defaultACLs;
+    }
+
+    /**
+     * @return true if the Kafka instance belongs to the pool and must not be deleted by the test class
+     */
+    public boolean isPooled() {
+        return pool != null;
+    }
+
+    /**
+     * Reset the Kafka instance and give it back to the pool. The clients that use the instance must
+     * be closed before.
+     *
+     * @return true if the Kafka instance has been returned to the pool, false if it is not pooled or
+     * it couldn't be reused, in which case the test class should clean it as usual
+     */
+    public synchronized boolean release() {
+        if (pool == null || released) {
+            return false;
+        }
+        released = true;
+        return pool.release(this);
+    }
+}
@@ -0,0 +1,355 @@
+package io.managed.services.test.client.kafkamgmt;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openshift.cloud.api.kas.auth.models.AclBinding;
+import com.openshift.cloud.api.kas.auth.models.ConsumerGroup;
+import com.openshift.cloud.api.kas.auth.models.Topic;
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import io.managed.services.test.Environment;
+import io.managed.services.test.client.PagedIterator;
+import io.managed.services.test.client.exception.ApiGenericException;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiAccessUtils;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils;
+import io.managed.services.test.client.oauth.KeycloakLoginSession;
+import lombok.extern.log4j.Log4j2;
+import org.openapitools.jackson.nullable.JsonNullableModule;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static io.managed.services.test.TestUtils.bwait;
+
+/**
+ * Keep a pool of ready Kafka instances that are leased exclusively to the test classes which only need a
+ * clean ready instance, so that they don't have to wait for a new one to be provisioned.
+ * <p>
+ * Each instance of the pool is guarded by a file lock in {@link Environment#KAFKA_POOL_LOCK_DIR}, which makes
+ * the lease exclusive also between test runs executed at the same time on the same machine. The pooled
+ * instances are never deleted by the tests, their topics, consumer groups and ACLs are reset when the lease
+ * is released, and the missing ones are created again in the background.
+ * <p>
+ * The ACLs are reset to the ones the instance had when it was leased for the first time, which are stored
+ * next to the lock files by instance ID, so that the ACLs left by a lessee that crashed before the release
+ * don't become the baseline of the following leases. The pools of the other launch keys and the old pooled
+ * instances are deleted by the LeakedResourcesCleanupTest.
+ * <p>
+ * The pool is enabled by setting {@link Environment#KAFKA_POOL_SIZE}, otherwise {@link #lease} falls back to
+ * {@link KafkaMgmtApiUtils#applyKafkaInstance(KafkaMgmtApi, String)} with the name of the test class instance.
+ */
+@Log4j2
+public class KafkaInstancePool {
+
+    public static final String NAME_PREFIX = "mk-e2e-pool-";
+
+    private static final Pattern POOL_NAME = Pattern.compile(Pattern.quote(NAME_PREFIX) + "\\d+-" + Pattern.quote(Environment.LAUNCH_KEY));
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JsonNullableModule());
+
+    private static KafkaInstancePool shared;
+
+    private final KeycloakLoginSession auth;
+    private final KafkaMgmtApi api;
+    private final int size;
+    private final Path lockDir;
+
+    private final ExecutorService topUpExecutor = Executors.newSingleThreadExecutor(r -> {
+        var t = new Thread(r, "kafka-pool-top-up");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean topUpScheduled = new AtomicBoolean(false);
+
+    public KafkaInstancePool(KeycloakLoginSession auth, KafkaMgmtApi api, int size, Path lockDir) {
+        this.auth = Objects.requireNonNull(auth);
+        this.api = Objects.requireNonNull(api);
+        this.size = size;
+        this.lockDir = Objects.requireNonNull(lockDir);
+    }
+
+    /**
+     * Lease a Kafka instance from the pool shared by the whole JVM, or apply the fallback Kafka instance
+     * if the pool is disabled or all its instances are leased.
+     *
+     * @param auth         The owner of the pooled instances
+     * @param api          KafkaMgmtApi of the owner
+     * @param fallbackName The name of the Kafka instance to apply if no pooled instance can be leased
+     * @return KafkaInstanceLease
+     */
+    public static KafkaInstanceLease lease(KeycloakLoginSession auth, KafkaMgmtApi api, String fallbackName)
+        throws Throwable {
+
+        if (Environment.KAFKA_POOL_SIZE > 0) {
+            var lease = shared(auth, api).lease();
+            if (lease != null) {
+                return lease;
+            }
+            log.warn("all the {} pooled kafka instances are leased", Environment.KAFKA_POOL_SIZE);
+        }
+
+        return new KafkaInstanceLease(null, KafkaMgmtApiUtils.applyKafkaInstance(api, fallbackName), null, null, null);
+    }
+
+    private static synchronized KafkaInstancePool shared(KeycloakLoginSession auth, KafkaMgmtApi api) {
+        if (shared == null) {
+            shared = new KafkaInstancePool(auth, api, Environment.KAFKA_POOL_SIZE, Environment.KAFKA_POOL_LOCK_DIR);
+        }
+        return shared;
+    }
+
+    public static String poolInstanceName(int i) {
+        return NAME_PREFIX + i + "-" + Environment.LAUNCH_KEY;
+    }
+
+    /**
+     * @return true if the name is the one of a pooled instance of the current launch key
+     */
+    public static boolean isPoolInstanceName(String name) {
+        return name != null && POOL_NAME.matcher(name).matches();
+    }
+
+    /**
+     * Lease a ready instance of the pool if any, otherwise the first free one which will be created or
+     * waited for.
+     *
+     * @return KafkaInstanceLease or null if all the instances are leased
+     */
+    public KafkaInstanceLease lease() throws Throwable {
+        Files.createDirectories(lockDir);
+
+        // first look for an instance that is already ready
+        for (var i = 0; i < size; i++) {
+            var name = poolInstanceName(i);
+            var lock = tryLock(name);
+            if (lock == null) {
+                continue;
+            }
+
+            KafkaRequest kafka;
+            try {
+                kafka = KafkaMgmtApiUtils.getKafkaByName(api, name).orElse(null);
+            } catch (Throwable t) {
+                unlock(lock);
+                throw t;
+            }
+            if (kafka != null && "ready".equals(kafka.getStatus())) {
+                log.info("lease pooled kafka instance '{}'", name);
+                return open(KafkaMgmtApiUtils.waitUntilKafkaIsReady(api, kafka.getId()), lock);
+            }
+            unlock(lock);
+        }
+
+        // then take the first free one even if it has to be created
+        for (var i = 0; i < size; i++) {
+            var name = poolInstanceName(i);
+            var lock = tryLock(name);
+            if (lock == null) {
+                continue;
+            }
+
+            log.info("lease pooled kafka instance '{}' that is not ready yet", name);
+            return open(KafkaMgmtApiUtils.applyKafkaInstance(api, name), lock);
+        }
+        return null;
+    }
+
+    private KafkaInstanceLease open(KafkaRequest kafka, FileLock lock) throws Throwable {
+        try {
+            var kafkaInstanceApi = bwait(KafkaInstanceApiUtils.kafkaInstanceApi(auth, kafka));
+            var defaultACLs = defaultACLs(kafka, kafkaInstanceApi);
+            return new KafkaInstanceLease(this, kafka, lock, kafkaInstanceApi, defaultACLs);
+        } catch (Throwable t) {
+            unlock(lock);
+            throw t;
+        } finally {
+            topUp();
+        }
+    }
+
+    /**
+     * Read the ACLs stored at the first lease of the instance, or store the current ones if it's the first lease.
+     */
+    private List<AclBinding> defaultACLs(KafkaRequest kafka, KafkaInstanceApi kafkaInstanceApi)
+        throws ApiGenericException, IOException {
+
+        var file = aclsFile(kafka);
+        if (Files.exists(file)) {
+            return MAPPER.readValue(file.toFile(), new TypeReference<List<AclBinding>>() { });
+        }
+
+        var acls = KafkaInstanceApiAccessUtils.getAllACLs(kafkaInstanceApi);
+        log.info("store the default ACLs of pooled kafka instance '{}'", kafka.getName());
+        MAPPER.writeValue(file.toFile(), acls);
+        return acls;
+    }
+
+    private Path aclsFile(KafkaRequest kafka) {
+        // by ID because an instance deleted and created again with the same name has new default ACLs
+        return lockDir.resolve(kafka.getId() + ".acls.json");
+    }
+
+    /**
+     * Reset the leased Kafka instance and give it back to the pool.
+     *
+     * @return false if the Kafka instance can't be reused because it has been deleted or handed over
+     */
+    boolean release(KafkaInstanceLease lease) {
+        try {
+            var kafka = KafkaMgmtApiUtils.getKafkaByName(api, lease.getKafka().getName()).orElse(null);
+            if (kafka == null) {
+                log.info("pooled kafka instance '{}' has been deleted", lease.getKafka().getName());
+                return false;
+            }
+            if (!Objects.equals(kafka.getOwner(), lease.getKafka().getOwner())) {
+                log.warn("pooled kafka instance '{}' has been handed over to '{}'", kafka.getName(), kafka.getOwner());
+                return false;
+            }
+
+            try {
+                reset(lease);
+            } catch (Throwable t) {
+                // never lease a dirty instance
+                log.error("failed to reset pooled kafka instance '{}', delete it: ", kafka.getName(), t);
+                KafkaMgmtApiUtils.deleteKafkaByNameIfExists(api, kafka.getName());
+                Files.deleteIfExists(aclsFile(kafka));
+                return false;
+            }
+
+            log.info("pooled kafka instance '{}' released", kafka.getName());
+            return true;
+
+        } catch (Throwable t) {
+            log.error("failed to release pooled kafka instance '{}': ", lease.getKafka().getName(), t);
+            return false;
+        } finally {
+            unlock(lease.getLock());
+            topUp();
+        }
+    }
+
+    private void reset(KafkaInstanceLease lease) throws ApiGenericException {
+        var kafkaInstanceApi = lease.getKafkaInstanceApi();
+
+        // collect all the pages before deleting because each delete shifts the following pages
+        for (var group : listConsumerGroups(kafkaInstanceApi)) {
+            log.debug("delete consumer group '{}'", group);
+            kafkaInstanceApi.deleteConsumerGroupById(group);
+        }
+
+        // internal topics are not listed
+        for (var topic : listTopics(kafkaInstanceApi)) {
+            log.debug("delete topic '{}'", topic);
+            kafkaInstanceApi.deleteTopic(topic);
+        }
+
+        KafkaInstanceApiAccessUtils.resetACLsTo(kafkaInstanceApi, lease.getDefaultACLs());
+
+        // a consumer group with active members or a topic created in the meantime would survive the reset
+        var groups = listConsumerGroups(kafkaInstanceApi);
+        var topics = listTopics(kafkaInstanceApi);
+        if (!groups.isEmpty() || !topics.isEmpty()) {
+            throw new IllegalStateException(String.format("the reset left the consumer groups %s and the topics %s", groups, topics));
+        }
+    }
+
+    private static List<String> listConsumerGroups(KafkaInstanceApi api) throws ApiGenericException {
+        try (var groups = KafkaInstanceApiUtils.streamConsumerGroups(api, PagedIterator.DEFAULT_PAGE_SIZE)) {
+            return groups.map(ConsumerGroup::getGroupId).collect(Collectors.toList());
+        } catch (PagedIterator.PageFetchException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static List<String> listTopics(KafkaInstanceApi api) throws ApiGenericException {
+        try (var topics = KafkaInstanceApiUtils.streamTopics(api, PagedIterator.DEFAULT_PAGE_SIZE)) {
+            return topics.map(Topic::getName).collect(Collectors.toList());
+        } catch (PagedIterator.PageFetchException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Create in background the pooled instances that don't exist.
+     */
+    public void topUp() {
+        if (!topUpScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        topUpExecutor.submit(() -> {
+            topUpScheduled.set(false);
+
+            for (var i = 0; i < size; i++) {
+                var name = poolInstanceName(i);
+                var lock = tryLock(name);
+                if (lock == null) {
+                    // leased
+                    continue;
+                }
+
+                try {
+                    if (KafkaMgmtApiUtils.getKafkaByName(api, name).isEmpty()) {
+                        log.info("top up kafka pool with instance '{}'", name);
+                        KafkaMgmtApiUtils.createKafkaInstance(api, KafkaMgmtApiUtils.defaultKafkaInstance(name));
+                    }
+                } catch (Throwable t) {
+                    log.error("failed to top up kafka pool with instance '{}': ", name, t);
+                } finally {
+                    unlock(lock);
+                }
+            }
+        });
+    }
+
+    private FileLock tryLock(String name) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockDir.resolve(name + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            var lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+            }
+            return lock;
+        } catch (OverlappingFileLockException e) {
+            // already locked by this JVM
+            closeQuietly(channel);
+            return null;
+        } catch (IOException e) {
+            log.warn("failed to lock pooled kafka instance '{}': {}", name, e.getMessage());
+            closeQuietly(channel);
+            return null;
+        }
+    }
+
+    private static void unlock(FileLock lock) {
+        try {
+            lock.release();
+        } catch (IOException e) {
+            log.warn("failed to release lock: {}", e.getMessage());
+        }
+        closeQuietly(lock.channel());
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("failed to close lock file: {}", e.getMessage());
+        }
+    }
+}
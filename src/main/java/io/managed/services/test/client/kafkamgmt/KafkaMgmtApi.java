@@ -10,22 +10,31 @@ import com.openshift.cloud.api.kas.models.KafkaRequestPayload;
 import com.openshift.cloud.api.kas.models.KafkaUpdateRequest;
 import com.openshift.cloud.api.kas.models.MetricsInstantQueryList;
 import io.managed.services.test.client.BaseApi;
+import io.managed.services.test.client.PrometheusTextMetrics;
 import io.managed.services.test.client.exception.ApiGenericException;
 import io.managed.services.test.client.exception.ApiUnknownException;
 import io.managed.services.test.client.oauth.KeycloakUser;
 import lombok.extern.log4j.Log4j2;
 
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
 
 @Log4j2
 public class KafkaMgmtApi extends BaseApi {
 
+    private static final String FEDERATE_METRICS_PATH = "/api/kafkas_mgmt/v1/kafkas/{id}/metrics/federate";
+
     private final ApiClient apiClient;
     private final DefaultApi api;
 
     public KafkaMgmtApi(ApiClient apiClient, KeycloakUser user) {
-        super(user);
+        super(user, apiClient.getBasePath());
         this.apiClient = Objects.requireNonNull(apiClient);
         this.api = new DefaultApi(apiClient);
     }
@@ -53,12 +62,20 @@ public class KafkaMgmtApi extends BaseApi {
     }
 
     public KafkaRequest createKafka(Boolean async, KafkaRequestPayload kafkaRequestPayload) throws ApiGenericException {
-        return retry(() -> api.createKafka(async, kafkaRequestPayload));
+        try {
+            return retry(() -> api.createKafka(async, kafkaRequestPayload));
+        } finally {
+            KafkaMgmtApiUtils.invalidateKafkaByName(kafkaRequestPayload.getName());
+        }
     }
 
     public void deleteKafkaById(String id, Boolean async) throws ApiGenericException {
         // TODO: why does it return Error
-        retry(() -> api.deleteKafkaById(id, async));
+        try {
+            retry(() -> api.deleteKafkaById(id, async));
+        } finally {
+            KafkaMgmtApiUtils.invalidateKafkaById(id);
+        }
     }
 
     public MetricsInstantQueryList getMetricsByInstantQuery(String id, List<String> filters) throws ApiGenericException {
@@ -69,7 +86,39 @@ public class KafkaMgmtApi extends BaseApi {
         return retry(() -> api.federateMetrics(id));
     }
 
+    /**
+     * Same as {@link #federateMetrics(String)} but parse the metrics while streaming the response,
+     * instead of reading the whole payload into a String, and index them for the lookups.
+     */
+    public PrometheusTextMetrics getFederatedMetrics(String id) throws ApiGenericException {
+        return retry(() -> {
+            var token = ((HttpBearerAuth) apiClient.getAuthentication("Bearer")).getBearerToken();
+            var response = apiClient.getHttpClient()
+                .target(apiClient.getBasePath())
+                .path(FEDERATE_METRICS_PATH)
+                .resolveTemplate("id", id)
+                .request(MediaType.TEXT_PLAIN_TYPE, MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .get();
+
+            try (response) {
+                if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                    throw new ApiException(response.getStatus(), response.getStatusInfo().getReasonPhrase(),
+                        response.getStringHeaders(), response.readEntity(String.class));
+                }
+
+                try (var reader = new InputStreamReader(response.readEntity(InputStream.class), StandardCharsets.UTF_8)) {
+                    return PrometheusTextMetrics.parse(reader);
+                }
+            }
+        });
+    }
+
     public KafkaRequest updateKafka(String instanceId, KafkaUpdateRequest kafkaUpdateRequest) throws ApiGenericException {
-        return retry(() -> api.updateKafkaById(instanceId,  kafkaUpdateRequest));
+        try {
+            return retry(() -> api.updateKafkaById(instanceId,  kafkaUpdateRequest));
+        } finally {
+            KafkaMgmtApiUtils.invalidateKafkaById(instanceId);
+        }
     }
 }
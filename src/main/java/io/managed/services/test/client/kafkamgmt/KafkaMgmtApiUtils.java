@@ -10,28 +10,40 @@ import com.openshift.cloud.api.kas.models.KafkaRequestPayload;
 import com.openshift.cloud.api.kas.models.KafkaUpdateRequest;
 import io.managed.services.test.DNSUtils;
 import io.managed.services.test.Environment;
+import io.managed.services.test.IsReady;
 import io.managed.services.test.ThrowingFunction;
 import io.managed.services.test.ThrowingSupplier;
+import io.managed.services.test.client.PagedIterator;
+import io.managed.services.test.client.PrometheusTextMetrics;
+import io.managed.services.test.client.SdkHttpTransport;
+import io.managed.services.test.client.TtlCache;
 import io.managed.services.test.client.exception.ApiForbiddenException;
 import io.managed.services.test.client.exception.ApiGenericException;
 import io.managed.services.test.client.exception.ApiNotFoundException;
 import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
 import io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils;
 import io.managed.services.test.client.oauth.KeycloakUser;
+import io.managed.services.test.framework.StatusTransitionRecorder;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.javatuples.Pair;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static io.managed.services.test.TestUtils.waitFor;
 import static java.time.Duration.ofDays;
@@ -42,9 +54,24 @@ import static java.time.Duration.ofSeconds;
 public class KafkaMgmtApiUtils {
     private static final Logger LOGGER = LogManager.getLogger(KafkaMgmtApiUtils.class);
     private static final String CLUSTER_CAPACITY_EXHAUSTED_CODE = "KAFKAS-MGMT-24";
+    static final String KAFKA_SERVICE = "kafka";
+
+    // the cache is keyed also by the api because each user sees different instances
+    private static final TtlCache<Pair<KafkaMgmtApi, String>, Optional<KafkaRequest>> KAFKA_BY_NAME =
+        new TtlCache<>("kafka_by_name", Duration.ofSeconds(Environment.MGMT_LOOKUP_CACHE_TTL));
 
     public static KafkaMgmtApi kafkaMgmtApi(String uri, KeycloakUser user) {
-        return new KafkaMgmtApi(new ApiClient().setBasePath(uri), user);
+        return new KafkaMgmtApi(apiClient(uri), user);
+    }
+
+    public static KafkaMgmtAsyncApi kafkaMgmtAsyncApi(Vertx vertx, String uri, KeycloakUser user) {
+        return new KafkaMgmtAsyncApi(vertx, apiClient(uri), user);
+    }
+
+    private static ApiClient apiClient(String uri) {
+        var client = new ApiClient();
+        client.setHttpClient(SdkHttpTransport.httpClient(client.getJSON()));
+        return client.setBasePath(uri);
     }
 
     /**
@@ -55,8 +82,36 @@ public class KafkaMgmtApiUtils {
      * @return Optional KafkaRequest
      */
     public static Optional<KafkaRequest> getKafkaByName(KafkaMgmtApi api, String name) throws ApiGenericException {
-        var list = api.getKafkas("1", "1", null, String.format("name = %s", name.trim()));
-        return list.getItems().stream().findAny();
+        // missing instances and instances in a transient status are not cached because they change without notice
+        return KAFKA_BY_NAME.get(Pair.with(api, name.trim()), () -> {
+            var list = api.getKafkas("1", "1", null, String.format("name = %s", name.trim()));
+            return list.getItems().stream().findAny();
+        }, k -> k.isPresent() && "ready".equals(k.get().getStatus()));
+    }
+
+    /**
+     * Lazily stream all the Kafka instances visible to the user, page by page.
+     *
+     * @param api      KafkaMgmtApi
+     * @param search   The search query or null
+     * @param pageSize The number of instances fetched per request
+     * @return Stream of KafkaRequest that should be closed if not fully consumed
+     */
+    public static Stream<KafkaRequest> streamKafkas(KafkaMgmtApi api, String search, int pageSize) {
+        return PagedIterator.stream((page, size) -> {
+            var list = api.getKafkas(String.valueOf(page), String.valueOf(size), null, search);
+            return new PagedIterator.Page<>(list.getItems(), list.getTotal());
+        }, pageSize);
+    }
+
+    static void invalidateKafkaByName(String name) {
+        if (name != null) {
+            KAFKA_BY_NAME.invalidateIf((k, v) -> k.getValue1().equals(name.trim()));
+        }
+    }
+
+    static void invalidateKafkaById(String id) {
+        KAFKA_BY_NAME.invalidateIf((k, v) -> v.isPresent() && Objects.equals(v.get().getId(), id));
     }
 
     public static KafkaRequestPayload defaultKafkaInstance(String name) {
@@ -128,15 +183,7 @@ public class KafkaMgmtApiUtils {
                 kafkaAtom.set(api.createKafka(true, payload));
             } catch (ApiForbiddenException e) {
 
-                Error error;
-                try {
-                    error = new ObjectMapper().readValue(e.getResponseBody(), Error.class);
-                } catch (JsonProcessingException ex) {
-                    LOGGER.warn("failed to decode API error: ", ex);
-                    throw e;
-                }
-
-                if (CLUSTER_CAPACITY_EXHAUSTED_CODE.equals(error.getCode())) {
+                if (isClusterCapacityExhausted(e)) {
                     // try again without logging
                     exceptionAtom.set(e);
                     LOGGER.debug("{}: {}", e.getClass(), e.getMessage());
@@ -161,6 +208,21 @@ public class KafkaMgmtApiUtils {
         return waitUntilKafkaIsProvisioning(api, kafkaAtom.get().getId());
     }
 
+    /**
+     * @param e ApiForbiddenException returned by the create Kafka API
+     * @return true if the Kafka instance can not be created because the cluster capacity is exhausted
+     */
+    static boolean isClusterCapacityExhausted(ApiForbiddenException e) throws ApiForbiddenException {
+        Error error;
+        try {
+            error = new ObjectMapper().readValue(e.getResponseBody(), Error.class);
+        } catch (JsonProcessingException ex) {
+            LOGGER.warn("failed to decode API error: ", ex);
+            throw e;
+        }
+        return CLUSTER_CAPACITY_EXHAUSTED_CODE.equals(error.getCode());
+    }
+
     /**
      * Delete the Kafka Instance if it exists and if the SKIP_KAFKA_TEARDOWN env is set to false.
      *
@@ -195,6 +257,15 @@ public class KafkaMgmtApiUtils {
         }
     }
 
+    /**
+     * Record the status of the Kafka instance to measure the time spent in each provisioning phase.
+     */
+    static void recordStatus(KafkaRequest kafka) {
+        if (kafka.getId() != null) {
+            StatusTransitionRecorder.of(KAFKA_SERVICE, kafka.getId()).observe(kafka.getStatus(), kafka.getCreatedAt());
+        }
+    }
+
     /**
      * Returns KafkaRequest only if status is in provisioning
      *
@@ -211,6 +282,7 @@ public class KafkaMgmtApiUtils {
             kafkaAtom.set(kafka);
 
             LOGGER.debug(kafka);
+            recordStatus(kafka);
             return !"accepted".equals(kafka.getStatus());
         };
 
@@ -258,6 +330,7 @@ public class KafkaMgmtApiUtils {
             kafkaAtom.set(kafka);
 
             LOGGER.debug(kafka);
+            recordStatus(kafka);
             return "ready".equals(kafka.getStatus());
         };
 
@@ -278,50 +351,114 @@ public class KafkaMgmtApiUtils {
     }
 
 
+    /**
+     * Async version of {@link #waitUntilKafkaIsProvisioning(KafkaMgmtApi, String)} that shares a single
+     * status poller between all the Kafka instances being waited for through the same API.
+     *
+     * @param api     KafkaMgmtAsyncApi
+     * @param kafkaID String
+     * @return Future that completes with the KafkaRequest once it is provisioning
+     */
+    public static Future<KafkaRequest> waitUntilKafkaIsProvisioning(KafkaMgmtAsyncApi api, String kafkaID) {
+        return api.statusPoller().waitUntilProvisioning(kafkaID)
+            .onSuccess(kafka -> {
+                LOGGER.info("kafka instance '{}' is provisioning", kafka.getName());
+                LOGGER.debug(kafka);
+            });
+    }
+
+    /**
+     * Async version of {@link #waitUntilKafkaIsReady(KafkaMgmtApi, String)} that doesn't park the calling thread
+     * between the checks and shares a single status poller between all the Kafka instances being waited for
+     * through the same API.
+     *
+     * @param api     KafkaMgmtAsyncApi
+     * @param kafkaID String
+     * @return Future that completes with the KafkaRequest once it is ready and its hosts are resolved
+     */
+    public static Future<KafkaRequest> waitUntilKafkaIsReady(KafkaMgmtAsyncApi api, String kafkaID) {
+        return api.statusPoller().waitUntilReady(kafkaID)
+            .compose(kafka -> {
+                LOGGER.info("kafka instance '{}' is ready", kafka.getName());
+                LOGGER.debug(kafka);
+
+                return waitUntilKafkaHostsAreResolved(api.getVertx(), kafka).map(__ -> kafka);
+            });
+    }
+
+    /**
+     * Return only once all the Kafka instance hosts (bootstrap, admin-server and brokers) can be resolved
+     *
+     * @param kafka KafkaRequest
+     */
     public static void waitUntilKafkaHostsAreResolved(KafkaRequest kafka)
         throws InterruptedException, KafkaUnknownHostsException {
 
+        try {
+            waitUntilKafkaHostsAreResolved(DNSUtils.vertx(), kafka).toCompletionStage().toCompletableFuture().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof KafkaUnknownHostsException) {
+                throw (KafkaUnknownHostsException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Async version of {@link #waitUntilKafkaHostsAreResolved(KafkaRequest)} that resolves all the hosts
+     * concurrently with the in-JVM DNS client and records the time until each host is resolved.
+     *
+     * @param vertx Vertx
+     * @param kafka KafkaRequest
+     * @return Future that fails with KafkaUnknownHostsException if some hosts are not resolved within 5 minutes
+     */
+    public static Future<Void> waitUntilKafkaHostsAreResolved(Vertx vertx, KafkaRequest kafka) {
+
+        var start = Instant.now();
+
         var bootstrapHost = Objects.requireNonNull(kafka.getBootstrapServerHost());
         var bootstrap = bootstrapHost.replaceFirst(":443$", "");
-        var broker0 = "broker-0-" + bootstrap;
-        var broker1 = "broker-1-" + bootstrap;
-        var broker2 = "broker-2-" + bootstrap;
-        var admin = "admin-server-" + bootstrap;
-        var hosts = new ArrayList<>(List.of(bootstrap, admin, broker0, broker1, broker2));
+
+        // map each host to its role to not publish the instance specific names to the metrics
+        var hosts = new LinkedHashMap<String, String>();
+        hosts.put(bootstrap, "bootstrap");
+        hosts.put("admin-server-" + bootstrap, "admin-server");
+        hosts.put("broker-0-" + bootstrap, "broker-0");
 
         // if Kafka instance is of type developer it is smaller and does not have broker1 and broker 2
-        if (Objects.requireNonNull(kafka.getInstanceType()).equals("developer")) {
-            hosts.removeAll(List.of(broker1, broker2));
+        if (!Objects.requireNonNull(kafka.getInstanceType()).equals("developer")) {
+            hosts.put("broker-1-" + bootstrap, "broker-1");
+            hosts.put("broker-2-" + bootstrap, "broker-2");
         }
 
-        ThrowingFunction<Boolean, Boolean, java.lang.Error> ready = last -> {
-
-            for (var i = 0; i < hosts.size(); i++) {
-                try {
-                    var r = InetAddress.getByName(hosts.get(i));
-                    LOGGER.info("host '{}' resolved wit address '{}'", hosts.get(i), r.getHostAddress());
-
-                    // remove resolved hosts from the list
-                    hosts.remove(i);
-                    i--; // shift i back to not skip a host
-                } catch (UnknownHostException e) {
-                    LOGGER.debug("failed to resolve host '{}': {}", hosts.get(i), e.getMessage());
+        IsReady<Void> ready = last -> DNSUtils.resolveAll(hosts.keySet())
+            .compose(addresses -> {
+                var elapsed = Duration.between(start, Instant.now());
+                addresses.forEach((host, address) -> {
+                    LOGGER.info("host '{}' resolved with address '{}' after {}", host, address, elapsed);
+                    StatusTransitionRecorder.observeHostResolution(KAFKA_SERVICE, hosts.remove(host), elapsed);
+                });
 
-                    // TODO: Move to trace with isTrace enable
-                    LOGGER.debug("dig {}:\n{}", hosts.get(i), DNSUtils.dig(hosts.get(i)));
-                    LOGGER.debug("dig @1.1.1.1 {}:\n{}", hosts.get(i), DNSUtils.dig(hosts.get(i), "1.1.1.1"));
+                if (hosts.isEmpty() || !LOGGER.isDebugEnabled()) {
+                    return Future.succeededFuture(Pair.with(hosts.isEmpty(), null));
                 }
-            }
-            return hosts.isEmpty();
-        };
 
-        try {
-            waitFor("kafka hosts to be resolved", ofSeconds(5), ofMinutes(5), ready);
-        } catch (TimeoutException e) {
-            throw new KafkaUnknownHostsException(hosts, e);
-        }
-
-        LOGGER.debug("kafka hosts '{}' are ready", hosts);
+                // query the unresolved hosts also to a public name server to tell a propagation delay from a missing record
+                List<Future> digs = hosts.keySet().stream()
+                    .flatMap(h -> Stream.of(DNSUtils.dig(h), DNSUtils.dig(h, "1.1.1.1"))
+                        .map(f -> f.onSuccess(r -> LOGGER.debug("failed to resolve host '{}':\n{}", h, r))))
+                    .collect(Collectors.toList());
+                return CompositeFuture.join(digs).transform(__ -> Future.succeededFuture(Pair.with(false, null)));
+            });
+
+        return waitFor(vertx, "kafka hosts to be resolved", ofSeconds(5), ofMinutes(5), ready)
+            .recover(e -> Future.failedFuture(e instanceof TimeoutException
+                ? new KafkaUnknownHostsException(new ArrayList<>(hosts.keySet()), (TimeoutException) e) : e))
+            .onSuccess(__ -> {
+                StatusTransitionRecorder.observeDnsResolution(KAFKA_SERVICE, Duration.between(start, Instant.now()));
+                LOGGER.debug("kafka '{}' hosts are ready", kafka.getName());
+            })
+            .mapEmpty();
     }
 
     /**
@@ -355,11 +492,15 @@ public class KafkaMgmtApiUtils {
         ThrowingFunction<Boolean, Boolean, T> ready = l -> {
             var exists = supplier.get();
             if (exists.isEmpty()) {
+                if (kafkaAtom.get() != null) {
+                    StatusTransitionRecorder.of(KAFKA_SERVICE, kafkaAtom.get().getId()).observe(StatusTransitionRecorder.GONE);
+                }
                 return true;
             }
 
             var kafka = exists.get();
             LOGGER.debug(kafka);
+            recordStatus(kafka);
             kafkaAtom.set(kafka);
             return false;
         };
@@ -371,6 +512,19 @@ public class KafkaMgmtApiUtils {
         }
     }
 
+    /**
+     * Async version of {@link #waitUntilKafkaIsDeleted(KafkaMgmtApi, String)} that doesn't park the calling thread
+     * between the checks and shares a single status poller between all the Kafka instances being waited for
+     * through the same API.
+     *
+     * @param api     KafkaMgmtAsyncApi
+     * @param kafkaID Kafka instance id
+     * @return Future that completes once the Kafka instance doesn't exist anymore
+     */
+    public static Future<Void> waitUntilKafkaIsDeleted(KafkaMgmtAsyncApi api, String kafkaID) {
+        return api.statusPoller().waitUntilDeleted(kafkaID);
+    }
+
     /**
      * Wait for the new owner to be applied to all brokers.
      *
@@ -434,7 +588,11 @@ public class KafkaMgmtApiUtils {
      * @param kafka    Kafka instance to query
      */
     public static int getPartitionLimitMax(KafkaMgmtApi api, KafkaRequest kafka) throws Exception {
-        return getMetric(api, kafka, "^kafka_instance_partition_limit.*\\s(\\d+)$");
+        return getPartitionLimitMax(api.getFederatedMetrics(kafka.getId()));
+    }
+
+    public static int getPartitionLimitMax(PrometheusTextMetrics metrics) throws Exception {
+        return getMetric(metrics, "kafka_instance_partition_limit");
     }
 
     /**
@@ -444,7 +602,11 @@ public class KafkaMgmtApiUtils {
      * @param kafka    Kafka instance to query
      */
     public static int getMessageSizeLimit(KafkaMgmtApi api, KafkaRequest kafka) throws Exception {
-        return getMetric(api, kafka, "^kafka_instance_max_message_size_limit.*\\s(\\d+)$");
+        return getMessageSizeLimit(api.getFederatedMetrics(kafka.getId()));
+    }
+
+    public static int getMessageSizeLimit(PrometheusTextMetrics metrics) throws Exception {
+        return getMetric(metrics, "kafka_instance_max_message_size_limit");
     }
 
     /**
@@ -454,24 +616,25 @@ public class KafkaMgmtApiUtils {
      * @param kafka    Kafka instance to query
      */
     public static int getDesiredBrokerCount(KafkaMgmtApi api, KafkaRequest kafka) throws Exception {
-        return getMetric(api, kafka, "^kafka_instance_spec_brokers_desired_count.*\\s(\\d+)$");
+        return getDesiredBrokerCount(api.getFederatedMetrics(kafka.getId()));
+    }
+
+    public static int getDesiredBrokerCount(PrometheusTextMetrics metrics) throws Exception {
+        return getMetric(metrics, "kafka_instance_spec_brokers_desired_count");
     }
 
     /**
-     * Get total partition limit of per given kafka instance.
+     * Get the value of a single sample metric from the federated metrics of a kafka instance.
      *
-     * @param api      KafkaMgmtApi
-     * @param kafka    Kafka instance to query
-     * @param regex    metric pattern
+     * @param metrics  Metrics returned by {@link KafkaMgmtApi#getFederatedMetrics(String)}
+     * @param name     Metric name
      */
-    private static int getMetric(KafkaMgmtApi api, KafkaRequest kafka, String regex) throws Exception {
-        var metrics = api.federateMetrics(kafka.getId());
-        final Pattern pattern = Pattern.compile(regex, Pattern.MULTILINE);
-        final Matcher matcher = pattern.matcher(metrics);
-        if (matcher.find()) {
-            return Integer.parseInt(matcher.group(1));
+    private static int getMetric(PrometheusTextMetrics metrics, String name) throws Exception {
+        var value = metrics.value(name);
+        if (value.isPresent()) {
+            return (int) value.getAsDouble();
         }
         // if not found
-        throw new Exception(String.format("Unable to find metric matching %s", regex));
+        throw new Exception(String.format("Unable to find metric %s", name));
     }
 }
@@ -0,0 +1,104 @@
+package io.managed.services.test.client.kafkamgmt;
+
+import com.openshift.cloud.api.kas.DefaultApi;
+import com.openshift.cloud.api.kas.invoker.ApiClient;
+import com.openshift.cloud.api.kas.invoker.ApiException;
+import com.openshift.cloud.api.kas.invoker.auth.HttpBearerAuth;
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import com.openshift.cloud.api.kas.models.KafkaRequestList;
+import com.openshift.cloud.api.kas.models.KafkaRequestPayload;
+import com.openshift.cloud.api.kas.models.KafkaUpdateRequest;
+import com.openshift.cloud.api.kas.models.MetricsInstantQueryList;
+import io.managed.services.test.client.BaseApi;
+import io.managed.services.test.client.exception.ApiUnknownException;
+import io.managed.services.test.client.oauth.KeycloakUser;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Same as {@link KafkaMgmtApi} but each call returns a Future and the retries are scheduled on the
+ * Vert.x timers, so that a single thread can drive many concurrent provisioning flows.
+ * <p>
+ * The generated client is still blocking, therefore each HTTP request is executed on a Vert.x worker
+ * thread, but no thread is kept busy between the requests.
+ */
+@Log4j2
+public class KafkaMgmtAsyncApi extends BaseApi {
+
+    private final Vertx vertx;
+    private final ApiClient apiClient;
+    private final DefaultApi api;
+
+    private KafkaStatusPoller statusPoller;
+
+    public KafkaMgmtAsyncApi(Vertx vertx, ApiClient apiClient, KeycloakUser user) {
+        super(user, apiClient.getBasePath());
+        this.vertx = Objects.requireNonNull(vertx);
+        this.apiClient = Objects.requireNonNull(apiClient);
+        this.api = new DefaultApi(apiClient);
+    }
+
+    @Override
+    protected ApiUnknownException toApiException(Exception e) {
+        if (e instanceof ApiException) {
+            var ex = (ApiException) e;
+            return new ApiUnknownException(ex.getMessage(), ex.getCode(), ex.getResponseHeaders(), ex.getResponseBody(), ex);
+        }
+        return null;
+    }
+
+    @Override
+    protected void setAccessToken(String t) {
+        ((HttpBearerAuth) apiClient.getAuthentication("Bearer")).setBearerToken(t);
+    }
+
+    public Vertx getVertx() {
+        return vertx;
+    }
+
+    /**
+     * @return The poller shared by all the waits on the Kafka instances made through this API
+     */
+    public synchronized KafkaStatusPoller statusPoller() {
+        if (statusPoller == null) {
+            statusPoller = new KafkaStatusPoller(this);
+        }
+        return statusPoller;
+    }
+
+    public Future<KafkaRequest> getKafkaById(String id) {
+        return retry(vertx, () -> api.getKafkaById(id));
+    }
+
+    public Future<KafkaRequestList> getKafkas(String page, String size, String orderBy, String search) {
+        return retry(vertx, () -> api.getKafkas(page, size, orderBy, search));
+    }
+
+    public Future<KafkaRequest> createKafka(Boolean async, KafkaRequestPayload kafkaRequestPayload) {
+        return retry(vertx, () -> api.createKafka(async, kafkaRequestPayload))
+            .onComplete(__ -> KafkaMgmtApiUtils.invalidateKafkaByName(kafkaRequestPayload.getName()));
+    }
+
+    public Future<Void> deleteKafkaById(String id, Boolean async) {
+        return retry(vertx, () -> api.deleteKafkaById(id, async))
+            .onComplete(__ -> KafkaMgmtApiUtils.invalidateKafkaById(id))
+            .mapEmpty();
+    }
+
+    public Future<MetricsInstantQueryList> getMetricsByInstantQuery(String id, List<String> filters) {
+        return retry(vertx, () -> api.getMetricsByInstantQuery(id, filters));
+    }
+
+    public Future<String> federateMetrics(String id) {
+        return retry(vertx, () -> api.federateMetrics(id));
+    }
+
+    public Future<KafkaRequest> updateKafka(String instanceId, KafkaUpdateRequest kafkaUpdateRequest) {
+        return retry(vertx, () -> api.updateKafkaById(instanceId, kafkaUpdateRequest))
+            .onComplete(__ -> KafkaMgmtApiUtils.invalidateKafkaById(instanceId));
+    }
+}
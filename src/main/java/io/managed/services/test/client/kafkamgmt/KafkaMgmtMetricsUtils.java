@@ -16,7 +16,6 @@ import org.apache.logging.log4j.Logger;
 
 import java.time.Duration;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -42,13 +41,7 @@ public class KafkaMgmtMetricsUtils {
      * @return double
      */
     public static double collectTopicMetric(List<InstantQuery> metricItems, String topicName, String metric) {
-        Objects.requireNonNull(metricItems);
-        return metricItems.stream()
-            .filter(item -> item.getMetric() != null)
-            .filter(item -> metric.equals(item.getMetric().get("__name__")))
-            .filter(item -> topicName.equals(item.getMetric().get("topic")))
-            .mapToDouble(i -> i.getValue())
-            .sum();
+        return MetricsSnapshot.of(metricItems).sum(metric, topicName);
     }
 
     public static void testMessageInTotalMetric(
@@ -61,9 +54,8 @@ public class KafkaMgmtMetricsUtils {
         LOGGER.info("start testing message in total metric");
 
         // retrieve the current in messages before sending more
-        var metricsList = api.getMetricsByInstantQuery(kafka.getId(), null);
-        var initialInMessages = collectTopicMetric(metricsList.getItems(), topicName, IN_MESSAGES_METRIC);
-        LOGGER.info("the topic '{}' started with '{}' in messages", topicName, initialInMessages);
+        var initial = MetricsSnapshot.of(api, kafka.getId());
+        LOGGER.info("the topic '{}' started with '{}' in messages", topicName, initial.sum(IN_MESSAGES_METRIC, topicName));
 
         // send n messages to the topic
         LOGGER.info("send '{}' message to the topic '{}'", MESSAGE_COUNT, topicName);
@@ -81,13 +73,13 @@ public class KafkaMgmtMetricsUtils {
         var finalInMessagesAtom = new AtomicReference<Double>();
         ThrowingFunction<Boolean, Boolean, ApiGenericException> isMetricUpdated = last -> {
 
-            var m = api.getMetricsByInstantQuery(kafka.getId(), null);
-            var i = collectTopicMetric(m.getItems(), topicName, IN_MESSAGES_METRIC);
+            var snapshot = MetricsSnapshot.of(api, kafka.getId());
+            var increase = snapshot.diff(initial).sum(IN_MESSAGES_METRIC, topicName);
 
-            finalInMessagesAtom.set(i);
+            finalInMessagesAtom.set(snapshot.sum(IN_MESSAGES_METRIC, topicName));
 
-            LOGGER.debug("kafka_server_brokertopicmetrics_messages_in_total: {}", i);
-            return initialInMessages + MESSAGE_COUNT == i;
+            LOGGER.debug("kafka_server_brokertopicmetrics_messages_in_total increase: {}", increase);
+            return increase == MESSAGE_COUNT;
         };
         waitFor("metric to be updated", ofSeconds(3), WAIT_FOR_METRIC_TIMEOUT, isMetricUpdated);
 
@@ -0,0 +1,194 @@
+package io.managed.services.test.client.kafkamgmt;
+
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import com.openshift.cloud.api.kas.models.KafkaRequestPayload;
+import io.managed.services.test.client.exception.ApiForbiddenException;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static java.time.Duration.ofDays;
+import static java.time.Duration.ofMinutes;
+import static java.time.Duration.ofSeconds;
+
+/**
+ * Provision multiple Kafka instances concurrently with a bounded parallelism.
+ * <p>
+ * When the cluster capacity is exhausted (KAFKAS-MGMT-24) all the pending creations are paused, not only the
+ * one that failed, and resumed with an exponential backoff until the capacity is freed, at which point the
+ * backoff is reset.
+ *
+ * <pre>{@code
+ * var orchestrator = new KafkaProvisioningOrchestrator(KafkaMgmtApiUtils.kafkaMgmtAsyncApi(vertx, uri, user), 3);
+ * var instances = bwait(orchestrator.provision(List.of(
+ *     KafkaMgmtApiUtils.defaultKafkaInstance("instance-1"),
+ *     KafkaMgmtApiUtils.defaultKafkaInstance("instance-2"))));
+ * }</pre>
+ */
+@Log4j2
+public class KafkaProvisioningOrchestrator {
+
+    private static final Duration MIN_CAPACITY_BACKOFF = ofSeconds(30);
+    private static final Duration MAX_CAPACITY_BACKOFF = ofMinutes(5);
+    private static final Duration CAPACITY_TIMEOUT = ofDays(1);
+
+    private final KafkaMgmtAsyncApi api;
+    private final int parallelism;
+
+    private final Deque<Task> pending = new ArrayDeque<>();
+    private int running = 0;
+    private Instant pausedUntil = Instant.MIN;
+    private Duration capacityBackoff = MIN_CAPACITY_BACKOFF;
+    private Long resumeTimer = null;
+
+    private static class Task {
+        private final KafkaRequestPayload payload;
+        private final Promise<KafkaRequest> promise = Promise.promise();
+        private final Instant capacityDeadline = Instant.now().plus(CAPACITY_TIMEOUT);
+
+        Task(KafkaRequestPayload payload) {
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * @param api         KafkaMgmtAsyncApi
+     * @param parallelism Max number of Kafka instances that are created or waited for at the same time
+     */
+    public KafkaProvisioningOrchestrator(KafkaMgmtAsyncApi api, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.api = Objects.requireNonNull(api);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Create all Kafka instances that don't exist yet and wait for all of them to be ready.
+     *
+     * @param payloads The Kafka instances to create
+     * @return Future with the ready Kafka instances in the same order of the payloads
+     */
+    public Future<List<KafkaRequest>> provision(List<KafkaRequestPayload> payloads) {
+        var tasks = payloads.stream().map(Task::new).collect(Collectors.toList());
+
+        synchronized (this) {
+            pending.addAll(tasks);
+        }
+        schedule();
+
+        return CompositeFuture.join(tasks.stream().map(t -> (Future) t.promise.future()).collect(Collectors.toList()))
+            .map(c -> tasks.stream().map(t -> t.promise.future().result()).collect(Collectors.toList()));
+    }
+
+    private void schedule() {
+        synchronized (this) {
+            var now = Instant.now();
+            if (now.isBefore(pausedUntil)) {
+                // all creations are paused until the cluster capacity is checked again
+                if (resumeTimer == null) {
+                    resumeTimer = api.getVertx().setTimer(Duration.between(now, pausedUntil).toMillis() + 1, __ -> {
+                        synchronized (this) {
+                            resumeTimer = null;
+                        }
+                        schedule();
+                    });
+                }
+                return;
+            }
+
+            while (running < parallelism && !pending.isEmpty()) {
+                var task = pending.poll();
+                running++;
+                start(task);
+            }
+        }
+    }
+
+    private void start(Task task) {
+        var name = task.payload.getName();
+
+        getKafkaByName(name)
+            .compose(existing -> {
+                if (existing != null) {
+                    log.warn("kafka instance '{}' already exists", name);
+                    return Future.succeededFuture(existing);
+                }
+                log.info("create kafka instance '{}'", name);
+                return api.createKafka(true, task.payload);
+            })
+            .compose(kafka -> {
+                onCapacityAvailable();
+                if ("ready".equals(kafka.getStatus())) {
+                    return Future.succeededFuture(kafka);
+                }
+                return KafkaMgmtApiUtils.waitUntilKafkaIsReady(api, kafka.getId());
+            })
+            .onComplete(r -> {
+                if (r.failed() && isClusterCapacityExhausted(r.cause()) && Instant.now().isBefore(task.capacityDeadline)) {
+                    onCapacityExhausted(task);
+                    return;
+                }
+
+                synchronized (this) {
+                    running--;
+                }
+                if (r.failed() && isClusterCapacityExhausted(r.cause())) {
+                    task.promise.fail(new KafkaClusterCapacityExhaustedException((ApiForbiddenException) r.cause()));
+                } else {
+                    task.promise.handle(r);
+                }
+                schedule();
+            });
+    }
+
+    private Future<KafkaRequest> getKafkaByName(String name) {
+        return api.getKafkas("1", "1", null, String.format("name = %s", name.trim()))
+            .map(list -> list.getItems().stream().findAny().orElse(null));
+    }
+
+    /**
+     * Put the task back at the head of the queue and pause all creations.
+     */
+    private void onCapacityExhausted(Task task) {
+        synchronized (this) {
+            running--;
+            pending.addFirst(task);
+
+            var now = Instant.now();
+            if (now.isAfter(pausedUntil)) {
+                pausedUntil = now.plus(capacityBackoff);
+                log.warn("cluster capacity exhausted while creating kafka instance '{}', pause all creations for {}",
+                    task.payload.getName(), capacityBackoff);
+
+                var next = capacityBackoff.multipliedBy(2);
+                capacityBackoff = next.compareTo(MAX_CAPACITY_BACKOFF) > 0 ? MAX_CAPACITY_BACKOFF : next;
+            }
+        }
+        schedule();
+    }
+
+    private synchronized void onCapacityAvailable() {
+        capacityBackoff = MIN_CAPACITY_BACKOFF;
+    }
+
+    private static boolean isClusterCapacityExhausted(Throwable t) {
+        if (t instanceof ApiForbiddenException) {
+            try {
+                return KafkaMgmtApiUtils.isClusterCapacityExhausted((ApiForbiddenException) t);
+            } catch (ApiForbiddenException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
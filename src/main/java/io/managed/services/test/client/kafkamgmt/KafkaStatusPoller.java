@@ -0,0 +1,338 @@
+package io.managed.services.test.client.kafkamgmt;
+
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import io.managed.services.test.Environment;
+import io.managed.services.test.client.exception.ApiNotFoundException;
+import io.managed.services.test.framework.StatusTransitionRecorder;
+import io.prometheus.client.Counter;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static java.time.Duration.ofMinutes;
+import static java.time.Duration.ofSeconds;
+
+/**
+ * Track the status of all the Kafka instances that are being waited for and refresh them all together
+ * with a single paged getKafkas call per tick instead of one getKafkaById call per instance.
+ * <p>
+ * The interval between the ticks adapts to the waiters: each waiter asks to be checked again after a tenth
+ * of the time it has been waiting for, bounded between 2 and 30 seconds, so that a short transition is
+ * detected quickly while a long provisioning doesn't flood the API. A random jitter is applied to each
+ * interval to avoid that multiple pollers hit the API at the same time.
+ * <p>
+ * The list is sorted by creation time so that the instances don't move between the pages, and the instances
+ * that are still missing from the list are looked up by id and considered deleted only if not found.
+ */
+@Log4j2
+public class KafkaStatusPoller {
+
+    private static final Counter LIST_REQUESTS = Counter.build()
+        .name("test_kafka_status_poller_list_requests")
+        .labelNames("launch")
+        .help("Number of getKafkas requests made by the Kafka status poller.")
+        .register();
+
+    static final Duration MIN_INTERVAL = ofSeconds(2);
+    static final Duration MAX_INTERVAL = ofSeconds(30);
+    static final int AGE_TO_INTERVAL_RATIO = 10;
+    static final double JITTER = 0.2;
+    static final int PAGE_SIZE = 100;
+    static final String ORDER_BY = "created_at asc";
+
+    private final KafkaMgmtAsyncApi api;
+
+    private final List<Waiter> waiters = new ArrayList<>();
+    private boolean polling = false;
+    private Long timer = null;
+    private Instant nextTick = Instant.MAX;
+
+    private static class Waiter {
+        private final String id;
+        private final String description;
+        private final Predicate<Optional<KafkaRequest>> done;
+        private final BiFunction<KafkaRequest, TimeoutException, Throwable> timeoutError;
+        private final Instant start = Instant.now();
+        private final Instant deadline;
+        private final Promise<Optional<KafkaRequest>> promise = Promise.promise();
+        private KafkaRequest last;
+        private Optional<KafkaRequest> result;
+        private Throwable error;
+
+        Waiter(String id, String description, Duration timeout,
+               Predicate<Optional<KafkaRequest>> done,
+               BiFunction<KafkaRequest, TimeoutException, Throwable> timeoutError) {
+
+            this.id = id;
+            this.description = description;
+            this.deadline = start.plus(timeout);
+            this.done = done;
+            this.timeoutError = timeoutError;
+        }
+
+        Duration interval(Instant now) {
+            var i = Duration.between(start, now).dividedBy(AGE_TO_INTERVAL_RATIO);
+            if (i.compareTo(MIN_INTERVAL) < 0) {
+                return MIN_INTERVAL;
+            }
+            return i.compareTo(MAX_INTERVAL) > 0 ? MAX_INTERVAL : i;
+        }
+
+        /**
+         * @return true if the waiter is finished and must be completed with {@link #complete()}
+         */
+        boolean check(Optional<KafkaRequest> kafka, Instant now) {
+            if (kafka.isPresent()) {
+                log.debug(kafka.get());
+                KafkaMgmtApiUtils.recordStatus(kafka.get());
+                last = kafka.get();
+            } else if (last != null) {
+                StatusTransitionRecorder.of(KafkaMgmtApiUtils.KAFKA_SERVICE, id).observe(StatusTransitionRecorder.GONE);
+            }
+
+            boolean isDone;
+            try {
+                isDone = done.test(kafka);
+            } catch (RuntimeException e) {
+                error = e;
+                return true;
+            }
+
+            if (isDone) {
+                result = kafka;
+                return true;
+            }
+            return checkDeadline(now);
+        }
+
+        /**
+         * @return true if the waiter is timed out and must be completed with {@link #complete()}
+         */
+        boolean checkDeadline(Instant now) {
+            if (now.isAfter(deadline)) {
+                var e = new TimeoutException(String.format("timeout after %s waiting for %s", Duration.between(start, now), description));
+                error = last == null ? e : timeoutError.apply(last, e);
+                return true;
+            }
+            return false;
+        }
+
+        void complete() {
+            if (error != null) {
+                promise.fail(error);
+            } else {
+                promise.complete(result);
+            }
+        }
+    }
+
+    public KafkaStatusPoller(KafkaMgmtAsyncApi api) {
+        this.api = Objects.requireNonNull(api);
+    }
+
+    /**
+     * @param kafkaID Kafka instance id
+     * @return Future that completes with the KafkaRequest once it is ready or fails with KafkaNotReadyException
+     * if it fails or times out
+     */
+    public Future<KafkaRequest> waitUntilReady(String kafkaID) {
+        return waitFor(kafkaID, "kafka instance to be ready", ofMinutes(30),
+            k -> k.isEmpty() || "ready".equals(k.get().getStatus()) || "failed".equals(k.get().getStatus()),
+            KafkaNotReadyException::new)
+            .compose(k -> {
+                if (k.isEmpty()) {
+                    return Future.failedFuture(new IllegalStateException(
+                        String.format("kafka instance '%s' doesn't exist", kafkaID)));
+                }
+                if ("failed".equals(k.get().getStatus())) {
+                    return Future.failedFuture(new KafkaNotReadyException(k.get()));
+                }
+                return Future.succeededFuture(k.get());
+            });
+    }
+
+    /**
+     * @param kafkaID Kafka instance id
+     * @return Future that completes with the KafkaRequest once it is not accepted anymore
+     */
+    public Future<KafkaRequest> waitUntilProvisioning(String kafkaID) {
+        return waitFor(kafkaID, "kafka instance to start provisioning", Duration.ofDays(1),
+            k -> k.isEmpty() || !"accepted".equals(k.get().getStatus()),
+            KafkaUnprovisionedException::new)
+            .compose(k -> {
+                if (k.isEmpty()) {
+                    return Future.failedFuture(new IllegalStateException(
+                        String.format("kafka instance '%s' doesn't exist", kafkaID)));
+                }
+                return Future.succeededFuture(k.get());
+            });
+    }
+
+    /**
+     * @param kafkaID Kafka instance id
+     * @return Future that completes once the Kafka instance doesn't exist anymore
+     */
+    public Future<Void> waitUntilDeleted(String kafkaID) {
+        return waitFor(kafkaID, "kafka instance to be deleted", ofMinutes(10), Optional::isEmpty,
+            KafkaNotDeletedException::new)
+            .mapEmpty();
+    }
+
+    /**
+     * Register a waiter that is completed on the first tick in which the done predicate returns true.
+     *
+     * @param kafkaID      Kafka instance id
+     * @param description  What is being waited for
+     * @param timeout      Max time to wait for
+     * @param done         Receives the last status of the Kafka instance or empty if it doesn't exist
+     * @param timeoutError Builds the error from the last seen Kafka instance in case of timeout
+     * @return Future with the Kafka instance status that satisfied the predicate
+     */
+    public Future<Optional<KafkaRequest>> waitFor(
+        String kafkaID,
+        String description,
+        Duration timeout,
+        Predicate<Optional<KafkaRequest>> done,
+        BiFunction<KafkaRequest, TimeoutException, Throwable> timeoutError) {
+
+        var waiter = new Waiter(Objects.requireNonNull(kafkaID), description, timeout, done, timeoutError);
+        synchronized (this) {
+            waiters.add(waiter);
+            if (!polling) {
+                // a new waiter should be checked soon even if the others are being checked rarely
+                scheduleTick(MIN_INTERVAL);
+            }
+        }
+        return waiter.promise.future();
+    }
+
+    /**
+     * @return The number of waiters that are not completed yet
+     */
+    public synchronized int pending() {
+        return waiters.size();
+    }
+
+    private synchronized void scheduleTick(Duration interval) {
+        var jitter = 1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        var delay = Math.max(1, (long) (interval.toMillis() * jitter));
+        var at = Instant.now().plusMillis(delay);
+
+        if (timer != null) {
+            if (!at.isBefore(nextTick)) {
+                return;
+            }
+            api.getVertx().cancelTimer(timer);
+        }
+
+        nextTick = at;
+        timer = api.getVertx().setTimer(delay, __ -> tick());
+    }
+
+    private void tick() {
+        Set<String> ids;
+        synchronized (this) {
+            timer = null;
+            nextTick = Instant.MAX;
+            if (waiters.isEmpty()) {
+                return;
+            }
+            polling = true;
+            ids = waiters.stream().map(w -> w.id).collect(Collectors.toSet());
+        }
+
+        listKafkas(ids, 1, new HashMap<>()).compose(found -> confirmMissing(ids, found)).onComplete(r -> {
+            if (r.failed()) {
+                log.warn("failed to list the kafka instances: {}", r.cause().getMessage());
+            }
+
+            var now = Instant.now();
+            var finished = new ArrayList<Waiter>();
+            synchronized (this) {
+                polling = false;
+
+                for (var w : waiters) {
+                    // the waiters registered while the list was in flight are checked by the next tick because
+                    // their instances haven't been listed
+                    var listed = r.succeeded() && ids.contains(w.id);
+                    var f = listed ? w.check(Optional.ofNullable(r.result().get(w.id)), now) : w.checkDeadline(now);
+                    if (f) {
+                        finished.add(w);
+                    }
+                }
+                waiters.removeAll(finished);
+
+                waiters.stream()
+                    .map(w -> w.interval(now))
+                    .min(Duration::compareTo)
+                    .ifPresent(this::scheduleTick);
+            }
+
+            // complete the waiters outside the lock because their listeners run synchronously and can
+            // register new waiters
+            finished.forEach(Waiter::complete);
+        });
+    }
+
+    /**
+     * List all Kafka instances page by page until all the requested ones have been found.
+     */
+    private Future<Map<String, KafkaRequest>> listKafkas(Set<String> ids, int page, Map<String, KafkaRequest> found) {
+        LIST_REQUESTS.labels(Environment.LAUNCH_KEY).inc();
+        return api.getKafkas(String.valueOf(page), String.valueOf(PAGE_SIZE), ORDER_BY, null)
+            .compose(list -> {
+                var items = list.getItems();
+                items.stream()
+                    .filter(k -> ids.contains(k.getId()))
+                    .forEach(k -> found.put(k.getId(), k));
+
+                var total = list.getTotal() == null ? 0 : list.getTotal();
+                if (found.size() == ids.size() || items.size() < PAGE_SIZE || page * PAGE_SIZE >= total) {
+                    return Future.succeededFuture(found);
+                }
+                return listKafkas(ids, page + 1, found);
+            });
+    }
+
+    /**
+     * Look up by id the Kafka instances that are missing from the list, because an instance can still be
+     * missed if it is deleted and another one created between two pages.
+     */
+    private Future<Map<String, KafkaRequest>> confirmMissing(Set<String> ids, Map<String, KafkaRequest> found) {
+        var missing = ids.stream().filter(id -> !found.containsKey(id)).collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return Future.succeededFuture(found);
+        }
+
+        List<Future> lookups = missing.stream()
+            .map(id -> api.getKafkaById(id)
+                .recover(t -> t instanceof ApiNotFoundException ? Future.succeededFuture(null) : Future.failedFuture(t)))
+            .collect(Collectors.toList());
+
+        return CompositeFuture.all(lookups).map(c -> {
+            for (var i = 0; i < missing.size(); i++) {
+                KafkaRequest k = c.resultAt(i);
+                if (k != null) {
+                    found.put(missing.get(i), k);
+                }
+            }
+            return found;
+        });
+    }
+}
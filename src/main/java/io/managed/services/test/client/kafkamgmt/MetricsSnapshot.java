@@ -0,0 +1,158 @@
+package io.managed.services.test.client.kafkamgmt;
+
+import com.openshift.cloud.api.kas.models.InstantQuery;
+import io.managed.services.test.client.exception.ApiGenericException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.Set;
+
+/**
+ * Point in time copy of the Kafka instance metrics returned by the instant query API, indexed by metric name,
+ * topic and the remaining labels, with the sums per metric and per topic computed once.
+ * <p>
+ * Two snapshots can be diffed to assert the increase of a metric since the first snapshot:
+ *
+ * <pre>{@code
+ * var before = MetricsSnapshot.of(api, kafka.getId());
+ * // produce messages
+ * var increase = MetricsSnapshot.of(api, kafka.getId()).diff(before).sum(IN_MESSAGES_METRIC, topic);
+ * }</pre>
+ */
+public class MetricsSnapshot {
+
+    private static final String NAME_LABEL = "__name__";
+    private static final String TOPIC_LABEL = "topic";
+
+    /**
+     * All series of a metric for a topic, or without topic if the metric doesn't have the topic label.
+     */
+    private static class TopicSeries {
+        private final Map<Map<String, String>, Double> values = new HashMap<>();
+        private double sum = 0;
+
+        private void add(Map<String, String> labels, double value) {
+            values.merge(labels, value, Double::sum);
+            sum += value;
+        }
+    }
+
+    private static class Metric {
+        private final Map<String, TopicSeries> topics = new HashMap<>();
+        private double sum = 0;
+
+        private void add(String topic, Map<String, String> labels, double value) {
+            topics.computeIfAbsent(topic, __ -> new TopicSeries()).add(labels, value);
+            sum += value;
+        }
+    }
+
+    private final Map<String, Metric> metrics = new HashMap<>();
+
+    private MetricsSnapshot() {
+    }
+
+    public static MetricsSnapshot of(List<InstantQuery> items) {
+        Objects.requireNonNull(items);
+
+        var snapshot = new MetricsSnapshot();
+        for (var item : items) {
+            if (item.getMetric() == null || item.getValue() == null) {
+                continue;
+            }
+
+            var labels = new HashMap<>(item.getMetric());
+            var name = labels.remove(NAME_LABEL);
+            if (name == null) {
+                continue;
+            }
+            var topic = labels.remove(TOPIC_LABEL);
+
+            snapshot.add(name, topic, Collections.unmodifiableMap(labels), item.getValue());
+        }
+        return snapshot;
+    }
+
+    public static MetricsSnapshot of(KafkaMgmtApi api, String kafkaId) throws ApiGenericException {
+        return of(api.getMetricsByInstantQuery(kafkaId, null).getItems());
+    }
+
+    private void add(String name, String topic, Map<String, String> labels, double value) {
+        metrics.computeIfAbsent(name, __ -> new Metric()).add(topic, labels, value);
+    }
+
+    /**
+     * @return The sum of all series of the metric
+     */
+    public double sum(String name) {
+        var metric = metrics.get(name);
+        return metric == null ? 0 : metric.sum;
+    }
+
+    /**
+     * @return The sum of all series of the metric for the topic
+     */
+    public double sum(String name, String topic) {
+        var metric = metrics.get(name);
+        if (metric == null) {
+            return 0;
+        }
+        var series = metric.topics.get(topic);
+        return series == null ? 0 : series.sum;
+    }
+
+    /**
+     * @param name   Metric name
+     * @param topic  Topic name or null for the metrics without topic
+     * @param labels All the other labels of the series
+     * @return The value of a single series
+     */
+    public OptionalDouble value(String name, String topic, Map<String, String> labels) {
+        var metric = metrics.get(name);
+        var series = metric == null ? null : metric.topics.get(topic);
+        var value = series == null ? null : series.values.get(labels);
+        return value == null ? OptionalDouble.empty() : OptionalDouble.of(value);
+    }
+
+    public Set<String> names() {
+        return Collections.unmodifiableSet(metrics.keySet());
+    }
+
+    public Set<String> topics(String name) {
+        var metric = metrics.get(name);
+        return metric == null ? Set.of() : Collections.unmodifiableSet(metric.topics.keySet());
+    }
+
+    /**
+     * Compute the change of each series from the previous snapshot, a series missing in one of the two
+     * snapshots counts as zero in that snapshot.
+     *
+     * @param previous The snapshot taken before this one
+     * @return A snapshot with the difference between this and the previous snapshot for each series
+     */
+    public MetricsSnapshot diff(MetricsSnapshot previous) {
+        var diff = new MetricsSnapshot();
+        forEach(diff::add);
+        previous.forEach((name, topic, labels, value) -> diff.add(name, topic, labels, -value));
+        return diff;
+    }
+
+    @FunctionalInterface
+    private interface SeriesConsumer {
+        void accept(String name, String topic, Map<String, String> labels, double value);
+    }
+
+    private void forEach(SeriesConsumer consumer) {
+        metrics.forEach((name, metric) -> metric.topics.forEach((topic, series) -> series.values.forEach(
+            (labels, value) -> consumer.accept(name, topic, labels, value))));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("snapshot of %d metrics", metrics.size());
+    }
+}
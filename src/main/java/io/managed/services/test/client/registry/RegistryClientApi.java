@@ -23,7 +23,7 @@ public class RegistryClientApi extends BaseApi {
     private final BearerAuth bearerAuth;
 
     public RegistryClientApi(String baseUrl, KeycloakUser user) {
-        super(user);
+        super(user, baseUrl);
         this.bearerAuth = new BearerAuth();
         this.registryClient = RegistryClientFactory.create(baseUrl, new HashMap<>(), bearerAuth);
     }
@@ -18,7 +18,7 @@ public class RegistryMgmtApi extends BaseApi {
     private final RegistriesApi registriesApi;
 
     public RegistryMgmtApi(ApiClient apiClient, KeycloakUser user) {
-        super(user);
+        super(user, apiClient.getBasePath());
         this.apiClient = apiClient;
         this.registriesApi = new RegistriesApi(apiClient);
     }
@@ -38,7 +38,11 @@ public class RegistryMgmtApi extends BaseApi {
     }
 
     public Registry createRegistry(RegistryCreate registryCreateRest) throws ApiGenericException {
-        return retry(() -> registriesApi.createRegistry(registryCreateRest));
+        try {
+            return retry(() -> registriesApi.createRegistry(registryCreateRest));
+        } finally {
+            RegistryMgmtApiUtils.invalidateRegistryByName(registryCreateRest.getName());
+        }
     }
 
     public Registry getRegistry(String id) throws ApiGenericException {
@@ -50,6 +54,10 @@ public class RegistryMgmtApi extends BaseApi {
     }
 
     public void deleteRegistry(String id) throws ApiGenericException {
-        retry(() -> registriesApi.deleteRegistry(id));
+        try {
+            retry(() -> registriesApi.deleteRegistry(id));
+        } finally {
+            RegistryMgmtApiUtils.invalidateRegistryById(id);
+        }
     }
 }
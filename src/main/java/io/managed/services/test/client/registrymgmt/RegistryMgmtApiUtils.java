@@ -7,19 +7,29 @@ import com.openshift.cloud.api.srs.models.RegistryList;
 import io.managed.services.test.Environment;
 import io.managed.services.test.ThrowingFunction;
 import io.managed.services.test.ThrowingSupplier;
+import io.managed.services.test.client.PagedIterator;
+import io.managed.services.test.client.SdkHttpTransport;
+import io.managed.services.test.client.TtlCache;
 import io.managed.services.test.client.exception.ApiGenericException;
 import io.managed.services.test.client.exception.ApiNotFoundException;
 import io.managed.services.test.client.oauth.KeycloakLoginSession;
 import io.managed.services.test.client.oauth.KeycloakUser;
+import io.managed.services.test.framework.StatusTransitionRecorder;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.Json;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.javatuples.Pair;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static io.managed.services.test.TestUtils.waitFor;
 import static java.time.Duration.ofMinutes;
@@ -27,6 +37,11 @@ import static java.time.Duration.ofSeconds;
 
 public class RegistryMgmtApiUtils {
     private static final Logger LOGGER = LogManager.getLogger(RegistryMgmtApiUtils.class);
+    private static final String REGISTRY_SERVICE = "registry";
+
+    // the cache is keyed also by the api because each user sees different registries
+    private static final TtlCache<Pair<RegistryMgmtApi, String>, RegistryList> REGISTRY_BY_NAME =
+        new TtlCache<>("registry_by_name", Duration.ofSeconds(Environment.MGMT_LOOKUP_CACHE_TTL));
 
     @Deprecated
     public static Future<RegistryMgmtApi> registryMgmtApi(String username, String password) {
@@ -45,7 +60,9 @@ public class RegistryMgmtApiUtils {
     }
 
     public static RegistryMgmtApi registryMgmtApi(String uri, KeycloakUser user) {
-        return new RegistryMgmtApi(new ApiClient().setBasePath(uri), user);
+        var client = new ApiClient();
+        client.setHttpClient(SdkHttpTransport.httpClient(client.getJSON()));
+        return new RegistryMgmtApi(client.setBasePath(uri), user);
     }
 
     /**
@@ -89,6 +106,15 @@ public class RegistryMgmtApiUtils {
         return registry;
     }
 
+    /**
+     * Record the status of the Registry instance to measure the time spent in each provisioning phase.
+     */
+    private static void recordStatus(Registry registry) {
+        if (registry.getId() != null && registry.getStatus() != null) {
+            StatusTransitionRecorder.of(REGISTRY_SERVICE, registry.getId()).observe(registry.getStatus().getValue(), registry.getCreatedAt());
+        }
+    }
+
     /**
      * Function that returns Registry only if status is in ready
      *
@@ -111,6 +137,7 @@ public class RegistryMgmtApiUtils {
             registryAtom.set(registry);
 
             LOGGER.debug(registry);
+            recordStatus(registry);
             return "ready".equals(registry.getStatus().getValue());
         };
 
@@ -134,14 +161,19 @@ public class RegistryMgmtApiUtils {
     public static void deleteRegistryByNameIfExists(RegistryMgmtApi api, String name) throws ApiGenericException {
 
         // Attention: this deletes all registries with the given name
-        var registries = getRegistryByName(api, name);
+        List<Registry> registries;
+        try (var stream = streamRegistries(api, String.format("name = %s", name), PagedIterator.DEFAULT_PAGE_SIZE)) {
+            registries = stream.collect(Collectors.toList());
+        } catch (PagedIterator.PageFetchException e) {
+            throw e.getCause();
+        }
 
-        if (registries.getItems().isEmpty()) {
+        if (registries.isEmpty()) {
             LOGGER.warn("registry '{}' not found", name);
         }
 
         // TODO: refactor after the names are unique: https://github.com/bf2fc6cc711aee1a0c2a/srs-fleet-manager/issues/75
-        for (var r : registries.getItems()) {
+        for (var r : registries) {
             LOGGER.info("delete registry: {}", r.getId());
             api.deleteRegistry(r.getId());
         }
@@ -172,11 +204,15 @@ public class RegistryMgmtApiUtils {
         ThrowingFunction<Boolean, Boolean, T> ready = l -> {
             var exists = supplier.get();
             if (exists.isEmpty()) {
+                if (registryAtom.get() != null) {
+                    StatusTransitionRecorder.of(REGISTRY_SERVICE, registryAtom.get().getId()).observe(StatusTransitionRecorder.GONE);
+                }
                 return true;
             }
 
             var registry = exists.get();
             LOGGER.debug(registry);
+            recordStatus(registry);
             registryAtom.set(registry);
             return false;
         };
@@ -192,6 +228,32 @@ public class RegistryMgmtApiUtils {
     public static RegistryList getRegistryByName(RegistryMgmtApi api, String name) throws ApiGenericException {
 
         // Attention: we support only 10 registries until the name doesn't become unique
-        return api.getRegistries(1, 10, null, String.format("name = %s", name));
+        // missing registries and registries in a transient status are not cached because they change without notice
+        return REGISTRY_BY_NAME.get(Pair.with(api, name),
+            () -> api.getRegistries(1, 10, null, String.format("name = %s", name)),
+            l -> !l.getItems().isEmpty() && l.getItems().stream().allMatch(r -> r.getStatus() != null && "ready".equals(r.getStatus().getValue())));
+    }
+
+    /**
+     * Lazily stream all the registries visible to the user, page by page.
+     *
+     * @param api      RegistryMgmtApi
+     * @param search   The search query or null
+     * @param pageSize The number of registries fetched per request
+     * @return Stream of Registry that should be closed if not fully consumed
+     */
+    public static Stream<Registry> streamRegistries(RegistryMgmtApi api, String search, int pageSize) {
+        return PagedIterator.stream((page, size) -> {
+            var list = api.getRegistries(page, size, null, search);
+            return new PagedIterator.Page<>(list.getItems(), list.getTotal());
+        }, pageSize);
+    }
+
+    static void invalidateRegistryByName(String name) {
+        REGISTRY_BY_NAME.invalidateIf((k, v) -> k.getValue1().equals(name));
+    }
+
+    static void invalidateRegistryById(String id) {
+        REGISTRY_BY_NAME.invalidateIf((k, v) -> v.getItems().stream().anyMatch(r -> Objects.equals(r.getId(), id)));
     }
 }
@@ -5,20 +5,35 @@ import com.openshift.cloud.api.kas.invoker.ApiClient;
 import com.openshift.cloud.api.kas.models.ServiceAccount;
 import com.openshift.cloud.api.kas.models.ServiceAccountListItem;
 import com.openshift.cloud.api.kas.models.ServiceAccountRequest;
+import io.managed.services.test.Environment;
+import io.managed.services.test.client.PagedIterator;
+import io.managed.services.test.client.SdkHttpTransport;
+import io.managed.services.test.client.TtlCache;
 import io.managed.services.test.client.exception.ApiGenericException;
 import io.managed.services.test.client.oauth.KeycloakUser;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.javatuples.Pair;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 public class SecurityMgmtAPIUtils {
     private static final Logger LOGGER = LogManager.getLogger(SecurityMgmtAPIUtils.class);
 
+    // the cache is keyed also by the api because each user sees different service accounts
+    private static final TtlCache<Pair<SecurityMgmtApi, String>, Optional<ServiceAccountListItem>> SERVICE_ACCOUNT_BY_NAME =
+        new TtlCache<>("service_account_by_name", Duration.ofSeconds(Environment.MGMT_LOOKUP_CACHE_TTL));
+
     public static SecurityMgmtApi securityMgmtApi(String uri, KeycloakUser user) {
-        return new SecurityMgmtApi(new ApiClient().setBasePath(uri), user);
+        var client = new ApiClient();
+        client.setHttpClient(SdkHttpTransport.httpClient(client.getJSON()));
+        return new SecurityMgmtApi(client.setBasePath(uri), user);
     }
 
     /**
@@ -31,8 +46,38 @@ public class SecurityMgmtAPIUtils {
     public static Optional<ServiceAccountListItem> getServiceAccountByName(SecurityMgmtApi api, String name)
         throws ApiGenericException {
 
-        var list = api.getServiceAccounts();
-        return list.getItems().stream().filter(a -> name.equals(a.getName())).findAny();
+        // missing service accounts are not cached because they could be created by another test
+        return SERVICE_ACCOUNT_BY_NAME.get(Pair.with(api, name), () -> {
+            var list = api.getServiceAccounts();
+            return list.getItems().stream().filter(a -> name.equals(a.getName())).findAny();
+        }, Optional::isPresent);
+    }
+
+    /**
+     * Lazily stream all the service accounts visible to the user.
+     * <p>
+     * The service accounts endpoint is not paginated, therefore all of them are fetched with a single
+     * request, but the stream is still lazy so that the callers don't depend on that.
+     *
+     * @param api SecurityMgmtApi
+     * @return Stream of ServiceAccountListItem
+     */
+    public static Stream<ServiceAccountListItem> streamServiceAccounts(SecurityMgmtApi api) {
+        return PagedIterator.stream((page, size) -> {
+            if (page > 1) {
+                return new PagedIterator.Page<>(List.of(), null);
+            }
+            var list = api.getServiceAccounts().getItems();
+            return new PagedIterator.Page<>(list, list.size());
+        }, PagedIterator.DEFAULT_PAGE_SIZE);
+    }
+
+    static void invalidateServiceAccountByName(String name) {
+        SERVICE_ACCOUNT_BY_NAME.invalidateIf((k, v) -> k.getValue1().equals(name));
+    }
+
+    static void invalidateServiceAccountById(String id) {
+        SERVICE_ACCOUNT_BY_NAME.invalidateIf((k, v) -> v.isPresent() && Objects.equals(v.get().getId(), id));
     }
 
     /**
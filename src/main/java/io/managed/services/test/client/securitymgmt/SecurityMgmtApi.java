@@ -18,7 +18,7 @@ public class SecurityMgmtApi extends BaseApi {
     private final SecurityApi api;
 
     public SecurityMgmtApi(ApiClient apiClient, KeycloakUser user) {
-        super(user);
+        super(user, apiClient.getBasePath());
         this.apiClient = apiClient;
         this.api = new SecurityApi(apiClient);
     }
@@ -47,15 +47,27 @@ public class SecurityMgmtApi extends BaseApi {
     }
 
     public ServiceAccount createServiceAccount(ServiceAccountRequest serviceAccountRequest) throws ApiGenericException {
-        return retry(() -> api.createServiceAccount(serviceAccountRequest));
+        try {
+            return retry(() -> api.createServiceAccount(serviceAccountRequest));
+        } finally {
+            SecurityMgmtAPIUtils.invalidateServiceAccountByName(serviceAccountRequest.getName());
+        }
     }
 
     public void deleteServiceAccountById(String id) throws ApiGenericException {
         // TODO: why does it return Error
-        retry(() -> api.deleteServiceAccountById(id));
+        try {
+            retry(() -> api.deleteServiceAccountById(id));
+        } finally {
+            SecurityMgmtAPIUtils.invalidateServiceAccountById(id);
+        }
     }
 
     public ServiceAccount resetServiceAccountCreds(String id) throws ApiGenericException {
-        return retry(() -> api.resetServiceAccountCreds(id));
+        try {
+            return retry(() -> api.resetServiceAccountCreds(id));
+        } finally {
+            SecurityMgmtAPIUtils.invalidateServiceAccountById(id);
+        }
     }
 }
@@ -0,0 +1,139 @@
+package io.managed.services.test.framework;
+
+import io.managed.services.test.Environment;
+import io.prometheus.client.Histogram;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Record the status transitions of a managed service instance (accepted → preparing → provisioning → ready
+ * → deleting → gone) observed by the wait helpers and publish the time spent in each status to Prometheus,
+ * so that each run pushed by the {@link PrometheusSuiteListener} adds a data point to the provisioning latency.
+ * <p>
+ * The recorder of an instance is shared by all the wait helpers through {@link #of(String, String)}, so the
+ * transitions are tracked across multiple waits (e.g. wait until provisioning and then until ready).
+ * Because the statuses are polled, each duration is accurate to the polling interval.
+ * <p>
+ * The time spent ready is not published because it is the runtime of the tests rather than a provisioning
+ * phase, and the time until ready is published only for the instances that were seen before being ready,
+ * so that the reused, pooled and pre-existing instances don't report their whole age.
+ */
+@Log4j2
+public class StatusTransitionRecorder {
+
+    public static final String GONE = "gone";
+    private static final String READY = "ready";
+    private static final Set<String> PROVISIONING = Set.of("accepted", "preparing", "provisioning");
+
+    private static final Histogram PHASE_DURATION = Histogram.build()
+        .name("test_provisioning_phase_duration_seconds")
+        .labelNames("launch", "service", "phase")
+        .buckets(1, 5, 10, 30, 60, 120, 300, 600, 900, 1200, 1800, 3600)
+        .help("Time spent by a managed service instance in each status, observed when it moves to the next status.")
+        .register();
+
+    private static final Histogram READY_DURATION = Histogram.build()
+        .name("test_provisioning_ready_seconds")
+        .labelNames("launch", "service")
+        .buckets(30, 60, 120, 300, 600, 900, 1200, 1800, 2700, 3600)
+        .help("Time from the creation of a managed service instance until it is observed ready.")
+        .register();
+
+    private static final Histogram DNS_RESOLUTION = Histogram.build()
+        .name("test_provisioning_dns_resolution_seconds")
+        .labelNames("launch", "service")
+        .buckets(0.1, 1, 5, 10, 30, 60, 120, 300)
+        .help("Time from when a managed service instance is ready until all its hosts can be resolved.")
+        .register();
+
+    private static final Histogram HOST_RESOLUTION = Histogram.build()
+        .name("test_provisioning_dns_host_resolution_seconds")
+        .labelNames("launch", "service", "host")
+        .buckets(0.1, 1, 5, 10, 30, 60, 120, 300)
+        .help("Time from when a managed service instance is ready until each of its hosts (e.g. bootstrap, broker-0) can be resolved.")
+        .register();
+
+    private static final Map<String, StatusTransitionRecorder> RECORDERS = new ConcurrentHashMap<>();
+
+    private final String service;
+    private final String id;
+    private String status;
+    private Instant since;
+    private boolean provisioningObserved = false;
+    private boolean readyObserved = false;
+
+    private StatusTransitionRecorder(String service, String id) {
+        this.service = service;
+        this.id = id;
+    }
+
+    /**
+     * @param service The kind of the managed service (e.g. kafka, registry)
+     * @param id      The instance id
+     * @return The recorder of the instance
+     */
+    public static StatusTransitionRecorder of(String service, String id) {
+        Objects.requireNonNull(id);
+        return RECORDERS.computeIfAbsent(service + "/" + id, __ -> new StatusTransitionRecorder(service, id));
+    }
+
+    /**
+     * Record the last polled status and, if it changed, the time spent in the previous status.
+     *
+     * @param status    The current status or {@link #GONE} if the instance doesn't exist anymore
+     * @param createdAt The creation time of the instance if known, used to measure the time until ready
+     */
+    public synchronized void observe(String status, OffsetDateTime createdAt) {
+        if (status == null || status.equals(this.status)) {
+            return;
+        }
+
+        var now = Instant.now();
+        if (this.status != null) {
+            var duration = Duration.between(since, now);
+            if (!READY.equals(this.status)) {
+                PHASE_DURATION.labels(Environment.LAUNCH_KEY, service, this.status).observe(duration.toMillis() / 1000.0);
+            }
+            log.info("{} '{}' moved from '{}' to '{}' after {}", service, id, this.status, status, duration);
+        }
+
+        // an instance never seen before being ready was provisioned before being observed
+        if (PROVISIONING.contains(status)) {
+            provisioningObserved = true;
+        }
+        if (READY.equals(status) && !readyObserved && provisioningObserved && createdAt != null) {
+            readyObserved = true;
+            var duration = Duration.between(createdAt.toInstant(), now);
+            READY_DURATION.labels(Environment.LAUNCH_KEY, service).observe(duration.toMillis() / 1000.0);
+        }
+
+        this.status = status;
+        this.since = now;
+
+        if (GONE.equals(status)) {
+            RECORDERS.remove(service + "/" + id);
+        }
+    }
+
+    public void observe(String status) {
+        observe(status, null);
+    }
+
+    public static void observeDnsResolution(String service, Duration duration) {
+        DNS_RESOLUTION.labels(Environment.LAUNCH_KEY, service).observe(duration.toMillis() / 1000.0);
+    }
+
+    /**
+     * @param host The role of the host (e.g. bootstrap, admin-server, broker-0) rather than its name
+     */
+    public static void observeHostResolution(String service, String host, Duration duration) {
+        HOST_RESOLUTION.labels(Environment.LAUNCH_KEY, service, host).observe(duration.toMillis() / 1000.0);
+    }
+}
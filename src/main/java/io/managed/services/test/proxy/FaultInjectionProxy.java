@@ -0,0 +1,270 @@
+package io.managed.services.test.proxy;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.NetSocket;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process TCP proxy that forwards every accepted connection to a single upstream address and
+ * degrades the forwarded traffic with the currently injected {@link NetworkFault}.
+ * <p>
+ * Any client can be routed through the proxy by replacing the upstream address with {@link #getAddress()},
+ * like the URI passed to a {@link io.managed.services.test.client.BaseVertxClient} or the bootstrap host
+ * passed to the Kafka clients. For Kafka the brokers must advertise the proxy address as well, otherwise
+ * only the bootstrap connection will go through the proxy, which means it is meant to be used with a local
+ * stand-in broker.
+ */
+@Log4j2
+public class FaultInjectionProxy {
+
+    // pause reading from the source when more than this amount of bytes is waiting to be delivered
+    private static final long MAX_PENDING_BYTES = 1024 * 1024;
+
+    private final Vertx vertx;
+    private final String upstreamHost;
+    private final int upstreamPort;
+    private final NetServer server;
+    private final NetClient client;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong forwardedBytes = new AtomicLong();
+    private final AtomicLong droppedBytes = new AtomicLong();
+
+    private volatile NetworkFault fault = NetworkFault.none();
+
+    private FaultInjectionProxy(Vertx vertx, String upstreamHost, int upstreamPort) {
+        this.vertx = Objects.requireNonNull(vertx);
+        this.upstreamHost = Objects.requireNonNull(upstreamHost);
+        this.upstreamPort = upstreamPort;
+        this.server = vertx.createNetServer(new NetServerOptions().setHost("localhost").setPort(0));
+        this.client = vertx.createNetClient(new NetClientOptions().setConnectTimeout(10_000));
+    }
+
+    /**
+     * Start a proxy listening on a random local port that forwards all connections to the upstream address.
+     *
+     * @param vertx        Vertx
+     * @param upstreamHost The host of the real or stand-in server
+     * @param upstreamPort The port of the real or stand-in server
+     * @return Future that completes once the proxy is listening
+     */
+    public static Future<FaultInjectionProxy> start(Vertx vertx, String upstreamHost, int upstreamPort) {
+        var proxy = new FaultInjectionProxy(vertx, upstreamHost, upstreamPort);
+        return proxy.server.connectHandler(proxy::accept).listen()
+            .onSuccess(s -> log.info("fault injection proxy listening on {} for {}:{}", proxy.getAddress(), upstreamHost, upstreamPort))
+            .map(__ -> proxy);
+    }
+
+    public String getHost() {
+        return "localhost";
+    }
+
+    public int getPort() {
+        return server.actualPort();
+    }
+
+    public String getAddress() {
+        return getHost() + ":" + getPort();
+    }
+
+    public NetworkFault getFault() {
+        return fault;
+    }
+
+    public int getOpenConnections() {
+        return connections.size();
+    }
+
+    public long getForwardedBytes() {
+        return forwardedBytes.get();
+    }
+
+    public long getDroppedBytes() {
+        return droppedBytes.get();
+    }
+
+    /**
+     * Replace the current fault with the passed one, the fault is applied immediately also to the
+     * connections that are already open.
+     *
+     * @param fault NetworkFault
+     */
+    public void inject(NetworkFault fault) {
+        log.info("inject network fault '{}' on proxy {}", fault, getAddress());
+        this.fault = Objects.requireNonNull(fault);
+
+        if (fault.isReset()) {
+            connections.forEach(Connection::reset);
+        }
+    }
+
+    /**
+     * Stop degrading the traffic.
+     */
+    public void clear() {
+        inject(NetworkFault.none());
+    }
+
+    public Future<Void> close() {
+        connections.forEach(Connection::reset);
+        return server.close().eventually(__ -> client.close());
+    }
+
+    private void accept(NetSocket downstream) {
+        if (fault.isReset()) {
+            log.debug("refuse connection from {}", downstream.remoteAddress());
+            downstream.close();
+            return;
+        }
+
+        // don't read anything until the upstream connection is ready
+        downstream.pause();
+        client.connect(upstreamPort, upstreamHost)
+            .onSuccess(upstream -> {
+                var connection = new Connection(downstream, upstream);
+                connections.add(connection);
+                connection.start();
+            })
+            .onFailure(e -> {
+                log.warn("failed to connect to upstream {}:{}: {}", upstreamHost, upstreamPort, e.getMessage());
+                downstream.close();
+            });
+    }
+
+    private class Connection {
+        private final NetSocket downstream;
+        private final NetSocket upstream;
+        private final Pipe request;
+        private final Pipe response;
+        private volatile boolean closed = false;
+
+        Connection(NetSocket downstream, NetSocket upstream) {
+            this.downstream = downstream;
+            this.upstream = upstream;
+            this.request = new Pipe(downstream, upstream);
+            this.response = new Pipe(upstream, downstream);
+        }
+
+        void start() {
+            downstream.closeHandler(__ -> close(request, upstream));
+            upstream.closeHandler(__ -> close(response, downstream));
+            downstream.exceptionHandler(e -> log.debug("downstream error: {}", e.getMessage()));
+            upstream.exceptionHandler(e -> log.debug("upstream error: {}", e.getMessage()));
+            downstream.handler(request::handle);
+            upstream.handler(response::handle);
+            downstream.resume();
+        }
+
+        /**
+         * Close the other side of the connection once all the data still in transit has been delivered.
+         */
+        private void close(Pipe pending, NetSocket other) {
+            connections.remove(this);
+            pending.drained().onComplete(__ -> other.close());
+        }
+
+        void reset() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            connections.remove(this);
+            request.discard();
+            response.discard();
+            downstream.close();
+            upstream.close();
+        }
+    }
+
+    /**
+     * Forward the data in one direction applying the latency and bandwidth faults while preserving the order.
+     */
+    private class Pipe {
+        private final NetSocket from;
+        private final NetSocket to;
+
+        private Future<Void> last = Future.succeededFuture();
+        private long lastDeparture = 0;
+        private long pending = 0;
+        private volatile boolean discarded = false;
+
+        Pipe(NetSocket from, NetSocket to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        void handle(Buffer buffer) {
+            var f = fault;
+            if (f.isBlackhole() || discarded) {
+                droppedBytes.addAndGet(buffer.length());
+                return;
+            }
+
+            if (f.isNone() && pending == 0) {
+                write(buffer);
+                flow();
+                return;
+            }
+
+            // the chunk leaves once the previous ones have been transmitted at the given bandwidth
+            // and then arrives after the given latency
+            var now = System.currentTimeMillis();
+            var transmission = f.getBandwidth() > 0 ? buffer.length() * 1000L / f.getBandwidth() : 0;
+            lastDeparture = Math.max(now, lastDeparture) + transmission;
+            var arrival = lastDeparture + f.getLatency().toMillis();
+
+            pending += buffer.length();
+            last = last
+                .transform(__ -> sleepUntil(arrival))
+                .compose(__ -> discarded ? Future.succeededFuture() : write(buffer))
+                .onComplete(__ -> {
+                    pending -= buffer.length();
+                    flow();
+                });
+            flow();
+        }
+
+        private Future<Void> write(Buffer buffer) {
+            forwardedBytes.addAndGet(buffer.length());
+            return to.write(buffer);
+        }
+
+        private void flow() {
+            if (pending > MAX_PENDING_BYTES || to.writeQueueFull()) {
+                from.pause();
+                to.drainHandler(__ -> flow());
+            } else {
+                from.resume();
+            }
+        }
+
+        private Future<Void> sleepUntil(long time) {
+            var delay = time - System.currentTimeMillis();
+            if (delay < 1) {
+                return Future.succeededFuture();
+            }
+            Promise<Void> p = Promise.promise();
+            vertx.setTimer(delay, __ -> p.complete());
+            return p.future();
+        }
+
+        Future<Void> drained() {
+            return last.transform(__ -> Future.succeededFuture());
+        }
+
+        void discard() {
+            discarded = true;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.managed.services.test.proxy;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import lombok.extern.log4j.Log4j2;
+import org.javatuples.Pair;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static io.managed.services.test.TestUtils.forEach;
+import static io.managed.services.test.TestUtils.sleep;
+
+/**
+ * A sequence of network faults that are injected one after the other in a {@link FaultInjectionProxy},
+ * each one for the given duration.
+ *
+ * <pre>{@code
+ * var schedule = FaultSchedule.create()
+ *     .then(NetworkFault.latency(ofMillis(200)), ofSeconds(10))
+ *     .then(NetworkFault.blackhole(), ofSeconds(5))
+ *     .then(NetworkFault.bandwidth(64 * 1024), ofSeconds(10));
+ *
+ * await(schedule.run(vertx, proxy));
+ * }</pre>
+ */
+@Log4j2
+public class FaultSchedule {
+
+    private final List<Pair<NetworkFault, Duration>> steps = new ArrayList<>();
+
+    public static FaultSchedule create() {
+        return new FaultSchedule();
+    }
+
+    public FaultSchedule then(NetworkFault fault, Duration duration) {
+        steps.add(Pair.with(fault, duration));
+        return this;
+    }
+
+    public Duration getTotalDuration() {
+        return steps.stream().map(Pair::getValue1).reduce(Duration.ZERO, Duration::plus);
+    }
+
+    /**
+     * Inject each fault for its duration and clear the proxy at the end.
+     *
+     * @param vertx Vertx
+     * @param proxy FaultInjectionProxy
+     * @return Future that completes when the last fault has been cleared
+     */
+    public Future<Void> run(Vertx vertx, FaultInjectionProxy proxy) {
+        log.info("run fault schedule for {} on proxy {}", getTotalDuration(), proxy.getAddress());
+        return forEach(steps.iterator(), step -> {
+            proxy.inject(step.getValue0());
+            return sleep(vertx, step.getValue1());
+        }).eventually(__ -> {
+            proxy.clear();
+            return Future.succeededFuture();
+        });
+    }
+
+    @Override
+    public String toString() {
+        return steps.stream()
+            .map(s -> String.format("%s(%ss)", s.getValue0(), s.getValue1().toSeconds()))
+            .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,93 @@
+package io.managed.services.test.proxy;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Describe the degradation a {@link FaultInjectionProxy} applies to the traffic it forwards.
+ * <p>
+ * Latency and bandwidth can be combined, reset and blackhole are exclusive and take precedence over them.
+ */
+@Getter
+public class NetworkFault {
+
+    private static final NetworkFault NONE = new NetworkFault(Duration.ZERO, 0, false, false);
+
+    /**
+     * Delay applied to each chunk of data in each direction.
+     */
+    private final Duration latency;
+
+    /**
+     * Max bytes per second forwarded in each direction, 0 means unlimited.
+     */
+    private final long bandwidth;
+
+    /**
+     * Abruptly close all open connections and refuse the new ones.
+     */
+    private final boolean reset;
+
+    /**
+     * Accept connections and data but never deliver anything.
+     */
+    private final boolean blackhole;
+
+    private NetworkFault(Duration latency, long bandwidth, boolean reset, boolean blackhole) {
+        this.latency = Objects.requireNonNull(latency);
+        this.bandwidth = bandwidth;
+        this.reset = reset;
+        this.blackhole = blackhole;
+    }
+
+    public static NetworkFault none() {
+        return NONE;
+    }
+
+    public static NetworkFault latency(Duration latency) {
+        return NONE.withLatency(latency);
+    }
+
+    public static NetworkFault bandwidth(long bytesPerSecond) {
+        return NONE.withBandwidth(bytesPerSecond);
+    }
+
+    public static NetworkFault reset() {
+        return new NetworkFault(Duration.ZERO, 0, true, false);
+    }
+
+    public static NetworkFault blackhole() {
+        return new NetworkFault(Duration.ZERO, 0, false, true);
+    }
+
+    public NetworkFault withLatency(Duration latency) {
+        return new NetworkFault(latency, bandwidth, reset, blackhole);
+    }
+
+    public NetworkFault withBandwidth(long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("bandwidth can not be negative");
+        }
+        return new NetworkFault(latency, bytesPerSecond, reset, blackhole);
+    }
+
+    public boolean isNone() {
+        return latency.isZero() && bandwidth == 0 && !reset && !blackhole;
+    }
+
+    @Override
+    public String toString() {
+        if (reset) {
+            return "reset";
+        }
+        if (blackhole) {
+            return "blackhole";
+        }
+        if (isNone()) {
+            return "none";
+        }
+        return String.format("latency=%dms bandwidth=%dB/s", latency.toMillis(), bandwidth);
+    }
+}
@@ -0,0 +1,99 @@
+package io.managed.services.test.proxy;
+
+import io.managed.services.test.Environment;
+import io.prometheus.client.Histogram;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+import static io.managed.services.test.TestUtils.message;
+import static io.managed.services.test.TestUtils.sleep;
+
+/**
+ * Measure how long a client takes to recover after a network fault has been cleared by repeatedly calling
+ * a probe operation until it succeeds.
+ */
+@Log4j2
+public class RecoveryProbe {
+
+    private static final Histogram RECOVERY_TIME = Histogram.build()
+        .name("test_network_fault_recovery_seconds")
+        .labelNames("launch", "client", "fault")
+        .buckets(0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120)
+        .help("Time for a client to successfully complete an operation after a network fault is cleared.")
+        .register();
+
+    private final Vertx vertx;
+    private final String client;
+    private final Supplier<Future<?>> probe;
+    private final Duration interval;
+    private final Duration timeout;
+
+    /**
+     * @param vertx    Vertx
+     * @param client   Name of the client used to label the recovery time metric
+     * @param probe    An operation that will succeed only once the client is recovered, it should have its own
+     *                 timeout shorter than the interval
+     * @param interval Interval between each probe call
+     * @param timeout  Max time to wait for the client to recover
+     */
+    public RecoveryProbe(Vertx vertx, String client, Supplier<Future<?>> probe, Duration interval, Duration timeout) {
+        this.vertx = vertx;
+        this.client = client;
+        this.probe = probe;
+        this.interval = interval;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Run the schedule against the proxy and once the last fault is cleared return the time the probe took
+     * to succeed again.
+     *
+     * @param proxy    FaultInjectionProxy
+     * @param schedule FaultSchedule
+     * @return Future with the recovery time
+     */
+    public Future<Duration> measure(FaultInjectionProxy proxy, FaultSchedule schedule) {
+        return schedule.run(vertx, proxy)
+            .compose(__ -> measureSince(Instant.now(), schedule.toString()));
+    }
+
+    /**
+     * Call the probe until it succeeds and return the time elapsed from the passed instant.
+     *
+     * @param clearedAt The instant the fault was cleared
+     * @param fault     Name of the fault used to label the recovery time metric
+     * @return Future with the recovery time
+     */
+    public Future<Duration> measureSince(Instant clearedAt, String fault) {
+        var deadline = clearedAt.plus(timeout);
+        Promise<Duration> promise = Promise.promise();
+        attempt(clearedAt, deadline, promise);
+
+        return promise.future().onSuccess(d -> {
+            log.info("client '{}' recovered from fault '{}' in {}", client, fault, d);
+            RECOVERY_TIME.labels(Environment.LAUNCH_KEY, client, fault).observe(d.toMillis() / 1000.0);
+        });
+    }
+
+    private void attempt(Instant clearedAt, Instant deadline, Promise<Duration> promise) {
+        probe.get().onComplete(r -> {
+            if (r.succeeded()) {
+                promise.complete(Duration.between(clearedAt, Instant.now()));
+                return;
+            }
+
+            log.debug("client '{}' not recovered yet: {}", client, r.cause().getMessage());
+            if (Instant.now().isAfter(deadline)) {
+                promise.fail(message("client '{}' did not recover within {}: {}", client, timeout, r.cause().getMessage()));
+                return;
+            }
+            sleep(vertx, interval).onComplete(__ -> attempt(clearedAt, deadline, promise));
+        });
+    }
+}
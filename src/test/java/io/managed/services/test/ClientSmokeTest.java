@@ -0,0 +1,70 @@
+package io.managed.services.test;
+
+import com.openshift.cloud.api.kas.invoker.ApiClient;
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import com.openshift.cloud.api.kas.models.KafkaRequestList;
+import io.managed.services.test.client.exception.ApiNotFoundException;
+import io.managed.services.test.client.exception.ApiUnknownException;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtAsyncApi;
+import io.managed.services.test.client.kafkamgmt.KafkaStatusPoller;
+import io.managed.services.test.client.oauth.KeycloakUser;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+
+/**
+ * Offline tests of the API clients and Kafka clients helpers that replace the remote services with fakes.
+ */
+public class ClientSmokeTest extends TestBase {
+
+    @Test
+    public void testKafkaStatusPollerLateWaiter() throws Throwable {
+        var vertx = Vertx.vertx();
+        var lists = new LinkedBlockingQueue<Promise<KafkaRequestList>>();
+        var api = new KafkaMgmtAsyncApi(vertx, new ApiClient().setBasePath("http://localhost"), new KeycloakUser("token")) {
+            @Override
+            public Future<KafkaRequestList> getKafkas(String page, String size, String orderBy, String search) {
+                Promise<KafkaRequestList> promise = Promise.promise();
+                lists.add(promise);
+                return promise.future();
+            }
+
+            @Override
+            public Future<KafkaRequest> getKafkaById(String id) {
+                return Future.failedFuture(new ApiNotFoundException(new ApiUnknownException("not found", 404, Map.of(), "", null)));
+            }
+        };
+        var poller = new KafkaStatusPoller(api);
+
+        var first = poller.waitUntilDeleted("first");
+        var list = lists.poll(10, TimeUnit.SECONDS);
+        assertNotNull(list, "the poller should have listed the kafka instances");
+
+        // register a waiter while the list is still pending
+        var late = poller.waitUntilDeleted("late");
+        list.complete(new KafkaRequestList()
+            .items(List.of(new KafkaRequest().id("first").status("deleting"), new KafkaRequest().id("late").status("ready")))
+            .total(2));
+
+        // the next list is requested only once the first one has been processed
+        var next = lists.poll(10, TimeUnit.SECONDS);
+        assertNotNull(next, "the poller should have listed the kafka instances again");
+        assertFalse(first.isComplete(), "the listed instance still exists");
+        assertFalse(late.isComplete(), "the instance registered while listing hasn't been listed yet");
+
+        next.complete(new KafkaRequestList().items(List.of(new KafkaRequest().id("late").status("deleting"))).total(1));
+        TestUtils.bwait(first);
+        assertFalse(late.isComplete(), "the instance registered while listing still exists");
+
+        vertx.close();
+    }
+}
@@ -1,22 +1,52 @@
 package io.managed.services.test;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openshift.cloud.api.kas.models.InstantQuery;
 import com.openshift.cloud.api.kas.models.MetricsInstantQueryList;
 import io.managed.services.test.cli.CliGenericException;
+import io.managed.services.test.client.ApiRateLimiter;
+import io.managed.services.test.client.PrometheusTextMetrics;
+import io.managed.services.test.client.exception.ApiToManyRequestsException;
+import io.managed.services.test.client.exception.ApiUnknownException;
+import io.managed.services.test.client.kafka.KafkaAsyncAdmin;
 import io.managed.services.test.client.kafka.KafkaMessagingUtils;
+import io.managed.services.test.client.kafka.OAuthTokenCache;
 import io.managed.services.test.client.kafkamgmt.KafkaMgmtMetricsUtils;
+import io.managed.services.test.client.kafkamgmt.MetricsSnapshot;
+import io.strimzi.kafka.oauth.common.TokenInfo;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
@@ -117,4 +147,223 @@ public class SmokeTest extends TestBase {
             "kafka_server_brokertopicmetrics_messages_in_total");
         Assert.assertEquals(result, 2856);
     }
+
+    @Test
+    public void testMetricsSnapshotDiff() throws IOException {
+        var stream = SmokeTest.class.getClassLoader().getResourceAsStream("smoke/user-metrics.json");
+        var metrics = new ObjectMapper().readValue(stream, MetricsInstantQueryList.class);
+
+        var metric = "kafka_server_brokertopicmetrics_messages_in_total";
+        var before = MetricsSnapshot.of(metrics.getItems());
+
+        // increase each series of the metric-test-topic by 10
+        var items = metrics.getItems().stream()
+            .map(i -> new InstantQuery()
+                .metric(i.getMetric())
+                .value(metric.equals(i.getMetric().get("__name__")) && "metric-test-topic".equals(i.getMetric().get("topic"))
+                    ? i.getValue() + 10 : i.getValue()))
+            .collect(Collectors.toList());
+        var after = MetricsSnapshot.of(items);
+
+        var series = items.stream()
+            .filter(i -> metric.equals(i.getMetric().get("__name__")))
+            .filter(i -> "metric-test-topic".equals(i.getMetric().get("topic")))
+            .count();
+
+        var diff = after.diff(before);
+        Assert.assertEquals(before.sum(metric, "metric-test-topic"), 2856);
+        Assert.assertTrue(series > 0);
+        Assert.assertEquals(diff.sum(metric, "metric-test-topic"), series * 10.0);
+        Assert.assertEquals(diff.sum(metric, "test-topic"), 0);
+        Assert.assertEquals(diff.sum(metric), series * 10.0);
+    }
+
+    @Test
+    public void testPrometheusTextMetrics() throws IOException {
+        var stream = SmokeTest.class.getClassLoader().getResourceAsStream("smoke/federate-metrics.txt");
+        var metrics = PrometheusTextMetrics.parse(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        LOGGER.info("metrics: {}", metrics);
+
+        assertEquals(metrics.size(), 10);
+        assertEquals(metrics.type("kafka_instance_partition_limit"), Optional.of("gauge"));
+        assertEquals(metrics.type("kafka_server_request_seconds"), Optional.of("histogram"));
+        assertEquals(metrics.type("kafka_controller_ratio"), Optional.empty());
+
+        // the timestamp is ignored
+        assertEquals(metrics.value("kafka_instance_partition_limit").getAsDouble(), 1000.0);
+        assertEquals(metrics.value("kafka_instance_partition_limit",
+            Map.of("namespace", "kafka-c7x", "strimzi_io_cluster", "test-instance")).getAsDouble(), 1000.0);
+
+        var size = "kafka_topic:kafka_log_log_size:sum";
+        assertEquals(metrics.value(size, Map.of("topic", "test")).getAsDouble(), 4096.0);
+        assertEquals(metrics.sum(size), 5596.0);
+        assertEquals(metrics.value(size, Map.of("topic", "escaped", "path", "C:\\data\\\"logs\"\nend")).getAsDouble(), 0.0);
+        assertTrue(metrics.value(size, Map.of("topic", "missing")).isEmpty());
+
+        assertEquals(metrics.value("kafka_server_request_seconds_bucket", Map.of("le", "+Inf")).getAsDouble(), 5.0);
+        assertEquals(metrics.value("kafka_server_request_seconds_sum").getAsDouble(), Double.POSITIVE_INFINITY);
+        assertEquals(metrics.value("kafka_controller_offset").getAsDouble(), Double.NEGATIVE_INFINITY);
+        assertTrue(Double.isNaN(metrics.value("kafka_controller_ratio").getAsDouble()));
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> PrometheusTextMetrics.parse("kafka_broken{topic=\"test\"} abc"));
+    }
+
+    @Test
+    public void testApiRateLimiter() throws Throwable {
+        var vertx = Vertx.vertx();
+        var limiter = new ApiRateLimiter("test", 1000, 100, 4);
+
+        // acquire: the requests over the concurrency limit wait for a free slot
+        var before = System.nanoTime();
+        for (var i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+        assertEquals(limiter.getInFlight(), 4);
+        var waiting = limiter.acquire(vertx);
+        Thread.sleep(100);
+        assertFalse(waiting.isComplete(), "the fifth request should wait for a free slot");
+
+        // release: the slot is passed to the waiting request
+        limiter.release(true);
+        TestUtils.bwait(waiting);
+        assertEquals(limiter.getInFlight(), 4);
+        assertEquals(limiter.getLimit(), 4);
+
+        // decrease: the 429 responses to the requests sent before the last reduction halve the limit only once
+        limiter.throttled(Duration.ZERO, before);
+        limiter.throttled(Duration.ZERO, before);
+        limiter.throttled(Duration.ZERO, before);
+        assertEquals(limiter.getLimit(), 2);
+        limiter.throttled(Duration.ZERO, System.nanoTime());
+        assertEquals(limiter.getLimit(), 1);
+        limiter.throttled(Duration.ZERO, System.nanoTime());
+        assertEquals(limiter.getLimit(), 1);
+
+        // increase: by one every limit successful requests, but not by the failed ones
+        limiter.release(true);
+        assertEquals(limiter.getLimit(), 2);
+        limiter.release(true);
+        limiter.release(false);
+        assertEquals(limiter.getLimit(), 2);
+        limiter.release(true);
+        assertEquals(limiter.getInFlight(), 0);
+        limiter.acquire();
+        limiter.release(true);
+        assertEquals(limiter.getLimit(), 3);
+
+        // unlimited: a rate of 0 disables the token bucket instead of stalling the requests
+        var unlimited = new ApiRateLimiter("test", 0, 1, 4);
+        for (var i = 0; i < 100; i++) {
+            TestUtils.bwait(unlimited.acquire(vertx));
+            unlimited.release(true);
+        }
+        assertEquals(unlimited.getInFlight(), 0);
+
+        vertx.close();
+    }
+
+    @Test
+    public void testRetryAfter() {
+        Function<String, Optional<Duration>> retryAfter = v -> new ApiToManyRequestsException(new ApiUnknownException(
+            "too many requests", 429, v == null ? Map.of() : Map.of("retry-after", List.of(v)), "", null)).getRetryAfter();
+
+        assertEquals(retryAfter.apply("120"), Optional.of(Duration.ofSeconds(120)));
+        assertEquals(retryAfter.apply(" 0 "), Optional.of(Duration.ZERO));
+
+        var date = ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(60).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        var delay = retryAfter.apply(date).orElseThrow();
+        assertTrue(delay.compareTo(Duration.ofSeconds(55)) > 0 && delay.compareTo(Duration.ofSeconds(60)) <= 0, "delay: " + delay);
+        assertEquals(retryAfter.apply("Wed, 21 Oct 2015 07:28:00 GMT"), Optional.of(Duration.ZERO));
+
+        assertEquals(retryAfter.apply("soon"), Optional.empty());
+        assertEquals(retryAfter.apply(null), Optional.empty());
+    }
+
+    @Test
+    public void testKafkaAsyncAdminFutures() throws Throwable {
+        var vertx = Vertx.vertx();
+        var admin = new KafkaAsyncAdmin(vertx, (Admin) null);
+
+        var kafkaFutures = new LinkedHashMap<String, KafkaFuture<Integer>>();
+        for (var k : List.of("a", "b", "c")) {
+            kafkaFutures.put(k, new KafkaFutureImpl<>());
+        }
+        var failed = new KafkaFutureImpl<Integer>();
+        var threads = new AtomicReference<String>();
+
+        var futures = admin.toFutures(kafkaFutures);
+        futures.get("a").onSuccess(__ -> threads.set(Thread.currentThread().getName()));
+        var all = KafkaAsyncAdmin.all(futures);
+
+        // the calls don't block and return futures that are completed only with the KafkaFutures
+        assertFalse(futures.get("a").isComplete(), "the future should not be completed before the KafkaFuture");
+        assertFalse(all.isComplete(), "the futures should not be completed before the KafkaFutures");
+
+        // complete each KafkaFuture from another thread
+        new Thread(() -> {
+            kafkaFutures.forEach((k, f) -> ((KafkaFutureImpl<Integer>) f).complete(k.length()));
+            failed.completeExceptionally(new IllegalStateException("failed"));
+        }).start();
+
+        assertEquals(TestUtils.bwait(all), Map.of("a", 1, "b", 1, "c", 1));
+        assertTrue(threads.get().startsWith("vert.x-eventloop"), "completed on thread " + threads.get());
+
+        var mixed = new LinkedHashMap<>(futures);
+        mixed.put("failed", admin.toFuture(failed));
+        var joined = TestUtils.bwait(KafkaAsyncAdmin.join(mixed));
+        assertEquals(joined.get("a"), Optional.of(1));
+        assertEquals(joined.get("failed"), Optional.empty());
+
+        var batch = TestUtils.bwait(KafkaAsyncAdmin.batch(List.of(1, 2, 3), i -> Future.succeededFuture(i * 2)));
+        assertEquals(batch, Map.of(1, 2, 2, 4, 3, 6));
+
+        vertx.close();
+    }
+
+    @Test
+    public void testOAuthTokenCache() throws Throwable {
+        var clock = new AtomicLong(1_000_000);
+        var requests = new AtomicInteger();
+        var failing = new AtomicBoolean(false);
+        OAuthTokenCache.TokenRequester requester = (endpoint, clientID, clientSecret) -> {
+            if (failing.get()) {
+                throw new IOException("token endpoint unavailable");
+            }
+            var now = clock.get();
+            return new TokenInfo("token-" + requests.incrementAndGet(), null, clientID, null, now, now + 60_000);
+        };
+        var endpoint = URI.create("https://sso.example.com/token");
+        var cache = new OAuthTokenCache(0.5, requester, clock::get);
+
+        // hit: the logins before the refresh point get the same token without a new request
+        var first = cache.getToken(endpoint, "client", "secret");
+        clock.addAndGet(29_000);
+        assertEquals(cache.getToken(endpoint, "client", "secret").token(), first.token());
+        assertEquals(requests.get(), 1);
+
+        // refresh ahead: past half of its lifetime the token is replaced before being returned
+        clock.addAndGet(2_000);
+        var refreshed = cache.getToken(endpoint, "client", "secret");
+        assertNotEquals(refreshed.token(), first.token());
+        assertEquals(refreshed.issuedAtMs(), clock.get());
+        assertEquals(cache.getToken(endpoint, "client", "secret").token(), refreshed.token());
+        assertEquals(requests.get(), 2);
+
+        // a client refreshing its login at 0.8 of the lifetime gets a new token and not the one it had
+        clock.addAndGet(48_000);
+        var login = cache.getToken(endpoint, "client", "secret");
+        assertNotEquals(login.token(), refreshed.token());
+        assertEquals(requests.get(), 3);
+
+        // fallback: if the refresh fails the previous token is returned until it expires
+        failing.set(true);
+        clock.addAndGet(31_000);
+        assertEquals(cache.getToken(endpoint, "client", "secret").token(), login.token());
+        clock.addAndGet(30_000);
+        Assert.assertThrows(IOException.class, () -> cache.getToken(endpoint, "client", "secret"));
+
+        failing.set(false);
+        assertNotEquals(cache.getToken(endpoint, "client", "secret").token(), login.token());
+        assertEquals(requests.get(), 4);
+    }
 }
@@ -0,0 +1,111 @@
+package io.managed.services.test.cleanup;
+
+import io.managed.services.test.Environment;
+import io.managed.services.test.TestBase;
+import io.managed.services.test.client.ApplicationServicesApi;
+import io.managed.services.test.client.ResourceSweeper;
+import io.managed.services.test.client.TokenBucket;
+import io.managed.services.test.client.kafkamgmt.KafkaInstancePool;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApiUtils;
+import io.managed.services.test.client.oauth.KeycloakLoginSession;
+import io.vertx.core.Vertx;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+import static io.managed.services.test.TestUtils.bwait;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+/**
+ * Delete the Kafka instances, service accounts and registries older than one day that have been leaked
+ * by aborted runs of the test suites, excluding the long living and the pooled Kafka instances, and the
+ * pooled Kafka instances of the other launch keys or older than one week.
+ * <p>
+ * <b>Requires:</b>
+ * <ul>
+ *     <li> PRIMARY_USERNAME
+ *     <li> PRIMARY_PASSWORD
+ * </ul>
+ */
+@Log4j2
+public class LeakedResourcesCleanupTest extends TestBase {
+
+    private static final String PREFIX = "mk-e2e-";
+    private static final String LONG_LIVE_PREFIX = "mk-e2e-ll-";
+    private static final Duration MAX_AGE = Duration.ofDays(1);
+    private static final Duration POOL_MAX_AGE = Duration.ofDays(7);
+
+    private static final double DELETE_RATE = 2;
+    private static final int DELETE_BURST = 5;
+    private static final int CONCURRENCY = 10;
+
+    private final Vertx vertx = Vertx.vertx();
+
+    private ResourceSweeper sweeper;
+
+    @BeforeClass
+    @SneakyThrows
+    public void bootstrap() {
+        assertNotNull(Environment.PRIMARY_USERNAME, "the PRIMARY_USERNAME env is null");
+        assertNotNull(Environment.PRIMARY_PASSWORD, "the PRIMARY_PASSWORD env is null");
+
+        var auth = new KeycloakLoginSession(vertx, Environment.PRIMARY_USERNAME, Environment.PRIMARY_PASSWORD);
+        var user = bwait(auth.loginToRedHatSSO());
+
+        var apps = new ApplicationServicesApi(Environment.OPENSHIFT_API_URI, user);
+        var kafkaMgmtAsyncApi = KafkaMgmtApiUtils.kafkaMgmtAsyncApi(vertx, Environment.OPENSHIFT_API_URI, user);
+
+        sweeper = new ResourceSweeper(vertx, apps, kafkaMgmtAsyncApi, new TokenBucket(DELETE_RATE, DELETE_BURST), CONCURRENCY);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void teardown() {
+        try {
+            bwait(vertx.close());
+        } catch (Throwable t) {
+            log.error("failed to close vertx: ", t);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void testDeleteLeakedResources() {
+        var selector = ResourceSweeper.namePrefix(PREFIX)
+            .and(ResourceSweeper.namePrefix(LONG_LIVE_PREFIX).negate())
+            .and(ResourceSweeper.namePrefix(KafkaInstancePool.NAME_PREFIX).negate())
+            .and(ResourceSweeper.ownedBy(Environment.PRIMARY_USERNAME))
+            .and(ResourceSweeper.olderThan(MAX_AGE));
+
+        log.info("leaked resources: {}", ResourceSweeper.summary(bwait(sweeper.list(selector))));
+
+        var report = bwait(sweeper.sweep(selector));
+        log.info("deleted {} leaked resources in {} ({} resources/s)",
+            report.getDeleted(), report.getDuration(), String.format("%.2f", report.getThroughput()));
+
+        assertEquals(report.getFailed(), 0, "failed to delete some leaked resources");
+    }
+
+    @Test
+    @SneakyThrows
+    public void testDeleteStalePooledKafkaInstances() {
+        // the pools of the other launch keys are deleted only once they are as old as the leaked resources
+        // because another launch could be using them right now
+        Predicate<ResourceSweeper.Resource> otherLaunch = r -> !KafkaInstancePool.isPoolInstanceName(r.getName());
+        var selector = ResourceSweeper.namePrefix(KafkaInstancePool.NAME_PREFIX)
+            .and(ResourceSweeper.ownedBy(Environment.PRIMARY_USERNAME))
+            .and(otherLaunch.and(ResourceSweeper.olderThan(MAX_AGE)).or(ResourceSweeper.olderThan(POOL_MAX_AGE)));
+
+        log.info("stale pooled kafka instances: {}", ResourceSweeper.summary(bwait(sweeper.list(selector))));
+
+        var report = bwait(sweeper.sweep(selector));
+        log.info("deleted {} stale pooled kafka instances in {}", report.getDeleted(), report.getDuration());
+
+        assertEquals(report.getFailed(), 0, "failed to delete some stale pooled kafka instances");
+    }
+}
@@ -20,6 +20,7 @@ import io.managed.services.test.client.ApplicationServicesApi;
 import io.managed.services.test.client.exception.ApiForbiddenException;
 import io.managed.services.test.client.exception.ApiGenericException;
 import io.managed.services.test.client.exception.ApiNotFoundException;
+import io.managed.services.test.client.kafka.KafkaAclPropagationProbe;
 import io.managed.services.test.client.kafka.KafkaAdmin;
 import io.managed.services.test.client.kafka.KafkaAuthMethod;
 import io.managed.services.test.client.kafka.KafkaConsumerClient;
@@ -77,6 +78,7 @@ import static org.testng.Assert.assertTrue;
  *     <li> List ACLs
  *     <li> Create ACL
  *     <li> Delete ACL
+ *     <li> ACL propagation latency
  * </ul>
  * <p>
  * <b>Requires:</b>
@@ -104,6 +106,7 @@ public class KafkaAccessMgmtTest extends TestBase {
     private static final String TEST_TOPIC_PREFIX = "prefix-1-";
     private static final String TEST_TOPIC_WITHOUT_PREFIX_NAME = "test-topic-03";
     private static final String TEST_TOPIC_WITH_PREFIX_NAME = TEST_TOPIC_PREFIX + "test-topic-04";
+    private static final String ACL_PROBE_TOPIC_NAME = "test-topic-acl-probe";
 
     private static final String TEST_CONSUMER_GROUP_NAME_01 = "test-consumer-group-01";
 
@@ -150,7 +153,8 @@ public class KafkaAccessMgmtTest extends TestBase {
         alienAPI = ApplicationServicesApi.applicationServicesApi(alienAuth);
         adminAPI = ApplicationServicesApi.applicationServicesApi(adminAuth);
 
-        // create a kafka instance owned by the primary user
+        // create a kafka instance owned by the primary user, it is never leased from the pool because the
+        // tests change its owner and delete it
         LOGGER.info("create kafka instance '{}'", KAFKA_INSTANCE_NAME);
         kafka = KafkaMgmtApiUtils.applyKafkaInstance(primaryAPI.kafkaMgmt(), KAFKA_INSTANCE_NAME);
 
@@ -218,7 +222,8 @@ public class KafkaAccessMgmtTest extends TestBase {
                 TEST_TOPIC_02_NAME,
                 TEST_TOPIC_03_NAME,
                 TEST_TOPIC_WITH_PREFIX_NAME,
-                TEST_TOPIC_WITHOUT_PREFIX_NAME)) {
+                TEST_TOPIC_WITHOUT_PREFIX_NAME,
+                ACL_PROBE_TOPIC_NAME)) {
 
                 try {
                     primaryKafkaInstanceAPI.deleteTopic(topic);
@@ -405,6 +410,39 @@ public class KafkaAccessMgmtTest extends TestBase {
         assertThrows(ClusterAuthorizationException.class, () -> primaryApacheKafkaAdmin.addAclResource(ResourceType.TOPIC));
     }
 
+    @Test(priority = 1)
+    @SneakyThrows
+    public void testACLPropagationLatency() {
+
+        LOGGER.info("Test how long the brokers take to enforce the ACLs granted and revoked to the service account");
+
+        // the probe produces into its own topic to not add records to the topics used by the other tests
+        LOGGER.info("create kafka topic '{}'", ACL_PROBE_TOPIC_NAME);
+        KafkaInstanceApiUtils.applyTopic(primaryKafkaInstanceAPI, ACL_PROBE_TOPIC_NAME);
+
+        try (var probe = new KafkaAclPropagationProbe(
+            primaryKafkaInstanceAPI,
+            kafka.getBootstrapServerHost(),
+            primaryServiceAccount.getClientId(),
+            primaryServiceAccount.getClientSecret(),
+            Duration.ofMillis(200),
+            Duration.ofMinutes(2))) {
+
+            var produce = probe.measure(KafkaAclPropagationProbe.Operation.PRODUCE, ACL_PROBE_TOPIC_NAME);
+            LOGGER.info("ACL propagation: {}", produce);
+
+            var readGroup = probe.measure(KafkaAclPropagationProbe.Operation.READ_GROUP, TEST_CONSUMER_GROUP_NAME_01);
+            LOGGER.info("ACL propagation: {}", readGroup);
+        } finally {
+            // clean topic
+            try {
+                primaryKafkaInstanceAPI.deleteTopic(ACL_PROBE_TOPIC_NAME);
+            } catch (Exception e) {
+                LOGGER.error("error while deleting topic {}, {}", ACL_PROBE_TOPIC_NAME, e.getMessage());
+            }
+        }
+    }
+
     @Test(priority = 2)
     @SneakyThrows
     public void testGrantTopicAllTransactionIDAllConsumerGroupAllACLs() {
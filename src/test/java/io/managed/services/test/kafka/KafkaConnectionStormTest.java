@@ -0,0 +1,147 @@
+package io.managed.services.test.kafka;
+
+import com.openshift.cloud.api.kas.auth.models.AclResourceType;
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import com.openshift.cloud.api.kas.models.ServiceAccount;
+import io.managed.services.test.Environment;
+import io.managed.services.test.TestBase;
+import io.managed.services.test.client.ApplicationServicesApi;
+import io.managed.services.test.client.kafka.KafkaAuthMethod;
+import io.managed.services.test.client.kafka.KafkaConnectionStorm;
+import io.managed.services.test.client.kafka.KafkaConnectionStorm.ClientType;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiAccessUtils;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApi;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApiUtils;
+import io.managed.services.test.client.oauth.KeycloakLoginSession;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtAPIUtils;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtApi;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static io.managed.services.test.TestUtils.assumeTeardown;
+import static io.managed.services.test.TestUtils.bwait;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Open bursts of authenticated Kafka clients against the same Kafka instance, like a customer application
+ * being redeployed, and report how the connection setup time scales with the number of clients.
+ * <p>
+ * <b>Requires:</b>
+ * <ul>
+ *     <li> PRIMARY_USERNAME
+ *     <li> PRIMARY_PASSWORD
+ * </ul>
+ */
+@Log4j2
+public class KafkaConnectionStormTest extends TestBase {
+
+    static final String KAFKA_INSTANCE_NAME = "mk-e2e-cs-" + Environment.LAUNCH_KEY;
+    private static final String SERVICE_ACCOUNT_NAME = "mk-e2e-cs-sa-" + Environment.LAUNCH_KEY;
+    private static final String TOPIC_NAME = "connection-storm";
+
+    private static final Duration CLIENT_TIMEOUT = Duration.ofMinutes(1);
+
+    // the minimum ratio of clients that must connect successfully in each storm
+    private static final double MIN_SUCCESS_RATIO = 0.95;
+
+    private KafkaMgmtApi kafkaMgmtApi;
+    private SecurityMgmtApi securityMgmtApi;
+    private KafkaInstanceApi kafkaInstanceApi;
+    private KafkaRequest kafka;
+    private ServiceAccount serviceAccount;
+
+    private final List<KafkaConnectionStorm.Result> results = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeClass
+    @SneakyThrows
+    public void bootstrap() {
+        assertNotNull(Environment.PRIMARY_USERNAME, "the PRIMARY_USERNAME env is null");
+        assertNotNull(Environment.PRIMARY_PASSWORD, "the PRIMARY_PASSWORD env is null");
+
+        var auth = new KeycloakLoginSession(Environment.PRIMARY_USERNAME, Environment.PRIMARY_PASSWORD);
+        var apps = ApplicationServicesApi.applicationServicesApi(auth);
+        kafkaMgmtApi = apps.kafkaMgmt();
+        securityMgmtApi = apps.securityMgmt();
+
+        kafka = KafkaMgmtApiUtils.applyKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        kafkaInstanceApi = bwait(KafkaInstanceApiUtils.kafkaInstanceApi(auth, kafka));
+
+        serviceAccount = SecurityMgmtAPIUtils.applyServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        KafkaInstanceApiAccessUtils.applyAllowAllACLsOnResources(kafkaInstanceApi, serviceAccount,
+            List.of(AclResourceType.TOPIC, AclResourceType.GROUP));
+
+        KafkaInstanceApiUtils.applyTopic(kafkaInstanceApi, TOPIC_NAME);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void teardown() {
+
+        // report how the setup time scales with the number of clients
+        results.stream()
+            .sorted(Comparator.comparing(KafkaConnectionStorm.Result::getClientType)
+                .thenComparing(KafkaConnectionStorm.Result::getAuthMethod)
+                .thenComparingInt(KafkaConnectionStorm.Result::getConnections))
+            .forEach(r -> log.info("connection storm: {}", r));
+
+        assumeTeardown();
+
+        try {
+            KafkaMgmtApiUtils.cleanKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean kafka instance: ", t);
+        }
+
+        try {
+            SecurityMgmtAPIUtils.cleanServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean service account: ", t);
+        }
+    }
+
+    @DataProvider
+    public Object[][] stormProvider() {
+        var connections = new int[] {10, 50, 100};
+        var data = new ArrayList<Object[]>();
+        for (var type : ClientType.values()) {
+            for (var auth : KafkaAuthMethod.values()) {
+                for (var n : connections) {
+                    data.add(new Object[] {type, auth, n});
+                }
+            }
+        }
+        return data.toArray(new Object[0][]);
+    }
+
+    @Test(dataProvider = "stormProvider")
+    @SneakyThrows
+    public void testConnectionStorm(ClientType clientType, KafkaAuthMethod authMethod, int connections) {
+
+        var storm = new KafkaConnectionStorm(
+            kafka.getBootstrapServerHost(),
+            serviceAccount.getClientId(),
+            serviceAccount.getClientSecret(),
+            authMethod,
+            clientType,
+            TOPIC_NAME,
+            CLIENT_TIMEOUT);
+
+        var result = storm.run(connections);
+        results.add(result);
+
+        assertTrue(result.getSuccessRatio() >= MIN_SUCCESS_RATIO,
+            "too many clients failed to connect: " + result);
+    }
+}
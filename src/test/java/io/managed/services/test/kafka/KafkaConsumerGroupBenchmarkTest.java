@@ -0,0 +1,158 @@
+package io.managed.services.test.kafka;
+
+import com.openshift.cloud.api.kas.auth.models.AclResourceType;
+import com.openshift.cloud.api.kas.auth.models.ConsumerGroupOrderKey;
+import com.openshift.cloud.api.kas.auth.models.SortDirection;
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import com.openshift.cloud.api.kas.models.ServiceAccount;
+import io.managed.services.test.Environment;
+import io.managed.services.test.TestBase;
+import io.managed.services.test.client.ApplicationServicesApi;
+import io.managed.services.test.client.kafka.KafkaConsumerGroupBenchmark;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiAccessUtils;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApi;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApiUtils;
+import io.managed.services.test.client.oauth.KeycloakLoginSession;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtAPIUtils;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtApi;
+import io.vertx.core.Vertx;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.managed.services.test.TestUtils.assumeTeardown;
+import static io.managed.services.test.TestUtils.bwait;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+/**
+ * Create thousands of consumer groups and report how long it takes to list them page by page with the
+ * Kafka instance REST API, to list and describe them with the Kafka admin protocol and to delete them.
+ * <p>
+ * <b>Requires:</b>
+ * <ul>
+ *     <li> PRIMARY_USERNAME
+ *     <li> PRIMARY_PASSWORD
+ * </ul>
+ */
+@Log4j2
+public class KafkaConsumerGroupBenchmarkTest extends TestBase {
+
+    static final String KAFKA_INSTANCE_NAME = "mk-e2e-cg-" + Environment.LAUNCH_KEY;
+    private static final String SERVICE_ACCOUNT_NAME = "mk-e2e-cg-sa-" + Environment.LAUNCH_KEY;
+    private static final String TOPIC_NAME = "consumer-group-benchmark";
+    private static final String GROUP_PREFIX = "cg-benchmark";
+
+    private static final int CONCURRENCY = 100;
+
+    private final Vertx vertx = Vertx.vertx();
+
+    private KafkaMgmtApi kafkaMgmtApi;
+    private SecurityMgmtApi securityMgmtApi;
+    private KafkaInstanceApi kafkaInstanceApi;
+    private KafkaRequest kafka;
+    private ServiceAccount serviceAccount;
+    private KafkaConsumerGroupBenchmark benchmark;
+
+    private final List<String> results = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeClass
+    @SneakyThrows
+    public void bootstrap() {
+        assertNotNull(Environment.PRIMARY_USERNAME, "the PRIMARY_USERNAME env is null");
+        assertNotNull(Environment.PRIMARY_PASSWORD, "the PRIMARY_PASSWORD env is null");
+
+        var auth = new KeycloakLoginSession(Environment.PRIMARY_USERNAME, Environment.PRIMARY_PASSWORD);
+        var apps = ApplicationServicesApi.applicationServicesApi(auth);
+        kafkaMgmtApi = apps.kafkaMgmt();
+        securityMgmtApi = apps.securityMgmt();
+
+        kafka = KafkaMgmtApiUtils.applyKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        kafkaInstanceApi = bwait(KafkaInstanceApiUtils.unsharedKafkaInstanceApi(auth, kafka));
+
+        serviceAccount = SecurityMgmtAPIUtils.applyServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        KafkaInstanceApiAccessUtils.applyAllowAllACLsOnResources(kafkaInstanceApi, serviceAccount,
+            List.of(AclResourceType.TOPIC, AclResourceType.GROUP));
+
+        KafkaInstanceApiUtils.applyTopic(kafkaInstanceApi, TOPIC_NAME);
+
+        benchmark = new KafkaConsumerGroupBenchmark(
+            vertx,
+            kafkaInstanceApi,
+            kafka.getBootstrapServerHost(),
+            serviceAccount.getClientId(),
+            serviceAccount.getClientSecret());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void teardown() {
+
+        // report how the listing and the deletion scale with the number of groups
+        results.forEach(r -> log.info("consumer group benchmark: {}", r));
+
+        if (benchmark != null) {
+            benchmark.close();
+        }
+
+        assumeTeardown();
+
+        try {
+            KafkaMgmtApiUtils.cleanKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean kafka instance: ", t);
+        }
+
+        try {
+            SecurityMgmtAPIUtils.cleanServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean service account: ", t);
+        }
+
+        try {
+            bwait(vertx.close());
+        } catch (Throwable t) {
+            log.error("failed to close vertx: ", t);
+        }
+    }
+
+    @DataProvider
+    public Object[][] groupsProvider() {
+        return new Object[][] {{1000}, {5000}};
+    }
+
+    @Test(dataProvider = "groupsProvider")
+    @SneakyThrows
+    public void testConsumerGroupListing(int groups) {
+        var prefix = String.format("%s-%d", GROUP_PREFIX, groups);
+
+        try {
+            var created = bwait(benchmark.createGroups(prefix, groups, TOPIC_NAME, CONCURRENCY));
+            results.add(String.format("groups=%d created=%dms", groups, created.toMillis()));
+
+            for (var pageSize : new int[] {10, 100}) {
+                for (var order : SortDirection.values()) {
+                    var rest = bwait(benchmark.listRest(prefix, groups, pageSize, order, ConsumerGroupOrderKey.NAME));
+                    results.add(String.format("%s size=%d order=%s", rest, pageSize, order));
+                    assertEquals(rest.getGroups(), groups, "the REST API didn't list all the groups");
+                }
+            }
+
+            var admin = bwait(benchmark.listAdmin(prefix, groups));
+            results.add(admin.toString());
+            assertEquals(admin.getGroups(), groups, "the admin client didn't describe all the groups");
+
+        } finally {
+            var deleted = bwait(benchmark.deleteGroups(prefix, groups));
+            results.add(String.format("groups=%d deleted=%dms", groups, deleted.toMillis()));
+        }
+    }
+}
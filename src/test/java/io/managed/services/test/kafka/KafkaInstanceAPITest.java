@@ -21,6 +21,8 @@ import io.managed.services.test.client.kafka.KafkaProducerClient;
 import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
 import io.managed.services.test.client.kafkainstance.KafkaInstanceApiAccessUtils;
 import io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils;
+import io.managed.services.test.client.kafkamgmt.KafkaInstanceLease;
+import io.managed.services.test.client.kafkamgmt.KafkaInstancePool;
 import io.managed.services.test.client.kafkamgmt.KafkaMgmtApi;
 import io.managed.services.test.client.kafkamgmt.KafkaMgmtApiUtils;
 import io.managed.services.test.client.oauth.KeycloakLoginSession;
@@ -77,6 +79,7 @@ public class KafkaInstanceAPITest extends TestBase {
     private KafkaInstanceApi kafkaInstanceApi;
     private KafkaMgmtApi kafkaMgmtApi;
     private SecurityMgmtApi securityMgmtApi;
+    private KafkaInstanceLease kafkaLease;
     private KafkaRequest kafka;
     private KafkaConsumerClient<String, String> kafkaConsumer;
 
@@ -94,7 +97,8 @@ public class KafkaInstanceAPITest extends TestBase {
         securityMgmtApi = apps.securityMgmt();
         LOGGER.info("kafka and security mgmt api initialized");
 
-        kafka = KafkaMgmtApiUtils.applyKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        kafkaLease = KafkaInstancePool.lease(auth, kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        kafka = kafkaLease.getKafka();
 
         kafkaInstanceApi = bwait(KafkaInstanceApiUtils.kafkaInstanceApi(auth, kafka));
         LOGGER.info("kafka instance api client initialized");
@@ -102,13 +106,27 @@ public class KafkaInstanceAPITest extends TestBase {
 
     @AfterClass(alwaysRun = true)
     public void teardown() {
-        assumeTeardown();
 
-        // delete kafka instance
         try {
-            KafkaMgmtApiUtils.cleanKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+            if (kafkaConsumer != null) {
+                bwait(kafkaConsumer.asyncClose());
+            }
         } catch (Throwable t) {
-            LOGGER.error("failed to clean kafka instance: ", t);
+            LOGGER.error("failed to close consumer: ", t);
+        }
+
+        // give the pooled kafka instance back even if the teardown is skipped
+        var released = kafkaLease != null && kafkaLease.release();
+
+        assumeTeardown();
+
+        // delete kafka instance
+        if (!released) {
+            try {
+                KafkaMgmtApiUtils.cleanKafkaInstance(kafkaMgmtApi, kafka != null ? kafka.getName() : KAFKA_INSTANCE_NAME);
+            } catch (Throwable t) {
+                LOGGER.error("failed to clean kafka instance: ", t);
+            }
         }
 
         // delete service account
@@ -118,14 +136,6 @@ public class KafkaInstanceAPITest extends TestBase {
             LOGGER.error("failed to clean service account: ", t);
         }
 
-        try {
-            if (kafkaConsumer != null) {
-                bwait(kafkaConsumer.asyncClose());
-            }
-        } catch (Throwable t) {
-            LOGGER.error("failed to close consumer: ", t);
-        }
-
         try {
             bwait(vertx.close());
         } catch (Throwable t) {
@@ -245,8 +255,9 @@ public class KafkaInstanceAPITest extends TestBase {
 
         int messageSizeLimit, desiredBrokerCount;
         try {
-            messageSizeLimit = KafkaMgmtApiUtils.getMessageSizeLimit(kafkaMgmtApi, kafka);
-            desiredBrokerCount = KafkaMgmtApiUtils.getDesiredBrokerCount(kafkaMgmtApi, kafka);
+            var metrics = kafkaMgmtApi.getFederatedMetrics(kafka.getId());
+            messageSizeLimit = KafkaMgmtApiUtils.getMessageSizeLimit(metrics);
+            desiredBrokerCount = KafkaMgmtApiUtils.getDesiredBrokerCount(metrics);
         } catch (Exception e) {
             // Fallback for kas-installer installed environments, see: https://github.com/bf2fc6cc711aee1a0c2a/kas-installer/issues/202
             LOGGER.warn("Failed to read metrics, falling back to constants instead");
@@ -0,0 +1,198 @@
+package io.managed.services.test.kafka;
+
+import com.openshift.cloud.api.kas.auth.models.AclResourceType;
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import com.openshift.cloud.api.kas.models.ServiceAccount;
+import io.managed.services.test.Environment;
+import io.managed.services.test.TestBase;
+import io.managed.services.test.client.ApplicationServicesApi;
+import io.managed.services.test.client.kafka.KafkaAdminUtils;
+import io.managed.services.test.client.kafka.KafkaAuthMethod;
+import io.managed.services.test.client.kafka.KafkaConsumerClient;
+import io.managed.services.test.client.kafka.KafkaProducerClient;
+import io.managed.services.test.client.kafka.KafkaReauthProbe;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiAccessUtils;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApi;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApiUtils;
+import io.managed.services.test.client.oauth.KeycloakLoginSession;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtAPIUtils;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtApi;
+import io.vertx.core.Vertx;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static io.managed.services.test.TestUtils.assumeTeardown;
+import static io.managed.services.test.TestUtils.bwait;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Keep a producer and a consumer connected to the Kafka instance across several session lifetimes and
+ * verify that the re-authentications don't introduce latency cliffs or throughput dips.
+ * <p>
+ * <b>Requires:</b>
+ * <ul>
+ *     <li> PRIMARY_USERNAME
+ *     <li> PRIMARY_PASSWORD
+ * </ul>
+ */
+@Log4j2
+public class KafkaLongSessionTest extends TestBase {
+
+    static final String KAFKA_INSTANCE_NAME = "mk-e2e-ls-" + Environment.LAUNCH_KEY;
+    private static final String SERVICE_ACCOUNT_NAME = "mk-e2e-ls-sa-" + Environment.LAUNCH_KEY;
+    private static final String TOPIC_NAME = "long-session";
+
+    // the number of session lifetimes the session should last and its upper bound
+    private static final int SESSION_LIFETIMES = 3;
+    private static final Duration MAX_SESSION = Duration.ofHours(1);
+
+    private static final Duration MAX_REAUTH_LATENCY = Duration.ofSeconds(5);
+    private static final double MIN_THROUGHPUT_RATIO = 0.5;
+
+    private final Vertx vertx = Vertx.vertx();
+
+    private KafkaMgmtApi kafkaMgmtApi;
+    private SecurityMgmtApi securityMgmtApi;
+    private KafkaRequest kafka;
+    private ServiceAccount serviceAccount;
+    private KafkaProducerClient<String, String> producer;
+    private KafkaConsumerClient<String, String> consumer;
+
+    @BeforeClass
+    @SneakyThrows
+    public void bootstrap() {
+        assertNotNull(Environment.PRIMARY_USERNAME, "the PRIMARY_USERNAME env is null");
+        assertNotNull(Environment.PRIMARY_PASSWORD, "the PRIMARY_PASSWORD env is null");
+
+        var auth = new KeycloakLoginSession(Environment.PRIMARY_USERNAME, Environment.PRIMARY_PASSWORD);
+        var apps = ApplicationServicesApi.applicationServicesApi(auth);
+        kafkaMgmtApi = apps.kafkaMgmt();
+        securityMgmtApi = apps.securityMgmt();
+
+        kafka = KafkaMgmtApiUtils.applyKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        KafkaInstanceApi kafkaInstanceApi = bwait(KafkaInstanceApiUtils.kafkaInstanceApi(auth, kafka));
+
+        serviceAccount = SecurityMgmtAPIUtils.applyServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        KafkaInstanceApiAccessUtils.applyAllowAllACLsOnResources(kafkaInstanceApi, serviceAccount,
+            List.of(AclResourceType.TOPIC, AclResourceType.GROUP));
+
+        KafkaInstanceApiUtils.applyTopic(kafkaInstanceApi, TOPIC_NAME);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void teardown() {
+
+        try {
+            if (producer != null) {
+                bwait(producer.asyncClose());
+            }
+        } catch (Throwable t) {
+            log.error("failed to close producer: ", t);
+        }
+
+        try {
+            if (consumer != null) {
+                bwait(consumer.asyncClose());
+            }
+        } catch (Throwable t) {
+            log.error("failed to close consumer: ", t);
+        }
+
+        try {
+            bwait(vertx.close());
+        } catch (Throwable t) {
+            log.error("failed to close vertx: ", t);
+        }
+
+        assumeTeardown();
+
+        try {
+            KafkaMgmtApiUtils.cleanKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean kafka instance: ", t);
+        }
+
+        try {
+            SecurityMgmtAPIUtils.cleanServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean service account: ", t);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void testReauthenticationOverLongSession() {
+
+        var sessionLifetimeMs = KafkaAdminUtils.getAuthenticatorPositiveSessionLifetimeMs(
+            kafka.getBootstrapServerHost(),
+            serviceAccount.getClientId(),
+            serviceAccount.getClientSecret());
+        if (sessionLifetimeMs == null) {
+            throw new SkipException("re-authentication is disabled on the kafka instance");
+        }
+        log.info("session lifetime: {}ms", sessionLifetimeMs);
+
+        var session = Duration.ofMillis(sessionLifetimeMs).multipliedBy(SESSION_LIFETIMES);
+        if (session.compareTo(MAX_SESSION) > 0) {
+            session = MAX_SESSION;
+        }
+
+        // the clients re-authenticate at 85-95% of the session lifetime, so the session must last at least one
+        // lifetime and can be shorter than SESSION_LIFETIMES lifetimes when capped to MAX_SESSION
+        var lifetimes = session.toMillis() / sessionLifetimeMs;
+        if (lifetimes < 1) {
+            throw new SkipException(String.format("the session lifetime of %dms is longer than the max session of %s",
+                sessionLifetimeMs, MAX_SESSION));
+        }
+        var expectedReauthentications = Math.max(1, lifetimes - 1);
+        log.info("run a session of {} and expect at least {} re-authentications", session, expectedReauthentications);
+
+        producer = new KafkaProducerClient<>(
+            vertx,
+            kafka.getBootstrapServerHost(),
+            serviceAccount.getClientId(),
+            serviceAccount.getClientSecret(),
+            KafkaAuthMethod.OAUTH,
+            StringSerializer.class,
+            StringSerializer.class);
+
+        consumer = new KafkaConsumerClient<>(
+            vertx,
+            kafka.getBootstrapServerHost(),
+            serviceAccount.getClientId(),
+            serviceAccount.getClientSecret(),
+            KafkaAuthMethod.OAUTH,
+            "long-session",
+            "latest",
+            StringDeserializer.class,
+            StringDeserializer.class);
+
+        var probe = new KafkaReauthProbe(vertx, producer, consumer, TOPIC_NAME, Duration.ofMillis(100), Duration.ofSeconds(5));
+        var result = bwait(probe.run(session));
+
+        result.getEvents().forEach(e -> log.info("re-authentication: {}", e));
+
+        assertEquals(result.getFailedReauthentications(), 0, "some re-authentications failed");
+        assertTrue(result.getReauthentications("producer") >= expectedReauthentications,
+            "the producer re-authenticated only " + result.getReauthentications("producer") + " times");
+        assertTrue(result.getReauthentications("consumer") >= expectedReauthentications,
+            "the consumer re-authenticated only " + result.getReauthentications("consumer") + " times");
+        assertTrue(result.getMaxLatency().compareTo(MAX_REAUTH_LATENCY) <= 0,
+            "re-authentication took up to " + result.getMaxLatency());
+        assertTrue(result.getMinThroughputRatio() >= MIN_THROUGHPUT_RATIO,
+            "throughput dropped to " + result.getMinThroughputRatio() + " of the baseline during a re-authentication");
+    }
+}
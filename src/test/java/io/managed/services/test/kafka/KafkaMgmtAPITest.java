@@ -458,13 +458,12 @@ public class KafkaMgmtAPITest extends TestBase {
         // Verify all expected user facing Kafka metrics retrieved from Observatorium are included in the response in a Prometheus Text Format
         var missingMetricsAtom = new AtomicReference<List<String>>();
         ThrowingFunction<Boolean, Boolean, ApiGenericException> isMetricAvailable = last -> {
-            var metrics = kafkaMgmtApi.federateMetrics(kafka.getId());
-            log.debug(metrics);
+            var metrics = kafkaMgmtApi.getFederatedMetrics(kafka.getId());
+            log.debug("federated metrics: {}", metrics);
 
             var missingMetrics = new ArrayList<String>();
             for (var metricName : KAFKA_METRICS) {
-                var metricTypeDefinition = String.format("# TYPE %s gauge", metricName);
-                if (!metrics.contains(metricTypeDefinition)) missingMetrics.add(metricName);
+                if (!metrics.type(metricName).filter("gauge"::equals).isPresent()) missingMetrics.add(metricName);
             }
 
             missingMetricsAtom.set(missingMetrics);
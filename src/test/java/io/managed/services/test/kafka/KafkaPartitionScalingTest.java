@@ -0,0 +1,169 @@
+package io.managed.services.test.kafka;
+
+import com.openshift.cloud.api.kas.auth.models.AclResourceType;
+import com.openshift.cloud.api.kas.auth.models.NewTopicInput;
+import com.openshift.cloud.api.kas.auth.models.TopicSettings;
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import com.openshift.cloud.api.kas.models.ServiceAccount;
+import io.managed.services.test.Environment;
+import io.managed.services.test.TestBase;
+import io.managed.services.test.client.ApplicationServicesApi;
+import io.managed.services.test.client.exception.ApiGenericException;
+import io.managed.services.test.client.kafka.KafkaPartitionScaling;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiAccessUtils;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApi;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApiUtils;
+import io.managed.services.test.client.oauth.KeycloakLoginSession;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtAPIUtils;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtApi;
+import io.managed.services.test.wait.TReadyFunction;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.managed.services.test.TestUtils.assumeTeardown;
+import static io.managed.services.test.TestUtils.bwait;
+import static io.managed.services.test.TestUtils.waitFor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertThrows;
+
+/**
+ * Fill a Kafka instance up to its partition limit in batches of topics, report how the metadata fetch, the
+ * producer first send and the REST topics list latencies grow with the number of partitions, and verify that
+ * the limit is enforced at the number advertised by the federated metrics.
+ * <p>
+ * <b>Requires:</b>
+ * <ul>
+ *     <li> PRIMARY_USERNAME
+ *     <li> PRIMARY_PASSWORD
+ * </ul>
+ */
+@Log4j2
+public class KafkaPartitionScalingTest extends TestBase {
+
+    static final String KAFKA_INSTANCE_NAME = "mk-e2e-ps-" + Environment.LAUNCH_KEY;
+    private static final String SERVICE_ACCOUNT_NAME = "mk-e2e-ps-sa-" + Environment.LAUNCH_KEY;
+    private static final String TOPIC_PREFIX = "partition-scaling";
+
+    private static final int STEPS = 10;
+    private static final int PARTITIONS_PER_TOPIC = 10;
+    private static final Duration OPERATION_TIMEOUT = Duration.ofMinutes(2);
+
+    private KafkaMgmtApi kafkaMgmtApi;
+    private SecurityMgmtApi securityMgmtApi;
+    private KafkaInstanceApi kafkaInstanceApi;
+    private KafkaRequest kafka;
+    private ServiceAccount serviceAccount;
+    private KafkaPartitionScaling scaling;
+
+    private final List<KafkaPartitionScaling.Step> steps = new ArrayList<>();
+
+    @BeforeClass
+    @SneakyThrows
+    public void bootstrap() {
+        assertNotNull(Environment.PRIMARY_USERNAME, "the PRIMARY_USERNAME env is null");
+        assertNotNull(Environment.PRIMARY_PASSWORD, "the PRIMARY_PASSWORD env is null");
+
+        var auth = new KeycloakLoginSession(Environment.PRIMARY_USERNAME, Environment.PRIMARY_PASSWORD);
+        var apps = ApplicationServicesApi.applicationServicesApi(auth);
+        kafkaMgmtApi = apps.kafkaMgmt();
+        securityMgmtApi = apps.securityMgmt();
+
+        kafka = KafkaMgmtApiUtils.applyKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        kafkaInstanceApi = bwait(KafkaInstanceApiUtils.kafkaInstanceApi(auth, kafka));
+
+        serviceAccount = SecurityMgmtAPIUtils.applyServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        KafkaInstanceApiAccessUtils.applyAllowAllACLsOnResources(kafkaInstanceApi, serviceAccount,
+            List.of(AclResourceType.TOPIC));
+
+        scaling = new KafkaPartitionScaling(
+            kafkaInstanceApi,
+            kafka.getBootstrapServerHost(),
+            serviceAccount.getClientId(),
+            serviceAccount.getClientSecret(),
+            TOPIC_PREFIX,
+            OPERATION_TIMEOUT);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void teardown() {
+
+        // report how the latencies scale with the number of partitions
+        steps.forEach(s -> log.info("partition scaling: {}", s));
+
+        if (scaling != null) {
+            try {
+                scaling.clean();
+            } catch (Throwable t) {
+                log.error("failed to clean the topics: ", t);
+            }
+            scaling.close();
+        }
+
+        assumeTeardown();
+
+        try {
+            KafkaMgmtApiUtils.cleanKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean kafka instance: ", t);
+        }
+
+        try {
+            SecurityMgmtAPIUtils.cleanServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean service account: ", t);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void testScaleToPartitionLimit() {
+
+        final int limit = KafkaMgmtApiUtils.getPartitionLimitMax(kafkaMgmtApi, kafka);
+        final int initial = KafkaInstanceApiUtils.getPartitionCountTotal(kafkaInstanceApi);
+        log.info("scale from {} partitions to the limit of {} partitions in {} steps", initial, limit, STEPS);
+
+        if (limit - initial < STEPS * PARTITIONS_PER_TOPIC) {
+            throw new SkipException(String.format("only %d partitions available", limit - initial));
+        }
+
+        var topicsPerStep = (limit - initial) / STEPS / PARTITIONS_PER_TOPIC;
+        var partitions = initial;
+        for (var i = 0; i < STEPS; i++) {
+            scaling.addTopics(topicsPerStep, PARTITIONS_PER_TOPIC);
+            partitions += topicsPerStep * PARTITIONS_PER_TOPIC;
+            steps.add(scaling.measure());
+        }
+
+        // fill the remaining partitions with a single topic
+        var remaining = limit - partitions;
+        if (remaining > 0) {
+            scaling.addTopics(1, remaining);
+            steps.add(scaling.measure());
+        }
+
+        // the partition count can take some time to include the last topics
+        TReadyFunction<Integer, ApiGenericException> isFull = (last, atom) -> {
+            atom.set(KafkaInstanceApiUtils.getPartitionCountTotal(kafkaInstanceApi));
+            return atom.get() >= limit;
+        };
+        var count = waitFor("partition count to reach the limit", Duration.ofSeconds(5), OPERATION_TIMEOUT, isFull);
+        assertEquals(count, limit, "the partition count doesn't match the limit");
+
+        log.info("verify that no more partitions can be created at the limit of {} partitions", limit);
+        var payload = new NewTopicInput()
+            .name(TOPIC_PREFIX + "-over-limit")
+            .settings(new TopicSettings().numPartitions(1));
+        assertThrows(ApiGenericException.class, () -> kafkaInstanceApi.createTopic(payload));
+    }
+}
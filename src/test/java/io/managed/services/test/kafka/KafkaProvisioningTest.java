@@ -0,0 +1,79 @@
+package io.managed.services.test.kafka;
+
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import io.managed.services.test.Environment;
+import io.managed.services.test.TestBase;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApiUtils;
+import io.managed.services.test.client.kafkamgmt.KafkaProvisioningOrchestrator;
+import io.managed.services.test.client.oauth.KeycloakLoginSession;
+import io.vertx.core.Vertx;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static io.managed.services.test.TestUtils.bwait;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+/**
+ * Provision in parallel the Kafka instances used by the other tests of the performance suite, so that
+ * each test class finds its instance already ready instead of creating it serially in its bootstrap.
+ * <p>
+ * The instances are not deleted here but by the teardown of each test class.
+ * <p>
+ * <b>Requires:</b>
+ * <ul>
+ *     <li> PRIMARY_USERNAME
+ *     <li> PRIMARY_PASSWORD
+ * </ul>
+ */
+@Log4j2
+public class KafkaProvisioningTest extends TestBase {
+
+    private static final int PARALLELISM = 3;
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @AfterClass(alwaysRun = true)
+    public void teardown() {
+        try {
+            bwait(vertx.close());
+        } catch (Throwable t) {
+            log.error("failed to close vertx: ", t);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void testProvisionKafkaInstancesInParallel() {
+        assertNotNull(Environment.PRIMARY_USERNAME, "the PRIMARY_USERNAME env is null");
+        assertNotNull(Environment.PRIMARY_PASSWORD, "the PRIMARY_PASSWORD env is null");
+
+        var user = bwait(new KeycloakLoginSession(vertx, Environment.PRIMARY_USERNAME, Environment.PRIMARY_PASSWORD)
+            .loginToRedHatSSO());
+        var api = KafkaMgmtApiUtils.kafkaMgmtAsyncApi(vertx, Environment.OPENSHIFT_API_URI, user);
+
+        var names = List.of(
+            KafkaConnectionStormTest.KAFKA_INSTANCE_NAME,
+            KafkaLongSessionTest.KAFKA_INSTANCE_NAME,
+            KafkaQuotaTest.KAFKA_INSTANCE_NAME,
+            KafkaTopicBenchmarkTest.KAFKA_INSTANCE_NAME,
+            KafkaPartitionScalingTest.KAFKA_INSTANCE_NAME,
+            KafkaConsumerGroupBenchmarkTest.KAFKA_INSTANCE_NAME);
+
+        var start = Instant.now();
+        var orchestrator = new KafkaProvisioningOrchestrator(api, PARALLELISM);
+        var instances = bwait(orchestrator.provision(names.stream()
+            .map(KafkaMgmtApiUtils::defaultKafkaInstance)
+            .collect(Collectors.toList())));
+        log.info("{} kafka instances ready in {}", instances.size(), Duration.between(start, Instant.now()));
+
+        assertEquals(instances.stream().map(KafkaRequest::getName).collect(Collectors.toList()), names);
+    }
+}
@@ -0,0 +1,249 @@
+package io.managed.services.test.kafka;
+
+import com.openshift.cloud.api.kas.auth.models.AclResourceType;
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import com.openshift.cloud.api.kas.models.ServiceAccount;
+import io.managed.services.test.Environment;
+import io.managed.services.test.TestBase;
+import io.managed.services.test.client.ApplicationServicesApi;
+import io.managed.services.test.client.kafka.KafkaAdmin;
+import io.managed.services.test.client.kafka.KafkaAuthMethod;
+import io.managed.services.test.client.kafka.KafkaConsumerClient;
+import io.managed.services.test.client.kafka.KafkaMessagingUtils;
+import io.managed.services.test.client.kafka.KafkaProducerClient;
+import io.managed.services.test.client.kafka.KafkaThrottleSampler;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiAccessUtils;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApi;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApiUtils;
+import io.managed.services.test.client.oauth.KeycloakLoginSession;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtAPIUtils;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtApi;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.managed.services.test.TestUtils.assumeTeardown;
+import static io.managed.services.test.TestUtils.bwait;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Produce and consume as fast as possible for a while and detect from the client metrics whether the
+ * clients have been throttled by the brokers, and if so, verify that the throughput achieved while throttled
+ * matches the quotas configured on the Kafka instance.
+ * <p>
+ * <b>Requires:</b>
+ * <ul>
+ *     <li> PRIMARY_USERNAME
+ *     <li> PRIMARY_PASSWORD
+ * </ul>
+ */
+@Log4j2
+public class KafkaQuotaTest extends TestBase {
+
+    static final String KAFKA_INSTANCE_NAME = "mk-e2e-qt-" + Environment.LAUNCH_KEY;
+    private static final String SERVICE_ACCOUNT_NAME = "mk-e2e-qt-sa-" + Environment.LAUNCH_KEY;
+    private static final String TOPIC_NAME = "quota-load";
+
+    private static final Duration LOAD_DURATION = Duration.ofMinutes(2);
+    private static final int MESSAGE_SIZE = 64 * 1024;
+    private static final int BATCH_SIZE = 16;
+
+    // tolerance on both sides of the quota because the client rates are averaged over a sliding window
+    private static final double QUOTA_TOLERANCE = 1.2;
+
+    private final Vertx vertx = Vertx.vertx();
+
+    private KafkaMgmtApi kafkaMgmtApi;
+    private SecurityMgmtApi securityMgmtApi;
+    private KafkaRequest kafka;
+    private ServiceAccount serviceAccount;
+    private KafkaAdmin admin;
+    private KafkaProducerClient<String, String> producer;
+    private KafkaConsumerClient<String, String> consumer;
+
+    @BeforeClass
+    @SneakyThrows
+    public void bootstrap() {
+        assertNotNull(Environment.PRIMARY_USERNAME, "the PRIMARY_USERNAME env is null");
+        assertNotNull(Environment.PRIMARY_PASSWORD, "the PRIMARY_PASSWORD env is null");
+
+        var auth = new KeycloakLoginSession(Environment.PRIMARY_USERNAME, Environment.PRIMARY_PASSWORD);
+        var apps = ApplicationServicesApi.applicationServicesApi(auth);
+        kafkaMgmtApi = apps.kafkaMgmt();
+        securityMgmtApi = apps.securityMgmt();
+
+        kafka = KafkaMgmtApiUtils.applyKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        KafkaInstanceApi kafkaInstanceApi = bwait(KafkaInstanceApiUtils.kafkaInstanceApi(auth, kafka));
+
+        serviceAccount = SecurityMgmtAPIUtils.applyServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        KafkaInstanceApiAccessUtils.applyAllowAllACLsOnResources(kafkaInstanceApi, serviceAccount,
+            List.of(AclResourceType.TOPIC, AclResourceType.GROUP));
+
+        KafkaInstanceApiUtils.applyTopic(kafkaInstanceApi, TOPIC_NAME);
+
+        admin = new KafkaAdmin(kafka.getBootstrapServerHost(), serviceAccount.getClientId(), serviceAccount.getClientSecret());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void teardown() {
+
+        try {
+            if (producer != null) {
+                bwait(producer.asyncClose());
+            }
+        } catch (Throwable t) {
+            log.error("failed to close producer: ", t);
+        }
+
+        try {
+            if (consumer != null) {
+                bwait(consumer.asyncClose());
+            }
+        } catch (Throwable t) {
+            log.error("failed to close consumer: ", t);
+        }
+
+        if (admin != null) {
+            admin.close();
+        }
+
+        try {
+            bwait(vertx.close());
+        } catch (Throwable t) {
+            log.error("failed to close vertx: ", t);
+        }
+
+        assumeTeardown();
+
+        try {
+            KafkaMgmtApiUtils.cleanKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean kafka instance: ", t);
+        }
+
+        try {
+            SecurityMgmtAPIUtils.cleanServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean service account: ", t);
+        }
+    }
+
+    /**
+     * Return the default user quota in bytes per second per broker or empty if the service account
+     * is not allowed to describe the quotas or the quota is not set.
+     */
+    private Optional<Double> getDefaultUserQuota(String key) {
+        try {
+            return admin.getConfigurationUserAll().entrySet().stream()
+                .filter(e -> e.getKey().entries().containsKey("user"))
+                .map(Map.Entry::getValue)
+                .filter(q -> q.containsKey(key))
+                .map(q -> q.get(key))
+                .findFirst();
+        } catch (Throwable t) {
+            log.warn("failed to describe the client quotas: {}", t.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Future<Void> produceUntil(Instant deadline) {
+        if (Instant.now().isAfter(deadline)) {
+            return Future.succeededFuture();
+        }
+        var batch = KafkaMessagingUtils.generateRandomMessages(BATCH_SIZE, MESSAGE_SIZE, MESSAGE_SIZE);
+        return producer.sendAsync(TOPIC_NAME, batch).compose(__ -> produceUntil(deadline));
+    }
+
+    @Test
+    @SneakyThrows
+    public void testThroughputIsBoundByQuotas() {
+
+        var producerQuota = getDefaultUserQuota("producer_byte_rate");
+        var consumerQuota = getDefaultUserQuota("consumer_byte_rate");
+        log.info("default user quotas per broker: producer_byte_rate={} consumer_byte_rate={}",
+            producerQuota.orElse(null), consumerQuota.orElse(null));
+
+        // the quotas are enforced by each broker independently, so the topic can reach the quota once for
+        // each broker leading one of its partitions
+        var leaders = admin.getAdmin().describeTopics(List.of(TOPIC_NAME)).all().get()
+            .get(TOPIC_NAME).partitions().stream()
+            .filter(p -> p.leader() != null)
+            .map(p -> p.leader().id())
+            .distinct()
+            .count();
+
+        producer = new KafkaProducerClient<>(
+            vertx,
+            kafka.getBootstrapServerHost(),
+            serviceAccount.getClientId(),
+            serviceAccount.getClientSecret(),
+            KafkaAuthMethod.OAUTH,
+            StringSerializer.class,
+            StringSerializer.class,
+            KafkaThrottleSampler.metricsConfig());
+
+        consumer = new KafkaConsumerClient<>(
+            vertx,
+            kafka.getBootstrapServerHost(),
+            serviceAccount.getClientId(),
+            serviceAccount.getClientSecret(),
+            KafkaAuthMethod.OAUTH,
+            "quota-load",
+            "latest",
+            StringDeserializer.class,
+            StringDeserializer.class,
+            KafkaThrottleSampler.metricsConfig());
+
+        var throttling = new KafkaThrottleSampler(vertx)
+            .add("producer", producer)
+            .add("consumer", consumer)
+            .start();
+
+        consumer.handler(r -> { });
+        bwait(consumer.subscribe(TOPIC_NAME));
+
+        bwait(produceUntil(Instant.now().plus(LOAD_DURATION)));
+        var reports = throttling.stop();
+
+        var measured = 0;
+        for (var report : reports) {
+            var quota = report.getType() == KafkaThrottleSampler.ClientType.PRODUCER ? producerQuota : consumerQuota;
+            if (!report.isQuotaBound()) {
+                log.info("{} was not quota-bound, peak throughput {}B/s", report.getClient(), report.getPeakByteRate());
+                continue;
+            }
+            if (quota.isEmpty()) {
+                log.info("{} was quota-bound at {}B/s but the quota is unknown", report.getClient(), report.getThrottledByteRate());
+                continue;
+            }
+
+            var limit = quota.get() * leaders;
+            log.info("{} was quota-bound at {}B/s with a limit of {}B/s", report.getClient(), report.getThrottledByteRate(), limit);
+            assertTrue(report.getThrottledByteRate() <= limit * QUOTA_TOLERANCE,
+                report.getClient() + " exceeded the quota of " + limit + "B/s: " + report);
+            assertTrue(report.getThrottledByteRate() >= limit / QUOTA_TOLERANCE,
+                report.getClient() + " was throttled below the quota of " + limit + "B/s: " + report);
+            measured++;
+        }
+
+        if (measured == 0) {
+            throw new SkipException("no client was quota-bound with a known quota, nothing to verify");
+        }
+    }
+}
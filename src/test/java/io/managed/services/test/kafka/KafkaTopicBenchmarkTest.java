@@ -0,0 +1,151 @@
+package io.managed.services.test.kafka;
+
+import com.openshift.cloud.api.kas.auth.models.AclResourceType;
+import com.openshift.cloud.api.kas.models.KafkaRequest;
+import com.openshift.cloud.api.kas.models.ServiceAccount;
+import io.managed.services.test.Environment;
+import io.managed.services.test.TestBase;
+import io.managed.services.test.client.ApplicationServicesApi;
+import io.managed.services.test.client.kafka.KafkaTopicBenchmark;
+import io.managed.services.test.client.kafka.KafkaTopicBenchmark.Method;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApi;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiAccessUtils;
+import io.managed.services.test.client.kafkainstance.KafkaInstanceApiUtils;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApi;
+import io.managed.services.test.client.kafkamgmt.KafkaMgmtApiUtils;
+import io.managed.services.test.client.oauth.KeycloakLoginSession;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtAPIUtils;
+import io.managed.services.test.client.securitymgmt.SecurityMgmtApi;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import static io.managed.services.test.TestUtils.assumeTeardown;
+import static io.managed.services.test.TestUtils.bwait;
+import static org.testng.Assert.assertNotNull;
+
+/**
+ * Create batches of topics with the Kafka admin protocol and with the Kafka instance REST API and report
+ * how the creation throughput and the time until the topics are visible in the cluster metadata scale
+ * with the number of topics.
+ * <p>
+ * <b>Requires:</b>
+ * <ul>
+ *     <li> PRIMARY_USERNAME
+ *     <li> PRIMARY_PASSWORD
+ * </ul>
+ */
+@Log4j2
+public class KafkaTopicBenchmarkTest extends TestBase {
+
+    static final String KAFKA_INSTANCE_NAME = "mk-e2e-tb-" + Environment.LAUNCH_KEY;
+    private static final String SERVICE_ACCOUNT_NAME = "mk-e2e-tb-sa-" + Environment.LAUNCH_KEY;
+    private static final String TOPIC_PREFIX = "topic-benchmark";
+
+    private static final Duration BATCH_TIMEOUT = Duration.ofMinutes(10);
+
+    private KafkaMgmtApi kafkaMgmtApi;
+    private SecurityMgmtApi securityMgmtApi;
+    private KafkaInstanceApi kafkaInstanceApi;
+    private KafkaRequest kafka;
+    private ServiceAccount serviceAccount;
+    private KafkaTopicBenchmark benchmark;
+
+    private final List<KafkaTopicBenchmark.Result> results = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeClass
+    @SneakyThrows
+    public void bootstrap() {
+        assertNotNull(Environment.PRIMARY_USERNAME, "the PRIMARY_USERNAME env is null");
+        assertNotNull(Environment.PRIMARY_PASSWORD, "the PRIMARY_PASSWORD env is null");
+
+        var auth = new KeycloakLoginSession(Environment.PRIMARY_USERNAME, Environment.PRIMARY_PASSWORD);
+        var apps = ApplicationServicesApi.applicationServicesApi(auth);
+        kafkaMgmtApi = apps.kafkaMgmt();
+        securityMgmtApi = apps.securityMgmt();
+
+        kafka = KafkaMgmtApiUtils.applyKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        kafkaInstanceApi = bwait(KafkaInstanceApiUtils.unsharedKafkaInstanceApi(auth, kafka));
+
+        serviceAccount = SecurityMgmtAPIUtils.applyServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        KafkaInstanceApiAccessUtils.applyAllowAllACLsOnResources(kafkaInstanceApi, serviceAccount,
+            List.of(AclResourceType.TOPIC));
+
+        benchmark = new KafkaTopicBenchmark(
+            kafkaInstanceApi,
+            kafka.getBootstrapServerHost(),
+            serviceAccount.getClientId(),
+            serviceAccount.getClientSecret(),
+            BATCH_TIMEOUT);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void teardown() {
+
+        // report how the creation time scales with the number of topics
+        results.stream()
+            .sorted(Comparator.comparing(KafkaTopicBenchmark.Result::getMethod)
+                .thenComparingInt(KafkaTopicBenchmark.Result::getTopics))
+            .forEach(r -> log.info("topic benchmark: {}", r));
+
+        if (benchmark != null) {
+            benchmark.close();
+        }
+
+        assumeTeardown();
+
+        try {
+            KafkaMgmtApiUtils.cleanKafkaInstance(kafkaMgmtApi, KAFKA_INSTANCE_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean kafka instance: ", t);
+        }
+
+        try {
+            SecurityMgmtAPIUtils.cleanServiceAccount(securityMgmtApi, SERVICE_ACCOUNT_NAME);
+        } catch (Throwable t) {
+            log.error("failed to clean service account: ", t);
+        }
+    }
+
+    @DataProvider
+    public Object[][] batchProvider() {
+        var batches = new int[] {10, 100, 1000};
+        var data = new ArrayList<Object[]>();
+        for (var method : Method.values()) {
+            for (var n : batches) {
+                data.add(new Object[] {method, n});
+            }
+        }
+        return data.toArray(new Object[0][]);
+    }
+
+    @Test(dataProvider = "batchProvider")
+    @SneakyThrows
+    public void testTopicBatchCreation(Method method, int topics) {
+
+        // each topic has a single partition
+        var available = KafkaMgmtApiUtils.getPartitionLimitMax(kafkaMgmtApi, kafka)
+            - KafkaInstanceApiUtils.getPartitionCountTotal(kafkaInstanceApi);
+        if (topics > available) {
+            throw new SkipException(String.format("only %d partitions available for %d topics", available, topics));
+        }
+
+        var prefix = String.format("%s-%s-%d", TOPIC_PREFIX, method.name().toLowerCase(Locale.ROOT), topics);
+        try {
+            results.add(benchmark.run(method, prefix, topics));
+        } finally {
+            benchmark.delete(prefix, topics);
+        }
+    }
+}
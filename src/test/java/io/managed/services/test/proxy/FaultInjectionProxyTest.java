@@ -0,0 +1,188 @@
+package io.managed.services.test.proxy;
+
+import io.managed.services.test.TestBase;
+import io.managed.services.test.client.BaseVertxClient;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.client.HttpResponse;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static io.managed.services.test.TestUtils.bwait;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Measure how a client recovers from network faults injected by the {@link FaultInjectionProxy} between
+ * the client and a local stand-in HTTP server.
+ * <p>
+ * This test doesn't require any external service.
+ */
+@Log4j2
+public class FaultInjectionProxyTest extends TestBase {
+
+    private static final Duration LATENCY = ofMillis(150);
+    private static final long BANDWIDTH = 128 * 1024;
+    private static final int PAYLOAD_SIZE = 512 * 1024;
+    private static final Duration REQUEST_TIMEOUT = ofMillis(500);
+
+    private final Vertx vertx = Vertx.vertx();
+
+    private HttpServer server;
+    private FaultInjectionProxy proxy;
+    private StandInClient client;
+
+    private static class StandInClient extends BaseVertxClient {
+
+        StandInClient(Vertx vertx, String uri) {
+            super(vertx, uri);
+        }
+
+        Future<Buffer> get(String path) {
+            return client.get(path)
+                .timeout(REQUEST_TIMEOUT.toMillis() * 100)
+                .send()
+                .compose(r -> assertResponse(r, 200))
+                .map(HttpResponse::body);
+        }
+
+        Future<Buffer> ping() {
+            return client.get("/ping")
+                .timeout(REQUEST_TIMEOUT.toMillis())
+                .send()
+                .compose(r -> assertResponse(r, 200))
+                .map(HttpResponse::body);
+        }
+    }
+
+    @BeforeClass
+    @SneakyThrows
+    public void bootstrap() {
+        var payload = Buffer.buffer(new byte[PAYLOAD_SIZE]);
+
+        server = bwait(vertx.createHttpServer()
+            .requestHandler(r -> {
+                if ("/payload".equals(r.path())) {
+                    r.response().end(payload);
+                } else {
+                    r.response().end("pong");
+                }
+            })
+            .listen(0, "localhost"));
+        log.info("stand-in server listening on port {}", server.actualPort());
+
+        proxy = bwait(FaultInjectionProxy.start(vertx, "localhost", server.actualPort()));
+        client = new StandInClient(vertx, "http://" + proxy.getAddress());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void clearFault() {
+        if (proxy != null) {
+            proxy.clear();
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void teardown() {
+        try {
+            if (proxy != null) {
+                bwait(proxy.close());
+            }
+        } catch (Throwable t) {
+            log.error("failed to close the proxy: ", t);
+        }
+
+        try {
+            bwait(vertx.close());
+        } catch (Throwable t) {
+            log.error("failed to close vertx: ", t);
+        }
+    }
+
+    @SneakyThrows
+    private Duration ping() {
+        var start = Instant.now();
+        bwait(client.ping());
+        return Duration.between(start, Instant.now());
+    }
+
+    @Test
+    @SneakyThrows
+    public void testLatency() {
+
+        // warm up the connection
+        ping();
+        var baseline = ping();
+        log.info("baseline round trip: {}", baseline);
+
+        proxy.inject(NetworkFault.latency(LATENCY));
+        var degraded = ping();
+        log.info("round trip with {} latency: {}", LATENCY, degraded);
+
+        // the latency is applied in both directions
+        assertTrue(degraded.compareTo(LATENCY.multipliedBy(2)) >= 0,
+            "expected round trip to be at least " + LATENCY.multipliedBy(2) + " but it was " + degraded);
+    }
+
+    @Test
+    @SneakyThrows
+    public void testThroughputUnderBandwidthCap() {
+
+        var start = Instant.now();
+        assertEquals(bwait(client.get("/payload")).length(), PAYLOAD_SIZE);
+        var unlimited = throughput(PAYLOAD_SIZE, Duration.between(start, Instant.now()));
+        log.info("unlimited throughput: {} B/s", unlimited);
+
+        proxy.inject(NetworkFault.bandwidth(BANDWIDTH));
+        start = Instant.now();
+        assertEquals(bwait(client.get("/payload")).length(), PAYLOAD_SIZE);
+        var degraded = throughput(PAYLOAD_SIZE, Duration.between(start, Instant.now()));
+        log.info("throughput with {} B/s bandwidth cap: {} B/s", BANDWIDTH, degraded);
+
+        // allow some tolerance for the chunks that are already in flight when the cap is applied
+        assertTrue(degraded <= BANDWIDTH * 1.25, "expected throughput to be capped at " + BANDWIDTH + " B/s but it was " + degraded);
+    }
+
+    @Test
+    @SneakyThrows
+    public void testRecoveryAfterBlackhole() {
+        ping();
+
+        var schedule = FaultSchedule.create()
+            .then(NetworkFault.blackhole(), ofSeconds(3));
+
+        var probe = new RecoveryProbe(vertx, "http", () -> client.ping(), ofMillis(100), ofSeconds(30));
+        var recovery = bwait(probe.measure(proxy, schedule));
+        log.info("time to recover from blackhole: {}", recovery);
+        assertTrue(recovery.compareTo(ofSeconds(10)) < 0, "client took " + recovery + " to recover from the blackhole");
+    }
+
+    @Test
+    @SneakyThrows
+    public void testRecoveryAfterReset() {
+        ping();
+
+        var schedule = FaultSchedule.create()
+            .then(NetworkFault.reset(), ofSeconds(2));
+
+        var probe = new RecoveryProbe(vertx, "http", () -> client.ping(), ofMillis(100), ofSeconds(30));
+        var recovery = bwait(probe.measure(proxy, schedule));
+        log.info("time to recover from reset: {}", recovery);
+        assertTrue(recovery.compareTo(ofSeconds(5)) < 0, "client took " + recovery + " to recover from the reset");
+    }
+
+    private static long throughput(long bytes, Duration d) {
+        return bytes * 1000 / Math.max(1, d.toMillis());
+    }
+}